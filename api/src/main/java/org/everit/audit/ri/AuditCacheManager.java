@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * Interface to invalidate the cached audit applications and event types. The invalidation is
+ * propagated to the other nodes of the cluster if the implementation is configured to do so.
+ * <p>
+ * No permission is checked by the methods of this interface. An invalidation neither reads nor
+ * modifies audit data, the evicted entries are loaded from the database again on their next use
+ * with the usual permission checks. The interface is meant for the administration of the
+ * component, so it should not be exposed to untrusted callers who could slow down the logging by
+ * invalidating the caches repeatedly.
+ * </p>
+ */
+public interface AuditCacheManager {
+
+  /**
+   * Removes all audit applications and event types from the cache.
+   */
+  void invalidateAll();
+
+  /**
+   * Removes the audit application and its event types from the cache, for e.g. after the
+   * application was modified or removed in the database.
+   *
+   * @param applicationName
+   *          the name of the application to invalidate, cannot be <code>null</code>
+   * @throws NullPointerException
+   *           if <code>applicationName</code> is <code>null</code>
+   */
+  void invalidateAuditApplication(String applicationName);
+
+  /**
+   * Removes the event types of the audit application from the cache. The event types of the other
+   * applications are not affected.
+   *
+   * @param applicationName
+   *          the name of the application, cannot be <code>null</code>
+   * @throws NullPointerException
+   *           if <code>applicationName</code> is <code>null</code>
+   * @throws UnknownAuditApplicationException
+   *           if the given application not exists
+   */
+  void invalidateAuditEventTypes(String applicationName);
+
+}
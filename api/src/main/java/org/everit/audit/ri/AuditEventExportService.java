@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import org.everit.audit.ri.dto.AuditEventQuery;
+
+/**
+ * Interface to export large amounts of logged audit events with constant memory usage.
+ */
+public interface AuditEventExportService {
+
+  /**
+   * Streams the audit events matching the query to the visitor ordered by the time they occured at
+   * and then by the event identifier, the same keyset order as the pages of the
+   * {@link AuditEventQueryService} use. If the events are stored in time partitions, the
+   * partitions are exported one after the other in the order of their periods. The events are read
+   * with a forward-only cursor and passed to the visitor as soon as all of their data is read, so
+   * the events are not collected in memory. The page size of the query is ignored, the cursor of
+   * the query is applied as a filter.
+   *
+   * @param auditEventQuery
+   *          the filter of the export, cannot be <code>null</code>
+   * @param visitor
+   *          receives the events, cannot be <code>null</code>
+   * @throws NullPointerException
+   *           if <code>auditEventQuery</code> or <code>visitor</code> is <code>null</code>
+   * @throws UnknownAuditApplicationException
+   *           if the application of the query not exists
+   */
+  void exportEvents(AuditEventQuery auditEventQuery, StoredAuditEventVisitor visitor);
+
+}
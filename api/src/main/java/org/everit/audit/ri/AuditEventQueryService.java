@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import org.everit.audit.ri.dto.AuditEventPage;
+import org.everit.audit.ri.dto.AuditEventQuery;
+
+/**
+ * Interface to read back the logged audit events.
+ */
+public interface AuditEventQueryService {
+
+  /**
+   * Returns a page of the audit events matching the query ordered by the time of occurrence and
+   * the event identifier. The pages are addressed by the cursor of the previous page, so deep
+   * pages are as cheap as the first one.
+   *
+   * @param auditEventQuery
+   *          the filter and page parameters, cannot be <code>null</code>
+   * @return the page of the events
+   * @throws NullPointerException
+   *           if <code>auditEventQuery</code> is <code>null</code>
+   * @throws UnknownAuditApplicationException
+   *           if the application of the query not exists
+   */
+  AuditEventPage queryEvents(AuditEventQuery auditEventQuery);
+
+}
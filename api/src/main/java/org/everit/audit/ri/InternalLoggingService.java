@@ -15,6 +15,8 @@
  */
 package org.everit.audit.ri;
 
+import java.util.Collection;
+
 import org.everit.audit.dto.AuditEvent;
 
 /**
@@ -38,4 +40,22 @@ public interface InternalLoggingService {
    */
   void logEvent(String applicationName, AuditEvent auditEvent);
 
+  /**
+   * Persists the given audit events to the event store in one step. The permission is checked
+   * only once and the missing event types are created together.
+   *
+   * @param applicationName
+   *          the audit events will be logged under this audit application, cannot be
+   *          <code>null</code>
+   * @param auditEvents
+   *          the events to persist, cannot be <code>null</code> or contain <code>null</code>
+   *          element
+   * @throws NullPointerException
+   *           if the <code>applicationName</code> or <code>auditEvents</code> parameter is
+   *           <code>null</code> or <code>auditEvents</code> contains <code>null</code> element
+   * @throws UnknownAuditApplicationException
+   *           if the given application not exists
+   */
+  void logEvents(String applicationName, Collection<AuditEvent> auditEvents);
+
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import org.everit.audit.dto.AuditEvent;
+import org.everit.audit.ri.dto.StreamedEventData;
+
+/**
+ * Interface for logging {@link AuditEvent}s with large text data read from streams instead of
+ * {@link String}s. The events are persisted synchronously as the streams are read during the
+ * call.
+ */
+public interface InternalStreamingLoggingService {
+
+  /**
+   * Persists the given audit event with additional {@link org.everit.audit.dto.EventDataType#TEXT}
+   * data whose values are streamed to the event store. The streamed data follow the data of the
+   * <code>auditEvent</code>.
+   *
+   * @param applicationName
+   *          the audit event will be logged under this audit application, cannot be
+   *          <code>null</code>
+   * @param auditEvent
+   *          the event to persist, cannot be <code>null</code>
+   * @param streamedEventData
+   *          the text data read from streams, cannot contain <code>null</code> element
+   * @throws NullPointerException
+   *           if the <code>applicationName</code>, <code>auditEvent</code> or
+   *           <code>streamedEventData</code> parameter is <code>null</code> or
+   *           <code>streamedEventData</code> contains <code>null</code> element
+   * @throws UnknownAuditApplicationException
+   *           if the given application not exists
+   */
+  void logStreamedEvent(String applicationName, AuditEvent auditEvent,
+      StreamedEventData... streamedEventData);
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import org.everit.audit.ri.dto.StoredAuditEvent;
+
+/**
+ * Callback receiving the audit events of an export one by one.
+ */
+public interface StoredAuditEventVisitor {
+
+  /**
+   * Processes one exported audit event.
+   *
+   * @param storedAuditEvent
+   *          the audit event with all of its data
+   * @return <code>true</code> to continue the export, <code>false</code> to stop it
+   */
+  boolean visit(StoredAuditEvent storedAuditEvent);
+
+}
@@ -45,6 +45,22 @@ public interface AuditRiAuthorizationManager {
    */
   void addPermissionToLogToAuditApplication(long authorizedResourceId, String applicationName);
 
+  /**
+   * Adds the {@link AuditRiPermissionConstants#READ_AUDIT_APPLICATION} permission action to the
+   * given authorized resourceId.
+   *
+   * @param authorizedResourceId
+   *          the permission will be added to this resourceId
+   * @param applicationName
+   *          the authorized resourceId can read the events of this audit application, cannot be
+   *          <code>null</code>
+   * @throws NullPointerException
+   *           if the <code>applicationName</code> is <code>null</code>
+   * @throws org.everit.audit.ri.UnknownAuditApplicationException
+   *           if the given application not exists
+   */
+  void addPermissionToReadAuditApplication(long authorizedResourceId, String applicationName);
+
   /**
    * Removes the {@link AuditRiPermissionConstants#INIT_AUDIT_APPLICATION} permission action from
    * the given authorized resourceId.
@@ -70,4 +86,20 @@ public interface AuditRiAuthorizationManager {
    */
   void removePermissionLogToAuditApplication(long authorizedResourceId, String applicationName);
 
+  /**
+   * Removes the {@link AuditRiPermissionConstants#READ_AUDIT_APPLICATION} permission action from
+   * the given authorized resourceId.
+   *
+   * @param authorizedResourceId
+   *          the permission will be removed from this resourceId
+   * @param applicationName
+   *          the authorized resourceId cannot read the events of this audit application any more,
+   *          cannot be <code>null</code>
+   * @throws NullPointerException
+   *           if the <code>applicationName</code> is <code>null</code>
+   * @throws org.everit.audit.ri.UnknownAuditApplicationException
+   *           if the given application not exists
+   */
+  void removePermissionReadAuditApplication(long authorizedResourceId, String applicationName);
+
 }
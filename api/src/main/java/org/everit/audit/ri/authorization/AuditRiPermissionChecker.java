@@ -50,4 +50,18 @@ public interface AuditRiPermissionChecker {
    */
   boolean hasPermissionToLogToAuditApplication(String applicationName);
 
+  /**
+   * Checks if the authenticated resource has a permission for the
+   * {@link AuditRiPermissionConstants#READ_AUDIT_APPLICATION} permission action.
+   *
+   * @param applicationName
+   *          the name of the application to check, cannot be <code>null</code>
+   * @return <code>true</code> if the permission is allowed, <code>false</code> otherwise
+   * @throws NullPointerException
+   *           if <code>applicationName</code> is <code>null</code>
+   * @throws org.everit.audit.ri.UnknownAuditApplicationException
+   *           if the given application not exists
+   */
+  boolean hasPermissionToReadAuditApplication(String applicationName);
+
 }
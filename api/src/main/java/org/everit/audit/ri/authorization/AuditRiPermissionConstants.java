@@ -38,10 +38,18 @@ public final class AuditRiPermissionConstants {
    */
   public static final String LOG_TO_AUDIT_APPLICATION;
 
+  /**
+   * Permission to read the audit events of an audit application. <br>
+   * <br>
+   * <b>TARGET_RESOURCE_ID</b>: the resourceId of the audit application
+   */
+  public static final String READ_AUDIT_APPLICATION;
+
   static {
     String prefix = AuditRiPermissionConstants.class.getPackage().getName() + ".";
     INIT_AUDIT_APPLICATION = prefix + "INIT_AUDIT_APPLICATION";
     LOG_TO_AUDIT_APPLICATION = prefix + "LOG_TO_AUDIT_APPLICATION";
+    READ_AUDIT_APPLICATION = prefix + "READ_AUDIT_APPLICATION";
   }
 
   private AuditRiPermissionConstants() {
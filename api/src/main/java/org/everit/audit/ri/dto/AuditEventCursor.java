@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.dto;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Position of a page of audit events in the ordering by <code>occuredAt</code> and
+ * <code>eventId</code>. The next page starts right after this position.
+ */
+public class AuditEventCursor {
+
+  /**
+   * The identifier of the last event of the previous page.
+   */
+  public final long eventId;
+
+  /**
+   * The time of occurrence of the last event of the previous page.
+   */
+  public final Instant occuredAt;
+
+  /**
+   * Constructor.
+   *
+   * @param occuredAt
+   *          the time of occurrence of the last event of the previous page, cannot be
+   *          <code>null</code>
+   * @param eventId
+   *          the identifier of the last event of the previous page
+   */
+  public AuditEventCursor(final Instant occuredAt, final long eventId) {
+    this.occuredAt = Objects.requireNonNull(occuredAt, "occuredAt cannot be null");
+    this.eventId = eventId;
+  }
+
+  @Override
+  public String toString() {
+    return "AuditEventCursor [occuredAt=" + occuredAt + ", eventId=" + eventId + "]";
+  }
+
+}
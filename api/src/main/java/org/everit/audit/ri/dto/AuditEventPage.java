@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of audit events returned by an audit event query.
+ */
+public class AuditEventPage {
+
+  /**
+   * The events of the page ordered by <code>occuredAt</code> and <code>eventId</code>.
+   */
+  public final List<StoredAuditEvent> auditEvents;
+
+  /**
+   * The cursor of the next page, <code>null</code> if this is the last page.
+   */
+  public final AuditEventCursor nextCursor;
+
+  /**
+   * Constructor.
+   */
+  public AuditEventPage(final List<StoredAuditEvent> auditEvents,
+      final AuditEventCursor nextCursor) {
+    this.auditEvents = Collections.unmodifiableList(auditEvents);
+    this.nextCursor = nextCursor;
+  }
+
+}
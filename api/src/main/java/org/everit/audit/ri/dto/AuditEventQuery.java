@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.dto;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The filter and page parameters of an audit event query. The ranges are inclusive at the start
+ * and exclusive at the end, the <code>null</code> bounds are not applied.
+ */
+public class AuditEventQuery {
+
+  /**
+   * Builder class to create the query easily.
+   */
+  public static class Builder {
+
+    private String applicationName;
+
+    private Instant createdAtFrom;
+
+    private Instant createdAtTo;
+
+    private AuditEventCursor cursor;
+
+    private String[] eventTypeNames;
+
+    private Instant occuredAtFrom;
+
+    private Instant occuredAtTo;
+
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    /**
+     * Default constructor.
+     */
+    public Builder() {
+    }
+
+    /**
+     * Copy constructor, for e.g. to request the next page of a query.
+     *
+     * @param auditEventQuery
+     *          the original query, cannot be <code>null</code>.
+     */
+    public Builder(final AuditEventQuery auditEventQuery) {
+      Objects.requireNonNull(auditEventQuery, "auditEventQuery cannot be null");
+      applicationName = auditEventQuery.applicationName;
+      createdAtFrom = auditEventQuery.createdAtFrom;
+      createdAtTo = auditEventQuery.createdAtTo;
+      cursor = auditEventQuery.cursor;
+      eventTypeNames = auditEventQuery.eventTypeNames;
+      occuredAtFrom = auditEventQuery.occuredAtFrom;
+      occuredAtTo = auditEventQuery.occuredAtTo;
+      pageSize = auditEventQuery.pageSize;
+    }
+
+    /**
+     * Sets the name of the audit application of the events, it is mandatory.
+     */
+    public Builder applicationName(final String applicationName) {
+      this.applicationName = applicationName;
+      return this;
+    }
+
+    /**
+     * Creates the query.
+     *
+     * @throws NullPointerException
+     *           if the application name is not set or an event type name is <code>null</code>
+     * @throws IllegalArgumentException
+     *           if the page size is not between 1 and {@link AuditEventQuery#MAX_PAGE_SIZE}
+     */
+    public AuditEventQuery build() {
+      return new AuditEventQuery(this);
+    }
+
+    /**
+     * Sets the range of the creation time of the events.
+     */
+    public Builder createdAt(final Instant from, final Instant to) {
+      createdAtFrom = from;
+      createdAtTo = to;
+      return this;
+    }
+
+    /**
+     * Sets the position after which the page starts, <code>null</code> for the first page.
+     */
+    public Builder cursor(final AuditEventCursor cursor) {
+      this.cursor = cursor;
+      return this;
+    }
+
+    /**
+     * Restricts the result to the given event types, no restriction if not set.
+     */
+    public Builder eventTypeNames(final String... eventTypeNames) {
+      this.eventTypeNames = eventTypeNames;
+      return this;
+    }
+
+    /**
+     * Sets the range of the occurrence time of the events.
+     */
+    public Builder occuredAt(final Instant from, final Instant to) {
+      occuredAtFrom = from;
+      occuredAtTo = to;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of events of the page, {@link AuditEventQuery#DEFAULT_PAGE_SIZE} if
+     * not set.
+     */
+    public Builder pageSize(final int pageSize) {
+      this.pageSize = pageSize;
+      return this;
+    }
+  }
+
+  public static final int DEFAULT_PAGE_SIZE = 100;
+
+  public static final int MAX_PAGE_SIZE = 10000;
+
+  /**
+   * The name of the audit application of the events.
+   */
+  public final String applicationName;
+
+  /**
+   * The start of the creation time range (inclusive), <code>null</code> for no lower bound.
+   */
+  public final Instant createdAtFrom;
+
+  /**
+   * The end of the creation time range (exclusive), <code>null</code> for no upper bound.
+   */
+  public final Instant createdAtTo;
+
+  /**
+   * The position after which the page starts, <code>null</code> for the first page.
+   */
+  public final AuditEventCursor cursor;
+
+  /**
+   * The names of the event types to return, <code>null</code> for all event types.
+   */
+  public final String[] eventTypeNames;
+
+  /**
+   * The start of the occurrence time range (inclusive), <code>null</code> for no lower bound.
+   */
+  public final Instant occuredAtFrom;
+
+  /**
+   * The end of the occurrence time range (exclusive), <code>null</code> for no upper bound.
+   */
+  public final Instant occuredAtTo;
+
+  /**
+   * The maximum number of events of the page.
+   */
+  public final int pageSize;
+
+  private AuditEventQuery(final Builder builder) {
+    applicationName = Objects.requireNonNull(builder.applicationName,
+        "applicationName cannot be null");
+    if ((builder.pageSize <= 0) || (builder.pageSize > MAX_PAGE_SIZE)) {
+      throw new IllegalArgumentException("pageSize must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    if (builder.eventTypeNames != null) {
+      for (String eventTypeName : builder.eventTypeNames) {
+        Objects.requireNonNull(eventTypeName, "eventTypeNames cannot contain null value");
+      }
+    }
+    createdAtFrom = builder.createdAtFrom;
+    createdAtTo = builder.createdAtTo;
+    cursor = builder.cursor;
+    eventTypeNames = (builder.eventTypeNames == null)
+        ? null
+        : Arrays.copyOf(builder.eventTypeNames, builder.eventTypeNames.length);
+    occuredAtFrom = builder.occuredAtFrom;
+    occuredAtTo = builder.occuredAtTo;
+    pageSize = builder.pageSize;
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.dto;
+
+import java.time.Instant;
+
+/**
+ * An audit event read back from the event store.
+ */
+public class StoredAuditEvent {
+
+  /**
+   * The time when the event was persisted.
+   */
+  public final Instant createdAt;
+
+  /**
+   * The data of the event.
+   */
+  public final StoredEventData[] eventDataArray;
+
+  /**
+   * The identifier of the event.
+   */
+  public final long eventId;
+
+  /**
+   * The name of the event type of the event.
+   */
+  public final String eventTypeName;
+
+  /**
+   * The time when the event occurred.
+   */
+  public final Instant occuredAt;
+
+  /**
+   * Constructor.
+   */
+  public StoredAuditEvent(final long eventId, final String eventTypeName,
+      final Instant occuredAt, final Instant createdAt, final StoredEventData[] eventDataArray) {
+    this.eventId = eventId;
+    this.eventTypeName = eventTypeName;
+    this.occuredAt = occuredAt;
+    this.createdAt = createdAt;
+    this.eventDataArray = eventDataArray;
+  }
+
+  @Override
+  public String toString() {
+    return "StoredAuditEvent [eventId=" + eventId + ", eventTypeName=" + eventTypeName
+        + ", occuredAt=" + occuredAt + ", createdAt=" + createdAt + "]";
+  }
+
+}
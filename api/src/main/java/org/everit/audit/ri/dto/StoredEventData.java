@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.dto;
+
+import java.time.Instant;
+
+import org.everit.audit.dto.EventDataType;
+
+/**
+ * A data of an audit event read back from the event store. Only the value field belonging to the
+ * {@link #eventDataType} is filled, the {@link EventDataType#STRING} and {@link EventDataType#TEXT}
+ * values are both returned in {@link #textValue}.
+ */
+public class StoredEventData {
+
+  public final String eventDataName;
+
+  public final EventDataType eventDataType;
+
+  public final Double numberValue;
+
+  public final String textValue;
+
+  public final Instant timestampValue;
+
+  /**
+   * Constructor.
+   */
+  public StoredEventData(final String eventDataName, final EventDataType eventDataType,
+      final Double numberValue, final String textValue, final Instant timestampValue) {
+    this.eventDataName = eventDataName;
+    this.eventDataType = eventDataType;
+    this.numberValue = numberValue;
+    this.textValue = textValue;
+    this.timestampValue = timestampValue;
+  }
+
+  @Override
+  public String toString() {
+    return "StoredEventData [eventDataName=" + eventDataName + ", eventDataType="
+        + eventDataType + "]";
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.dto;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * A text event data whose value is read from a stream while the event is persisted, so the value
+ * is never held in memory as a whole. The stream is read only once and it is not closed by the
+ * logging service.
+ */
+public class StreamedEventData {
+
+  /**
+   * The value of {@link #length} if the length of the value is not known in advance.
+   */
+  public static final long UNKNOWN_LENGTH = -1;
+
+  public final String eventDataName;
+
+  /**
+   * The number of characters of the value or {@link #UNKNOWN_LENGTH}. Some JDBC drivers can
+   * stream the value only if its length is known.
+   */
+  public final long length;
+
+  public final Reader reader;
+
+  /**
+   * Constructor of a value encoded in the given charset with unknown length.
+   */
+  public StreamedEventData(final String eventDataName, final InputStream inputStream,
+      final Charset charset) {
+    this(eventDataName, new InputStreamReader(inputStream, charset), UNKNOWN_LENGTH);
+  }
+
+  /**
+   * Constructor of a value with unknown length.
+   */
+  public StreamedEventData(final String eventDataName, final Reader reader) {
+    this(eventDataName, reader, UNKNOWN_LENGTH);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @throws NullPointerException
+   *           if the <code>eventDataName</code> or <code>reader</code> parameter is
+   *           <code>null</code>
+   * @throws IllegalArgumentException
+   *           if the <code>length</code> is negative and not {@link #UNKNOWN_LENGTH}
+   */
+  public StreamedEventData(final String eventDataName, final Reader reader, final long length) {
+    if (eventDataName == null) {
+      throw new NullPointerException("eventDataName cannot be null");
+    }
+    if (reader == null) {
+      throw new NullPointerException("reader cannot be null");
+    }
+    if ((length < 0) && (length != UNKNOWN_LENGTH)) {
+      throw new IllegalArgumentException("length cannot be negative");
+    }
+    this.eventDataName = eventDataName;
+    this.reader = reader;
+    this.length = length;
+  }
+
+  @Override
+  public String toString() {
+    return "StreamedEventData [eventDataName=" + eventDataName + ", length=" + length + "]";
+  }
+
+}
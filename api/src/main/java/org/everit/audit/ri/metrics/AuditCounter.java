@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.metrics;
+
+/**
+ * The counters recorded by the audit implementation.
+ */
+public enum AuditCounter {
+
+  /**
+   * An audit application was found in the cache.
+   */
+  APPLICATION_CACHE_HIT,
+
+  /**
+   * An audit application was not found in the cache and had to be selected from the database.
+   */
+  APPLICATION_CACHE_MISS,
+
+  /**
+   * Audit event data rows written to the database.
+   */
+  EVENT_DATA_ROWS_WRITTEN,
+
+  /**
+   * An event type was found in the cache.
+   */
+  EVENT_TYPE_CACHE_HIT,
+
+  /**
+   * An event type was not found in the cache and had to be selected or created.
+   */
+  EVENT_TYPE_CACHE_MISS,
+
+  /**
+   * Audit events that can never be persisted and were written to a dead-letter file.
+   */
+  EVENTS_DEAD_LETTERED,
+
+  /**
+   * Audit events that were neither persisted nor written to a dead-letter file.
+   */
+  EVENTS_DISCARDED,
+
+  /**
+   * Audit events that were not accepted because the queue of the asynchronous logging was full.
+   */
+  EVENTS_DROPPED,
+
+  /**
+   * Audit events written to the database.
+   */
+  EVENTS_WRITTEN,
+
+  /**
+   * A granted permission was found in the permission cache.
+   */
+  PERMISSION_CACHE_HIT,
+
+  /**
+   * A permission was not found in the permission cache and had to be evaluated.
+   */
+  PERMISSION_CACHE_MISS
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.metrics;
+
+/**
+ * Service provider interface receiving the metrics of the audit implementation. The methods are
+ * called on the hot path of the logging threads, so the implementations must be thread-safe and
+ * must not block.
+ * <p>
+ * The implementation is passed to the audit services in their configuration. It is not registered
+ * as an OSGi service: this repository contains no OSGi components, so publishing the configured
+ * instance is up to the components that create the audit services.
+ */
+public interface AuditMetrics {
+
+  /**
+   * Increments a counter.
+   *
+   * @param counter
+   *          the counter to increment
+   * @param amount
+   *          the value added to the counter
+   */
+  void increment(AuditCounter counter, long amount);
+
+  /**
+   * Records a latency.
+   *
+   * @param timer
+   *          the measured operation
+   * @param nanos
+   *          the duration of the operation in nanoseconds
+   */
+  void recordNanos(AuditTimer timer, long nanos);
+
+}
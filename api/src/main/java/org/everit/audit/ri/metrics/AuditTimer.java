@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.metrics;
+
+/**
+ * The latencies recorded by the audit implementation.
+ */
+public enum AuditTimer {
+
+  /**
+   * A permission check or permission query of the authenticated resource.
+   */
+  PERMISSION_CHECK,
+
+  /**
+   * A database call of the write path, measured around the Querydsl support.
+   */
+  QUERYDSL_EXECUTE,
+
+  /**
+   * A transaction of the write path including the database calls inside it.
+   */
+  TRANSACTION
+
+}
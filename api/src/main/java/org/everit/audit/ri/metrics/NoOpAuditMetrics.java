@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.biz)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.metrics;
+
+/**
+ * {@link AuditMetrics} that ignores every metric. Used when no metrics are configured.
+ */
+public final class NoOpAuditMetrics implements AuditMetrics {
+
+  public static final NoOpAuditMetrics INSTANCE = new NoOpAuditMetrics();
+
+  private NoOpAuditMetrics() {
+  }
+
+  @Override
+  public void increment(final AuditCounter counter, final long amount) {
+    // ignored
+  }
+
+  @Override
+  public void recordNanos(final AuditTimer timer, final long nanos) {
+    // ignored
+  }
+
+}
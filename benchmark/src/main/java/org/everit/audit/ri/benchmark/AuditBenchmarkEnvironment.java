@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.everit.audit.dto.AuditEvent;
+import org.everit.audit.dto.EventData;
+import org.everit.audit.ri.AuditConfiguration;
+import org.everit.audit.ri.AuditEventTypeRegistry;
+import org.everit.audit.ri.AuditRequiredServices;
+import org.everit.audit.ri.BoundedAuditCache;
+import org.everit.audit.ri.InternalAuditService;
+import org.h2.engine.Constants;
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ClassLoaderResourceAccessor;
+
+/**
+ * An {@link InternalAuditService} running against a new in-memory or temporary file H2 database
+ * with the audit schema applied by Liquibase.
+ */
+public class AuditBenchmarkEnvironment implements AutoCloseable {
+
+  public static final String APPLICATION_NAME = "benchmark";
+
+  private static final String AUDIT_CHANGELOG = "META-INF/liquibase/audit.ri.liquibase.xml";
+
+  private static final int CACHE_SIZE = 100000;
+
+  private static final String DATABASE_NAME = "audit";
+
+  private static final int MAX_CONNECTIONS = 64;
+
+  /**
+   * The maximum length in bytes of the lobs stored in the rows of the tables by the databases
+   * stored on disk.
+   */
+  private static final int MAX_LENGTH_INPLACE_LOB = 1024 * 1024;
+
+  /**
+   * The page size in bytes of the databases stored on disk. The 2 KB default pages would hold
+   * only one row of the compact event data format.
+   */
+  private static final int PAGE_SIZE = 8192;
+
+  /**
+   * The maximum number of pages the files of the databases stored on disk grow by at once.
+   */
+  private static final int PAGE_STORE_MAX_GROWTH = 16;
+
+  /**
+   * The indexes of the audit changelog that are dropped to measure their cost on the insert
+   * throughput.
+   */
+  private static final String[] OPTIONAL_INDEX_NAMES = new String[] {
+      "idx_event_type_id_occured_at", "idx_event_created_at", "idx_event_data_event_id" };
+
+  /**
+   * Stands in for the <code>org.everit.resource.ri.eosgi</code> include of the audit changelog.
+   * The include is provided by a capability in OSGi and skipped by plain Liquibase as its name
+   * has no known changelog extension.
+   */
+  private static final String RESOURCE_CHANGELOG =
+      "META-INF/liquibase/benchmark.resource.liquibase.xml";
+
+  /**
+   * Creates an event with the given number of string data.
+   */
+  public static AuditEvent createAuditEvent(final String eventTypeName,
+      final int eventDataCount) {
+    EventData[] eventDataArray = new EventData[eventDataCount];
+    for (int i = 0; i < eventDataCount; i++) {
+      eventDataArray[i] = new EventData.Builder("data" + i).buildStringValue("value" + i);
+    }
+    return new AuditEvent.Builder()
+        .eventTypeName(eventTypeName)
+        .occuredAt(Instant.now())
+        .eventDataArray(eventDataArray)
+        .build();
+  }
+
+  private final JdbcConnectionPool connectionPool;
+
+  /**
+   * The directory of the database stored on disk, <code>null</code> if the database is in memory.
+   */
+  private final Path databaseDirectory;
+
+  public final InternalAuditService internalAuditService;
+
+  /**
+   * Constructor with the default {@link AuditConfiguration}.
+   *
+   * @param indexes
+   *          whether the optional indexes of the audit schema are kept
+   */
+  public AuditBenchmarkEnvironment(final boolean indexes) {
+    this(indexes, new AuditConfiguration.Builder().build());
+  }
+
+  /**
+   * Constructor with an in-memory database.
+   *
+   * @param indexes
+   *          whether the optional indexes of the audit schema are kept
+   */
+  public AuditBenchmarkEnvironment(final boolean indexes,
+      final AuditConfiguration auditConfiguration) {
+    this(indexes, auditConfiguration, false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param indexes
+   *          whether the optional indexes of the audit schema are kept
+   * @param storedOnDisk
+   *          whether the database is stored in a temporary directory that is deleted on close. The
+   *          disk space used by the events is only reported by such databases, see
+   *          {@link #getStoredBytes()}.
+   */
+  public AuditBenchmarkEnvironment(final boolean indexes,
+      final AuditConfiguration auditConfiguration, final boolean storedOnDisk) {
+    String url;
+    if (storedOnDisk) {
+      try {
+        databaseDirectory = Files.createTempDirectory("audit-benchmark");
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      // the page store grows the file by a few pages unlike the MVStore that writes chunks. The
+      // transaction log would take the pages of the file too. The lobs stored outside of the rows
+      // share the blocks of the same content, so the events logged repeatedly by the benchmarks
+      // would take almost no space.
+      url = "jdbc:h2:file:" + databaseDirectory.resolve(DATABASE_NAME).toAbsolutePath()
+          + ";MV_STORE=FALSE;PAGE_SIZE=" + PAGE_SIZE
+          + ";PAGE_STORE_MAX_GROWTH=" + PAGE_STORE_MAX_GROWTH
+          + ";LOG=0"
+          + ";MAX_LENGTH_INPLACE_LOB=" + MAX_LENGTH_INPLACE_LOB;
+    } else {
+      databaseDirectory = null;
+      url = "jdbc:h2:mem:audit-" + UUID.randomUUID();
+    }
+    connectionPool = JdbcConnectionPool.create(url + ";DB_CLOSE_DELAY=-1", "sa", "");
+    connectionPool.setMaxConnections(MAX_CONNECTIONS);
+
+    updateSchema();
+    if (!indexes) {
+      dropOptionalIndexes();
+    }
+
+    JdbcTransactionPropagator transactionPropagator =
+        new JdbcTransactionPropagator(connectionPool);
+    // the changelogs quote all object names, so the tables have lower case names
+    JdbcQuerydslSupport querydslSupport = new JdbcQuerydslSupport(connectionPool,
+        transactionPropagator, new Configuration(H2Templates.builder().quote().build()));
+
+    AuditRequiredServices auditRequiredServices = new AuditRequiredServices(
+        new BenchmarkAuthnrPermissionChecker(), new BenchmarkAuthorizationManager(),
+        new BenchmarkPropertyManager(), new BenchmarkResourceService(querydslSupport),
+        querydslSupport, transactionPropagator);
+
+    internalAuditService = new InternalAuditService(
+        new BoundedAuditCache<>(CACHE_SIZE),
+        new AuditEventTypeRegistry(() -> new BoundedAuditCache<>(CACHE_SIZE)),
+        auditRequiredServices, auditConfiguration);
+  }
+
+  @Override
+  public void close() {
+    internalAuditService.close();
+    try (Connection connection = connectionPool.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("SHUTDOWN");
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      connectionPool.dispose();
+      if (databaseDirectory != null) {
+        deleteDatabaseDirectory();
+      }
+    }
+  }
+
+  private void deleteDatabaseDirectory() {
+    try (Stream<Path> paths = Files.walk(databaseDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void dropOptionalIndexes() {
+    try (Connection connection = connectionPool.getConnection();
+        Statement statement = connection.createStatement()) {
+      for (String indexName : OPTIONAL_INDEX_NAMES) {
+        statement.execute("DROP INDEX \"" + indexName + "\"");
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the size of the database file, <code>0</code> if the database is not stored on disk.
+   * Only the events are logged during the benchmarks, so the growth of the file is the disk space
+   * used by the logged events.
+   */
+  public long getStoredBytes() {
+    if (databaseDirectory == null) {
+      return 0;
+    }
+    try {
+      return Files.size(databaseDirectory.resolve(DATABASE_NAME + Constants.SUFFIX_PAGE_FILE));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the number of the stored events.
+   */
+  public long getStoredEventCount() {
+    return queryLong("SELECT COUNT(*) FROM \"audit_event\"");
+  }
+
+  private long queryLong(final String sql) {
+    try (Connection connection = connectionPool.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void updateSchema() {
+    try (Connection connection = connectionPool.getConnection()) {
+      ClassLoaderResourceAccessor resourceAccessor =
+          new ClassLoaderResourceAccessor(AuditBenchmarkEnvironment.class.getClassLoader());
+      for (String changelog : new String[] { RESOURCE_CHANGELOG, AUDIT_CHANGELOG }) {
+        new Liquibase(changelog, resourceAccessor, new JdbcConnection(connection))
+            .update("");
+      }
+    } catch (SQLException | LiquibaseException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
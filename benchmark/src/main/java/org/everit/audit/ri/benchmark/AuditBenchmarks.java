@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the audit benchmarks with the GC profiler, so the results contain the allocation rate
+ * (<code>gc.alloc.rate.norm</code>) next to the throughput. The JMH command line options are
+ * accepted, for e.g. a benchmark name pattern to run only some of the benchmarks.
+ */
+public final class AuditBenchmarks {
+
+  /**
+   * Runs the benchmarks.
+   */
+  public static void main(final String[] args)
+      throws CommandLineOptionException, RunnerException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+    OptionsBuilder optionsBuilder = new OptionsBuilder();
+    optionsBuilder.parent(commandLineOptions);
+    if (commandLineOptions.getIncludes().isEmpty()) {
+      optionsBuilder.include(AuditBenchmarks.class.getPackage().getName() + ".*");
+    }
+    Options options = optionsBuilder
+        .addProfiler(GCProfiler.class)
+        .build();
+
+    new Runner(options).run();
+  }
+
+  private AuditBenchmarks() {
+  }
+
+}
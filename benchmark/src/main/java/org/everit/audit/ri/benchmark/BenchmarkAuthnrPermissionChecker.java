@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import org.everit.authnr.permissionchecker.AuthnrPermissionChecker;
+
+/**
+ * {@link AuthnrPermissionChecker} granting every permission, so the benchmarks measure the audit
+ * implementation only.
+ */
+public class BenchmarkAuthnrPermissionChecker implements AuthnrPermissionChecker {
+
+  private static final long SYSTEM_RESOURCE_ID = 0;
+
+  @Override
+  public void checkPermission(final long targetResourceId, final String... actions) {
+    // every permission is granted
+  }
+
+  @Override
+  public long[] getAuthorizationScope() {
+    return new long[] { SYSTEM_RESOURCE_ID };
+  }
+
+  @Override
+  public long getSystemResourceId() {
+    return SYSTEM_RESOURCE_ID;
+  }
+
+  @Override
+  public boolean hasPermission(final long targetResourceId, final String... actions) {
+    return true;
+  }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import org.everit.authorization.AuthorizationManager;
+
+/**
+ * {@link AuthorizationManager} ignoring the permission changes, the benchmarks use the
+ * {@link BenchmarkAuthnrPermissionChecker} that grants every permission.
+ */
+public class BenchmarkAuthorizationManager implements AuthorizationManager {
+
+  @Override
+  public void addPermission(final long authorizedResourceId, final long targetResourceId,
+      final String action) {
+    // permissions are not stored
+  }
+
+  @Override
+  public void addPermissionInheritance(final long parentResourceId, final long childResourceId) {
+    // permissions are not stored
+  }
+
+  @Override
+  public void clearCache() {
+    // nothing is cached
+  }
+
+  @Override
+  public void removePermission(final long authorizedResourceId, final long targetResourceId,
+      final String action) {
+    // permissions are not stored
+  }
+
+  @Override
+  public void removePermissionInheritance(final long parentResourceId,
+      final long childResourceId) {
+    // permissions are not stored
+  }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.everit.props.PropertyManager;
+
+/**
+ * {@link PropertyManager} keeping the properties in memory.
+ */
+public class BenchmarkPropertyManager implements PropertyManager {
+
+  private final Map<String, String> properties = new ConcurrentHashMap<>();
+
+  @Override
+  public void addProperty(final String key, final String value) {
+    properties.put(key, value);
+  }
+
+  @Override
+  public String getProperty(final String key) {
+    return properties.get(key);
+  }
+
+  @Override
+  public String removeProperty(final String key) {
+    return properties.remove(key);
+  }
+
+  @Override
+  public String updateProperty(final String key, final String value) {
+    return properties.put(key, value);
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.everit.persistence.querydsl.support.QuerydslSupport;
+import org.everit.resource.ResourceService;
+
+/**
+ * {@link ResourceService} inserting the resources into the <code>res_resource</code> table created
+ * by the benchmark changelog.
+ */
+public class BenchmarkResourceService implements ResourceService {
+
+  private final QuerydslSupport querydslSupport;
+
+  public BenchmarkResourceService(final QuerydslSupport querydslSupport) {
+    this.querydslSupport = querydslSupport;
+  }
+
+  @Override
+  public long createResource() {
+    return querydslSupport.execute((connection, configuration) -> {
+      try (PreparedStatement statement = connection.prepareStatement(
+          "INSERT INTO \"res_resource\" DEFAULT VALUES", Statement.RETURN_GENERATED_KEYS)) {
+        statement.executeUpdate();
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+          generatedKeys.next();
+          return generatedKeys.getLong(1);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void deleteResource(final long resourceId) {
+    querydslSupport.execute((connection, configuration) -> {
+      try (PreparedStatement statement = connection.prepareStatement(
+          "DELETE FROM \"res_resource\" WHERE \"resource_id\" = ?")) {
+        statement.setLong(1, resourceId);
+        return statement.executeUpdate();
+      }
+    });
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.everit.audit.dto.AuditEvent;
+import org.everit.audit.ri.AuditConfiguration;
+import org.everit.audit.ri.AuditEventDataFormat;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the inserts per second of the event data formats. The disk space used by the events is
+ * reported by the {@link StoredBytesCounters}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventDataFormatBenchmark {
+
+  /**
+   * Reports the disk space used by the events logged in the measurement iterations as the
+   * <code>storedBytes</code> and <code>storedEvents</code> secondary results. JMH sums the counters
+   * of the iterations, so the disk space used per event is <code>storedBytes / storedEvents</code>.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class StoredBytesCounters {
+
+    private long bytesBeforeIteration;
+
+    private long eventsBeforeIteration;
+
+    public long storedBytes;
+
+    public long storedEvents;
+
+    /**
+     * Saves the disk space used and the number of events before the iteration.
+     */
+    @Setup(Level.Iteration)
+    public void setUp(final EventDataFormatBenchmark benchmark) {
+      bytesBeforeIteration = benchmark.environment.getStoredBytes();
+      eventsBeforeIteration = benchmark.environment.getStoredEventCount();
+      storedBytes = 0;
+      storedEvents = 0;
+    }
+
+    /**
+     * Counts the disk space used by the events logged in the iteration.
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown(final EventDataFormatBenchmark benchmark) {
+      storedBytes = benchmark.environment.getStoredBytes() - bytesBeforeIteration;
+      storedEvents = benchmark.environment.getStoredEventCount() - eventsBeforeIteration;
+    }
+
+  }
+
+  private static final String EVENT_TYPE_NAME = "eventDataFormat";
+
+  private AuditEvent auditEvent;
+
+  private AuditBenchmarkEnvironment environment;
+
+  @Param({ "ROWS", "COMPACT" })
+  public AuditEventDataFormat eventDataFormat;
+
+  @Param({ "5", "50" })
+  public int eventDataCount;
+
+  /**
+   * Logs an event. The counters are only injected to be reported by JMH.
+   */
+  @Benchmark
+  public void logEvent(final StoredBytesCounters storedBytesCounters) {
+    environment.internalAuditService.logEvent(AuditBenchmarkEnvironment.APPLICATION_NAME,
+        auditEvent);
+  }
+
+  /**
+   * Creates the database on disk with the indexes, the application and the event type.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    environment = new AuditBenchmarkEnvironment(true, new AuditConfiguration.Builder()
+        .eventDataFormat(eventDataFormat)
+        .build(), true);
+    environment.internalAuditService.initAuditApplication(
+        AuditBenchmarkEnvironment.APPLICATION_NAME);
+    environment.internalAuditService.initAuditEventTypes(
+        AuditBenchmarkEnvironment.APPLICATION_NAME, EVENT_TYPE_NAME);
+    auditEvent = AuditBenchmarkEnvironment.createAuditEvent(EVENT_TYPE_NAME, eventDataCount);
+  }
+
+  /**
+   * Drops the database.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.close();
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the initialization of many event types at once. The cold variant creates new event
+ * types in every invocation, the warm variant finds all of them in the cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InitAuditEventTypesBenchmark {
+
+  private AuditBenchmarkEnvironment environment;
+
+  @Param({ "10", "100", "1000" })
+  public int eventTypeCount;
+
+  private int generation = 0;
+
+  private String[] newEventTypeNames;
+
+  private String[] warmEventTypeNames;
+
+  private String[] createEventTypeNames(final String prefix) {
+    String[] rval = new String[eventTypeCount];
+    for (int i = 0; i < eventTypeCount; i++) {
+      rval[i] = prefix + "-" + i;
+    }
+    return rval;
+  }
+
+  @Benchmark
+  public void initAuditEventTypesCold() {
+    environment.internalAuditService.initAuditEventTypes(
+        AuditBenchmarkEnvironment.APPLICATION_NAME, newEventTypeNames);
+  }
+
+  @Benchmark
+  public void initAuditEventTypesWarm() {
+    environment.internalAuditService.initAuditEventTypes(
+        AuditBenchmarkEnvironment.APPLICATION_NAME, warmEventTypeNames);
+  }
+
+  /**
+   * Generates names that do not exist yet for the next invocation of the cold benchmark.
+   */
+  @Setup(Level.Invocation)
+  public void setUpInvocation() {
+    newEventTypeNames = createEventTypeNames("cold" + generation++);
+  }
+
+  /**
+   * Creates the database, the application and the event types of the warm benchmark.
+   */
+  @Setup(Level.Trial)
+  public void setUpTrial() {
+    environment = new AuditBenchmarkEnvironment(true);
+    environment.internalAuditService.initAuditApplication(
+        AuditBenchmarkEnvironment.APPLICATION_NAME);
+    warmEventTypeNames = createEventTypeNames("warm");
+    environment.internalAuditService.initAuditEventTypes(
+        AuditBenchmarkEnvironment.APPLICATION_NAME, warmEventTypeNames);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.close();
+  }
+
+}
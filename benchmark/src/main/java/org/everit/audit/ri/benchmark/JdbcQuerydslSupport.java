@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.everit.persistence.querydsl.support.QuerydslCallable;
+import org.everit.persistence.querydsl.support.QuerydslSupport;
+
+import com.querydsl.sql.Configuration;
+
+/**
+ * {@link QuerydslSupport} using the connection of the current transaction of the
+ * {@link JdbcTransactionPropagator} or a short auto-commit connection outside of transactions.
+ */
+public class JdbcQuerydslSupport implements QuerydslSupport {
+
+  private final Configuration configuration;
+
+  private final DataSource dataSource;
+
+  private final JdbcTransactionPropagator transactionPropagator;
+
+  /**
+   * Constructor.
+   */
+  public JdbcQuerydslSupport(final DataSource dataSource,
+      final JdbcTransactionPropagator transactionPropagator, final Configuration configuration) {
+    this.dataSource = dataSource;
+    this.transactionPropagator = transactionPropagator;
+    this.configuration = configuration;
+  }
+
+  @Override
+  public <R> R execute(final QuerydslCallable<R> callable) {
+    Connection connection = transactionPropagator.getCurrentConnection();
+    try {
+      if (connection != null) {
+        return callable.call(connection, configuration);
+      }
+      try (Connection autoCommitConnection = dataSource.getConnection()) {
+        return callable.call(autoCommitConnection, configuration);
+      }
+    } catch (SQLException e) {
+      throw configuration.translate(e);
+    }
+  }
+
+}
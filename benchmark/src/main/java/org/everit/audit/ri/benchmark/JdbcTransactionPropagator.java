@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+
+import javax.sql.DataSource;
+
+import org.everit.transaction.propagator.TransactionPropagator;
+
+/**
+ * {@link TransactionPropagator} binding one JDBC connection to the thread for each transaction. It
+ * replaces a JTA transaction manager in the benchmarks. Suspending a transaction is not supported,
+ * {@link #notSupported(Callable)} and {@link #supports(Callable)} run the action in the current
+ * context.
+ */
+public class JdbcTransactionPropagator implements TransactionPropagator {
+
+  private final ThreadLocal<Deque<Connection>> connections =
+      ThreadLocal.withInitial(ArrayDeque::new);
+
+  private final DataSource dataSource;
+
+  public JdbcTransactionPropagator(final DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  private <R> R call(final Callable<R> action) {
+    try {
+      return action.call();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the connection of the transaction of the current thread, <code>null</code> if there
+   * is no transaction.
+   */
+  public Connection getCurrentConnection() {
+    return connections.get().peek();
+  }
+
+  private <R> R inNewTransaction(final Callable<R> action) {
+    Connection connection;
+    try {
+      connection = dataSource.getConnection();
+      connection.setAutoCommit(false);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+
+    Deque<Connection> threadConnections = connections.get();
+    threadConnections.push(connection);
+    try {
+      R result = call(action);
+      connection.commit();
+      return result;
+    } catch (SQLException e) {
+      rollback(connection);
+      throw new IllegalStateException(e);
+    } catch (RuntimeException | Error e) {
+      rollback(connection);
+      throw e;
+    } finally {
+      threadConnections.pop();
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  @Override
+  public <R> R mandatory(final Callable<R> action) {
+    if (getCurrentConnection() == null) {
+      throw new IllegalStateException("No active transaction");
+    }
+    return call(action);
+  }
+
+  @Override
+  public <R> R never(final Callable<R> action) {
+    if (getCurrentConnection() != null) {
+      throw new IllegalStateException("Active transaction");
+    }
+    return call(action);
+  }
+
+  @Override
+  public <R> R notSupported(final Callable<R> action) {
+    return call(action);
+  }
+
+  @Override
+  public <R> R required(final Callable<R> action) {
+    if (getCurrentConnection() != null) {
+      return call(action);
+    }
+    return inNewTransaction(action);
+  }
+
+  @Override
+  public <R> R requiresNew(final Callable<R> action) {
+    return inNewTransaction(action);
+  }
+
+  private void rollback(final Connection connection) {
+    try {
+      connection.rollback();
+    } catch (SQLException e) {
+      // the original exception is more important
+    }
+  }
+
+  @Override
+  public <R> R supports(final Callable<R> action) {
+    return call(action);
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.everit.audit.dto.AuditEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the synchronous write path of one event with different numbers of data. The contended
+ * variant logs to the same application and event type from several threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogEventBenchmark {
+
+  private static final String EVENT_TYPE_NAME = "logEvent";
+
+  private static final int CONTENDED_THREAD_COUNT = 8;
+
+  private AuditEvent auditEvent;
+
+  private AuditBenchmarkEnvironment environment;
+
+  @Param({ "0", "5", "50" })
+  public int eventDataCount;
+
+  @Param({ "true", "false" })
+  public boolean indexes;
+
+  @Benchmark
+  public void logEvent() {
+    environment.internalAuditService.logEvent(AuditBenchmarkEnvironment.APPLICATION_NAME,
+        auditEvent);
+  }
+
+  @Benchmark
+  @Threads(CONTENDED_THREAD_COUNT)
+  public void logEventContended() {
+    environment.internalAuditService.logEvent(AuditBenchmarkEnvironment.APPLICATION_NAME,
+        auditEvent);
+  }
+
+  /**
+   * Creates the database, the application and the event type.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    environment = new AuditBenchmarkEnvironment(indexes);
+    environment.internalAuditService.initAuditApplication(
+        AuditBenchmarkEnvironment.APPLICATION_NAME);
+    environment.internalAuditService.initAuditEventTypes(
+        AuditBenchmarkEnvironment.APPLICATION_NAME, EVENT_TYPE_NAME);
+    auditEvent = AuditBenchmarkEnvironment.createAuditEvent(EVENT_TYPE_NAME, eventDataCount);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.close();
+  }
+
+}
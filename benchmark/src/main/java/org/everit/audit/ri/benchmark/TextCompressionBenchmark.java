@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri.benchmark;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.everit.audit.dto.AuditEvent;
+import org.everit.audit.dto.EventData;
+import org.everit.audit.ri.AuditConfiguration;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the inserts per second of events with a large text value with and without the
+ * compression. The disk space used by the events is reported by the {@link StoredBytesCounters}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextCompressionBenchmark {
+
+  /**
+   * Reports the disk space used by the events logged in the measurement iterations as the
+   * <code>storedBytes</code> and <code>storedEvents</code> secondary results. JMH sums the counters
+   * of the iterations, so the disk space used per event is <code>storedBytes / storedEvents</code>.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class StoredBytesCounters {
+
+    private long bytesBeforeIteration;
+
+    private long eventsBeforeIteration;
+
+    public long storedBytes;
+
+    public long storedEvents;
+
+    /**
+     * Saves the disk space used and the number of events before the iteration.
+     */
+    @Setup(Level.Iteration)
+    public void setUp(final TextCompressionBenchmark benchmark) {
+      bytesBeforeIteration = benchmark.environment.getStoredBytes();
+      eventsBeforeIteration = benchmark.environment.getStoredEventCount();
+      storedBytes = 0;
+      storedEvents = 0;
+    }
+
+    /**
+     * Counts the disk space used by the events logged in the iteration.
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown(final TextCompressionBenchmark benchmark) {
+      storedBytes = benchmark.environment.getStoredBytes() - bytesBeforeIteration;
+      storedEvents = benchmark.environment.getStoredEventCount() - eventsBeforeIteration;
+    }
+
+  }
+
+  private static final String EVENT_TYPE_NAME = "textCompression";
+
+  /**
+   * Creates a JSON like text similar to the request and response bodies stored in audit events.
+   */
+  private static String createText(final int textLength) {
+    StringBuilder sb = new StringBuilder(textLength + 100);
+    sb.append('[');
+    for (int i = 0; sb.length() < textLength; i++) {
+      sb.append("{\"id\":").append(i)
+          .append(",\"name\":\"item-").append(Integer.toHexString(i * 31))
+          .append("\",\"status\":\"").append(((i % 3) == 0) ? "ACTIVE" : "INACTIVE")
+          .append("\",\"modified\":\"").append(Instant.ofEpochSecond(1_500_000_000L + (i * 97)))
+          .append("\"},");
+    }
+    sb.setLength(textLength - 1);
+    return sb.append(']').toString();
+  }
+
+  private AuditEvent auditEvent;
+
+  private AuditBenchmarkEnvironment environment;
+
+  @Param({ "1000", "10000", "100000" })
+  public int textLength;
+
+  @Param({ "0", "1024" })
+  public int textCompressionThreshold;
+
+  /**
+   * Logs an event. The counters are only injected to be reported by JMH.
+   */
+  @Benchmark
+  public void logEvent(final StoredBytesCounters storedBytesCounters) {
+    environment.internalAuditService.logEvent(AuditBenchmarkEnvironment.APPLICATION_NAME,
+        auditEvent);
+  }
+
+  /**
+   * Creates the database on disk with the indexes, the application and the event type.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    environment = new AuditBenchmarkEnvironment(true, new AuditConfiguration.Builder()
+        .textCompressionThreshold(textCompressionThreshold)
+        .build(), true);
+    environment.internalAuditService.initAuditApplication(
+        AuditBenchmarkEnvironment.APPLICATION_NAME);
+    environment.internalAuditService.initAuditEventTypes(
+        AuditBenchmarkEnvironment.APPLICATION_NAME, EVENT_TYPE_NAME);
+    auditEvent = new AuditEvent.Builder()
+        .eventTypeName(EVENT_TYPE_NAME)
+        .occuredAt(Instant.now())
+        .eventDataArray(new EventData[] {
+            new EventData.Builder("body").buildTextValue(createText(textLength)) })
+        .build();
+  }
+
+  /**
+   * Drops the database.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.close();
+  }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Configuration of the {@link AsyncLoggingService}.
+ */
+public class AsyncLoggingConfiguration {
+
+  /**
+   * Builder class to create the configuration easily.
+   */
+  public static class Builder {
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private Path deadLetterFile;
+
+    private long lingerTimeMillis = DEFAULT_LINGER_TIME_MILLIS;
+
+    private long maxRetryBackoffMillis = DEFAULT_MAX_RETRY_BACKOFF_MILLIS;
+
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    private QueueFullPolicy queueFullPolicy = QueueFullPolicy.BLOCK;
+
+    private long retryBackoffMillis = DEFAULT_RETRY_BACKOFF_MILLIS;
+
+    /**
+     * Default constructor.
+     */
+    public Builder() {
+    }
+
+    /**
+     * Sets the maximum number of audit events persisted in one transaction.
+     */
+    public Builder batchSize(final int batchSize) {
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    public AsyncLoggingConfiguration build() {
+      return new AsyncLoggingConfiguration(this);
+    }
+
+    /**
+     * Sets the file the audit events that can never be persisted are appended to in the format of
+     * the journal of the {@link JournalLoggingService}, for e.g. the ones violating a constraint
+     * of the database. If no file is set, such audit events are discarded.
+     */
+    public Builder deadLetterFile(final Path deadLetterFile) {
+      this.deadLetterFile = deadLetterFile;
+      return this;
+    }
+
+    /**
+     * Sets how long the writer waits for more audit events to fill up a batch after the first
+     * event of the batch arrived.
+     */
+    public Builder lingerTimeMillis(final long lingerTimeMillis) {
+      this.lingerTimeMillis = lingerTimeMillis;
+      return this;
+    }
+
+    /**
+     * Sets the upper limit of the doubling wait between the retries of a failed batch.
+     */
+    public Builder maxRetryBackoffMillis(final long maxRetryBackoffMillis) {
+      this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+      return this;
+    }
+
+    public Builder queueCapacity(final int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    public Builder queueFullPolicy(final QueueFullPolicy queueFullPolicy) {
+      this.queueFullPolicy = queueFullPolicy;
+      return this;
+    }
+
+    /**
+     * Sets how long the writer waits before the first retry of a batch that failed, for e.g.
+     * while the database is not reachable. The wait is doubled after every further failure.
+     */
+    public Builder retryBackoffMillis(final long retryBackoffMillis) {
+      this.retryBackoffMillis = retryBackoffMillis;
+      return this;
+    }
+  }
+
+  public static final int DEFAULT_BATCH_SIZE = 100;
+
+  public static final long DEFAULT_LINGER_TIME_MILLIS = 10;
+
+  public static final long DEFAULT_MAX_RETRY_BACKOFF_MILLIS = 30000;
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+  public static final long DEFAULT_RETRY_BACKOFF_MILLIS = 100;
+
+  /**
+   * The maximum number of audit events persisted in one transaction.
+   */
+  public final int batchSize;
+
+  /**
+   * The file the audit events that can never be persisted are appended to, <code>null</code> if
+   * they are discarded.
+   */
+  public final Path deadLetterFile;
+
+  /**
+   * The maximum time in milliseconds the writer waits for a batch to fill up.
+   */
+  public final long lingerTimeMillis;
+
+  /**
+   * The maximum time in milliseconds the writer waits between the retries of a failed batch.
+   */
+  public final long maxRetryBackoffMillis;
+
+  /**
+   * The maximum number of pending audit events.
+   */
+  public final int queueCapacity;
+
+  /**
+   * The behavior when an audit event is submitted to a full queue.
+   */
+  public final QueueFullPolicy queueFullPolicy;
+
+  /**
+   * The time in milliseconds the writer waits before the first retry of a failed batch.
+   */
+  public final long retryBackoffMillis;
+
+  private AsyncLoggingConfiguration(final Builder builder) {
+    if (builder.batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive");
+    }
+    if (builder.lingerTimeMillis < 0) {
+      throw new IllegalArgumentException("lingerTimeMillis cannot be negative");
+    }
+    if (builder.queueCapacity <= 0) {
+      throw new IllegalArgumentException("queueCapacity must be positive");
+    }
+    if (builder.retryBackoffMillis <= 0) {
+      throw new IllegalArgumentException("retryBackoffMillis must be positive");
+    }
+    if (builder.maxRetryBackoffMillis < builder.retryBackoffMillis) {
+      throw new IllegalArgumentException(
+          "maxRetryBackoffMillis cannot be less than retryBackoffMillis");
+    }
+    batchSize = builder.batchSize;
+    deadLetterFile = builder.deadLetterFile;
+    lingerTimeMillis = builder.lingerTimeMillis;
+    maxRetryBackoffMillis = builder.maxRetryBackoffMillis;
+    queueCapacity = builder.queueCapacity;
+    queueFullPolicy = Objects.requireNonNull(builder.queueFullPolicy,
+        "queueFullPolicy cannot be null");
+    retryBackoffMillis = builder.retryBackoffMillis;
+  }
+
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.everit.audit.dto.AuditEvent;
+import org.everit.audit.ri.metrics.AuditCounter;
+import org.everit.audit.ri.metrics.AuditMetrics;
+
+/**
+ * Asynchronous implementation of the {@link InternalLoggingService}. The permission of the caller
+ * is checked synchronously, then the audit event is put into a bounded in-memory queue. A
+ * background writer thread drains the queue and persists the audit events in batches by the
+ * {@link InternalAuditService}.
+ * <p>
+ * The audit events that are still in the queue are lost if the JVM stops before {@link #close()}
+ * is called. Callers that require durable logging must use the {@link InternalAuditService}
+ * directly.
+ * </p>
+ * <p>
+ * Persistence errors of the writer thread are passed to the
+ * {@link Thread.UncaughtExceptionHandler} of the writer thread. The audit events that failed with
+ * a retriable error, like a lost connection or a deadlock, are retried with a doubling wait from
+ * {@link AsyncLoggingConfiguration#retryBackoffMillis} up to
+ * {@link AsyncLoggingConfiguration#maxRetryBackoffMillis} until they are persisted. The audit
+ * events that can never be persisted, like the ones violating a constraint of the database, and
+ * the ones that still fail when {@link #close()} is called are appended to the
+ * {@link AsyncLoggingConfiguration#deadLetterFile}, so closing does not wait for the database.
+ * Every audit event that is written to the dead-letter file, discarded or dropped because the
+ * queue is full is counted in the {@link AuditMetrics}.
+ * </p>
+ */
+public class AsyncLoggingService implements InternalLoggingService, AutoCloseable {
+
+  private static final long IDLE_POLL_TIMEOUT_MILLIS = 100;
+
+  private static final String WRITER_THREAD_NAME = "audit-async-writer";
+
+  private final int batchSize;
+
+  private volatile boolean closed = false;
+
+  /**
+   * The file of the audit events that can never be persisted, <code>null</code> if they are
+   * discarded.
+   */
+  private final AuditDeadLetterFile deadLetterFile;
+
+  private final InternalAuditService internalAuditService;
+
+  private final long lingerTimeNanos;
+
+  private final long maxRetryBackoffMillis;
+
+  private final AuditMetrics metrics;
+
+  private final BlockingQueue<QueuedAuditEvent> queue;
+
+  private final int queueCapacity;
+
+  private final QueueFullPolicy queueFullPolicy;
+
+  private final long retryBackoffMillis;
+
+  private final Object writerMonitor = new Object();
+
+  private final Thread writerThread;
+
+  /**
+   * Constructor. Starts the writer thread.
+   */
+  public AsyncLoggingService(final InternalAuditService internalAuditService,
+      final AsyncLoggingConfiguration asyncLoggingConfiguration) {
+    this.internalAuditService = Objects.requireNonNull(internalAuditService,
+        "internalAuditService cannot be null");
+    Objects.requireNonNull(asyncLoggingConfiguration, "asyncLoggingConfiguration cannot be null");
+    batchSize = asyncLoggingConfiguration.batchSize;
+    deadLetterFile = (asyncLoggingConfiguration.deadLetterFile != null)
+        ? new AuditDeadLetterFile(asyncLoggingConfiguration.deadLetterFile)
+        : null;
+    lingerTimeNanos = TimeUnit.MILLISECONDS.toNanos(asyncLoggingConfiguration.lingerTimeMillis);
+    maxRetryBackoffMillis = asyncLoggingConfiguration.maxRetryBackoffMillis;
+    metrics = internalAuditService.getMetrics();
+    queueCapacity = asyncLoggingConfiguration.queueCapacity;
+    queueFullPolicy = asyncLoggingConfiguration.queueFullPolicy;
+    retryBackoffMillis = asyncLoggingConfiguration.retryBackoffMillis;
+    queue = new ArrayBlockingQueue<>(queueCapacity);
+
+    writerThread = new Thread(this::drainQueue, WRITER_THREAD_NAME);
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  /**
+   * Stops accepting new audit events, waits until the writer thread persists the pending ones and
+   * stops the writer thread. A submission that runs concurrently either fails or its audit event
+   * is persisted before this method returns.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    synchronized (writerMonitor) {
+      writerMonitor.notifyAll();
+    }
+    try {
+      writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Appends the audit event to the dead-letter file. The audit event is discarded if there is no
+   * dead-letter file or it cannot be written.
+   */
+  private void deadLetter(final QueuedAuditEvent queuedAuditEvent) {
+    if (deadLetterFile != null) {
+      try {
+        deadLetterFile.append(AuditJournalCodec.encode(
+            queuedAuditEvent.auditApplication.applicationName, queuedAuditEvent.auditEvent));
+        metrics.increment(AuditCounter.EVENTS_DEAD_LETTERED, 1);
+        return;
+      } catch (RuntimeException e) {
+        handleWriteError(e);
+      }
+    }
+    metrics.increment(AuditCounter.EVENTS_DISCARDED, 1);
+  }
+
+  private void drainQueue() {
+
+    List<QueuedAuditEvent> batch = new ArrayList<>(batchSize);
+
+    while (!closed || !queue.isEmpty()) {
+      try {
+        fillBatch(batch);
+      } catch (InterruptedException e) {
+        // the pending audit events are still written, the writer stops on close only
+        Thread.interrupted();
+      }
+
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Puts the audit event into the queue. If the service is closed meanwhile, the audit event is
+   * taken back unless the writer thread took it already, so an accepted audit event is never left
+   * in the queue after the writer thread stopped.
+   */
+  private void enqueue(final QueuedAuditEvent queuedAuditEvent) {
+    boolean queued;
+    switch (queueFullPolicy) {
+      case BLOCK:
+        put(queuedAuditEvent);
+        queued = true;
+        break;
+      case DROP:
+        queued = queue.offer(queuedAuditEvent);
+        if (!queued) {
+          metrics.increment(AuditCounter.EVENTS_DROPPED, 1);
+        }
+        break;
+      case FAIL:
+        if (!queue.offer(queuedAuditEvent)) {
+          throw new AuditEventQueueFullException(queueCapacity);
+        }
+        queued = true;
+        break;
+      default:
+        throw new UnsupportedOperationException("[" + queueFullPolicy + "] not supported");
+    }
+
+    if (queued && closed && queue.remove(queuedAuditEvent)) {
+      throw new IllegalStateException("async logging service is closed");
+    }
+  }
+
+  private void fillBatch(final List<QueuedAuditEvent> batch) throws InterruptedException {
+
+    QueuedAuditEvent first = queue.poll(IDLE_POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    if (first == null) {
+      return;
+    }
+    batch.add(first);
+
+    long deadline = System.nanoTime() + lingerTimeNanos;
+    while (batch.size() < batchSize) {
+
+      queue.drainTo(batch, batchSize - batch.size());
+      if (batch.size() >= batchSize) {
+        return;
+      }
+
+      long remainingNanos = deadline - System.nanoTime();
+      if (remainingNanos <= 0) {
+        return;
+      }
+
+      QueuedAuditEvent next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        return;
+      }
+      batch.add(next);
+    }
+  }
+
+  /**
+   * Persists the batch and retries the audit events that failed with a retriable error with a
+   * doubling wait until they are persisted. The audit events queued meanwhile are persisted
+   * together with the retried ones. The audit events still failing when the service is closed are
+   * moved to the dead-letter file.
+   */
+  private void flush(final List<QueuedAuditEvent> batch) {
+    List<QueuedAuditEvent> failedAuditEvents = persist(batch);
+    long backoffMillis = retryBackoffMillis;
+    while (!failedAuditEvents.isEmpty()) {
+      if (closed) {
+        failedAuditEvents.forEach(this::deadLetter);
+        return;
+      }
+      waitForClose(backoffMillis);
+      backoffMillis = Math.min(backoffMillis * 2, maxRetryBackoffMillis);
+
+      List<QueuedAuditEvent> retriedAuditEvents = new ArrayList<>(failedAuditEvents);
+      queue.drainTo(retriedAuditEvents, Math.max(0, batchSize - retriedAuditEvents.size()));
+      failedAuditEvents = persist(retriedAuditEvents);
+    }
+  }
+
+  private void handleWriteError(final RuntimeException e) {
+    Thread.UncaughtExceptionHandler uncaughtExceptionHandler =
+        writerThread.getUncaughtExceptionHandler();
+    uncaughtExceptionHandler.uncaughtException(writerThread, e);
+  }
+
+  /**
+   * Checks the permission and submits the audit event to the queue. The audit event must not be
+   * modified after this method is called.
+   *
+   * @throws AuditEventQueueFullException
+   *           if the queue is full and {@link QueueFullPolicy#FAIL} is configured
+   * @throws IllegalStateException
+   *           if the service is already closed
+   */
+  @Override
+  public void logEvent(final String applicationName, final AuditEvent auditEvent) {
+
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+    Objects.requireNonNull(auditEvent, "auditEvent cannot be null");
+
+    if (closed) {
+      throw new IllegalStateException("async logging service is closed");
+    }
+
+    CachedAuditApplication auditApplication =
+        internalAuditService.requireLoggableAuditApplication(applicationName);
+
+    enqueue(new QueuedAuditEvent(auditApplication, auditEvent));
+  }
+
+  /**
+   * Checks the permission once and submits the audit events to the queue one by one. The audit
+   * events must not be modified after this method is called.
+   *
+   * @throws AuditEventQueueFullException
+   *           if the queue is full and {@link QueueFullPolicy#FAIL} is configured
+   * @throws IllegalStateException
+   *           if the service is already closed
+   */
+  @Override
+  public void logEvents(final String applicationName, final Collection<AuditEvent> auditEvents) {
+
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+    Objects.requireNonNull(auditEvents, "auditEvents cannot be null");
+    for (AuditEvent auditEvent : auditEvents) {
+      Objects.requireNonNull(auditEvent, "auditEvents cannot contain null value");
+    }
+
+    if (closed) {
+      throw new IllegalStateException("async logging service is closed");
+    }
+
+    if (auditEvents.isEmpty()) {
+      return;
+    }
+
+    CachedAuditApplication auditApplication =
+        internalAuditService.requireLoggableAuditApplication(applicationName);
+
+    for (AuditEvent auditEvent : auditEvents) {
+      enqueue(new QueuedAuditEvent(auditApplication, auditEvent));
+    }
+  }
+
+  /**
+   * Persists the audit events in one transaction. If it fails with an error that is not
+   * retriable, the audit events are persisted one by one, so the ones that can never be persisted
+   * are moved to the dead-letter file and do not block the others. Every failure is passed to the
+   * {@link Thread.UncaughtExceptionHandler}.
+   *
+   * @return the audit events that failed with a retriable error and have to be retried
+   */
+  private List<QueuedAuditEvent> persist(final List<QueuedAuditEvent> queuedAuditEvents) {
+    try {
+      internalAuditService.logQueuedAuditEvents(queuedAuditEvents);
+      return Collections.emptyList();
+    } catch (RuntimeException e) {
+      handleWriteError(e);
+      if (AuditPersistenceErrors.isRetriable(e)) {
+        return queuedAuditEvents;
+      }
+      if (queuedAuditEvents.size() == 1) {
+        deadLetter(queuedAuditEvents.get(0));
+        return Collections.emptyList();
+      }
+    }
+
+    List<QueuedAuditEvent> failedAuditEvents = new ArrayList<>();
+    for (QueuedAuditEvent queuedAuditEvent : queuedAuditEvents) {
+      try {
+        internalAuditService.logQueuedAuditEvents(Collections.singletonList(queuedAuditEvent));
+      } catch (RuntimeException e) {
+        handleWriteError(e);
+        if (AuditPersistenceErrors.isRetriable(e)) {
+          failedAuditEvents.add(queuedAuditEvent);
+        } else {
+          deadLetter(queuedAuditEvent);
+        }
+      }
+    }
+    return failedAuditEvents;
+  }
+
+  /**
+   * Waits for free space in the queue until the service is closed.
+   */
+  private void put(final QueuedAuditEvent queuedAuditEvent) {
+    try {
+      while (!queue.offer(queuedAuditEvent, IDLE_POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (closed) {
+          throw new IllegalStateException("async logging service is closed");
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for the audit event queue", e);
+    }
+  }
+
+  private void waitForClose(final long timeoutMillis) {
+    synchronized (writerMonitor) {
+      if (closed) {
+        return;
+      }
+      try {
+        writerMonitor.wait(timeoutMillis);
+      } catch (InterruptedException e) {
+        // the writer stops on close only
+        Thread.interrupted();
+      }
+    }
+  }
+
+}
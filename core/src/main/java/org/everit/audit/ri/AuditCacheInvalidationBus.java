@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * Transport of the cache invalidations between the nodes running an {@link InternalAuditService}
+ * on the same database. Implementations can be built on any messaging infrastructure. A published
+ * invalidation must be delivered to the listeners of every node, delivering it back to the
+ * publisher is allowed as the invalidations are idempotent.
+ */
+public interface AuditCacheInvalidationBus {
+
+  void addListener(AuditCacheInvalidationListener listener);
+
+  void publishAllInvalidation();
+
+  void publishAuditApplicationInvalidation(String applicationName);
+
+  void publishAuditEventTypesInvalidation(long applicationId);
+
+  void removeListener(AuditCacheInvalidationListener listener);
+
+}
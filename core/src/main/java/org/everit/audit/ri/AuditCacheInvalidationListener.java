@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * Receives the cache invalidations published by the other nodes through an
+ * {@link AuditCacheInvalidationBus}.
+ */
+public interface AuditCacheInvalidationListener {
+
+  /**
+   * Called when all cached audit applications and event types must be removed.
+   */
+  void allInvalidated();
+
+  /**
+   * Called when the cached audit application and its event types must be removed.
+   *
+   * @param applicationName
+   *          the name of the invalidated application
+   */
+  void auditApplicationInvalidated(String applicationName);
+
+  /**
+   * Called when the cached event types of an audit application must be removed.
+   *
+   * @param applicationId
+   *          the identifier of the application
+   */
+  void auditEventTypesInvalidated(long applicationId);
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * Immutable snapshot of the statistics of a {@link BoundedAuditCache}.
+ */
+public class AuditCacheStatistics {
+
+  /**
+   * The number of entries removed because the cache reached its maximum size.
+   */
+  public final long evictionCount;
+
+  /**
+   * The number of entries removed because their time to live elapsed.
+   */
+  public final long expirationCount;
+
+  /**
+   * The number of lookups that found a live entry.
+   */
+  public final long hitCount;
+
+  /**
+   * The number of lookups that did not find a live entry.
+   */
+  public final long missCount;
+
+  /**
+   * The number of entries at the time of the snapshot, including the not yet removed expired
+   * ones.
+   */
+  public final long size;
+
+  /**
+   * Constructor.
+   */
+  public AuditCacheStatistics(final long hitCount, final long missCount,
+      final long evictionCount, final long expirationCount, final long size) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.expirationCount = expirationCount;
+    this.size = size;
+  }
+
+  /**
+   * Returns the ratio of the hits and all lookups, or <code>1.0</code> if there was no lookup
+   * yet.
+   */
+  public double hitRate() {
+    long requestCount = hitCount + missCount;
+    return (requestCount == 0) ? 1.0 : ((double) hitCount / requestCount);
+  }
+
+  @Override
+  public String toString() {
+    return "AuditCacheStatistics [hitCount=" + hitCount + ", missCount=" + missCount
+        + ", evictionCount=" + evictionCount + ", expirationCount=" + expirationCount
+        + ", size=" + size + "]";
+  }
+
+}
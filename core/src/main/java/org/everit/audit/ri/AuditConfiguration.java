@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.Objects;
+
+import org.everit.audit.ri.metrics.AuditMetrics;
+import org.everit.audit.ri.metrics.NoOpAuditMetrics;
+
+/**
+ * Optional settings of the {@link InternalAuditService}.
+ */
+public class AuditConfiguration {
+
+  /**
+   * Builder class to create the configuration easily.
+   */
+  public static class Builder {
+
+    private AuditCacheInvalidationBus cacheInvalidationBus;
+
+    private AuditEventDataFormat eventDataFormat = AuditEventDataFormat.ROWS;
+
+    private int eventIdBlockSize = DEFAULT_EVENT_ID_BLOCK_SIZE;
+
+    private AuditEventPartitionManager eventPartitionManager;
+
+    private AuditMetrics metrics = NoOpAuditMetrics.INSTANCE;
+
+    private int permissionCacheSize = DEFAULT_PERMISSION_CACHE_SIZE;
+
+    private long permissionCacheTtlMillis = DEFAULT_PERMISSION_CACHE_TTL_MILLIS;
+
+    private long unknownAuditApplicationTtlMillis = DEFAULT_UNKNOWN_AUDIT_APPLICATION_TTL_MILLIS;
+
+    private int textCompressionThreshold = 0;
+
+    private boolean warmUpInBackground = false;
+
+    private int warmUpLimit = 0;
+
+    /**
+     * Default constructor.
+     */
+    public Builder() {
+    }
+
+    public AuditConfiguration build() {
+      return new AuditConfiguration(this);
+    }
+
+    /**
+     * Sets the bus that propagates the cache invalidations to the other nodes of the cluster.
+     */
+    public Builder cacheInvalidationBus(final AuditCacheInvalidationBus cacheInvalidationBus) {
+      this.cacheInvalidationBus = cacheInvalidationBus;
+      return this;
+    }
+
+    /**
+     * Sets the format the event data of the new events are stored in. The events stored in any
+     * format can be read regardless of this setting.
+     */
+    public Builder eventDataFormat(final AuditEventDataFormat eventDataFormat) {
+      this.eventDataFormat = eventDataFormat;
+      return this;
+    }
+
+    /**
+     * Sets the number of event IDs reserved from the database at once.
+     */
+    public Builder eventIdBlockSize(final int eventIdBlockSize) {
+      this.eventIdBlockSize = eventIdBlockSize;
+      return this;
+    }
+
+    /**
+     * Sets the manager of the partitions the events are stored in.
+     */
+    public Builder eventPartitionManager(final AuditEventPartitionManager eventPartitionManager) {
+      this.eventPartitionManager = eventPartitionManager;
+      return this;
+    }
+
+    /**
+     * Sets the receiver of the counters and latencies of the write path.
+     */
+    public Builder metrics(final AuditMetrics metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of cached permission decisions per audit application, <code>0</code>
+     * disables the cache.
+     */
+    public Builder permissionCacheSize(final int permissionCacheSize) {
+      this.permissionCacheSize = permissionCacheSize;
+      return this;
+    }
+
+    /**
+     * Sets how long a granted permission is cached.
+     */
+    public Builder permissionCacheTtlMillis(final long permissionCacheTtlMillis) {
+      this.permissionCacheTtlMillis = permissionCacheTtlMillis;
+      return this;
+    }
+
+    /**
+     * Sets the minimum length in characters of the text values compressed with Deflate,
+     * <code>0</code> disables the compression. The compressed values can be read regardless of
+     * this setting.
+     */
+    public Builder textCompressionThreshold(final int textCompressionThreshold) {
+      this.textCompressionThreshold = textCompressionThreshold;
+      return this;
+    }
+
+    /**
+     * Sets how long the non-existence of an audit application is cached, <code>0</code> disables
+     * the caching of the unknown applications.
+     */
+    public Builder unknownAuditApplicationTtlMillis(final long unknownAuditApplicationTtlMillis) {
+      this.unknownAuditApplicationTtlMillis = unknownAuditApplicationTtlMillis;
+      return this;
+    }
+
+    /**
+     * Sets whether the caches are warmed up by a background thread instead of the constructor of
+     * the {@link InternalAuditService}.
+     */
+    public Builder warmUpInBackground(final boolean warmUpInBackground) {
+      this.warmUpInBackground = warmUpInBackground;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of applications loaded into the caches with all of their event types
+     * at startup, <code>0</code> disables the warm-up.
+     */
+    public Builder warmUpLimit(final int warmUpLimit) {
+      this.warmUpLimit = warmUpLimit;
+      return this;
+    }
+  }
+
+  public static final int DEFAULT_EVENT_ID_BLOCK_SIZE = 100;
+
+  public static final int DEFAULT_PERMISSION_CACHE_SIZE = 1000;
+
+  public static final long DEFAULT_PERMISSION_CACHE_TTL_MILLIS = 5000;
+
+  public static final long DEFAULT_UNKNOWN_AUDIT_APPLICATION_TTL_MILLIS = 1000;
+
+  /**
+   * The bus that propagates the cache invalidations to the other nodes of the cluster,
+   * <code>null</code> if the caches are invalidated only locally.
+   */
+  public final AuditCacheInvalidationBus cacheInvalidationBus;
+
+  /**
+   * The format the event data of the new events are stored in.
+   */
+  public final AuditEventDataFormat eventDataFormat;
+
+  /**
+   * The number of event IDs reserved from the database at once.
+   */
+  public final int eventIdBlockSize;
+
+  /**
+   * The manager of the partitions the events are stored in, <code>null</code> if every event is
+   * stored in the <code>audit_event</code> and <code>audit_event_data</code> tables.
+   */
+  public final AuditEventPartitionManager eventPartitionManager;
+
+  /**
+   * The receiver of the counters and latencies of the write path.
+   */
+  public final AuditMetrics metrics;
+
+  /**
+   * The maximum number of cached permission decisions per audit application, <code>0</code> if the
+   * cache is disabled.
+   * The decisions are cached only if {@link AuditRequiredServices#authenticationContext} is
+   * provided.
+   */
+  public final int permissionCacheSize;
+
+  /**
+   * How long a granted permission is cached in milliseconds.
+   */
+  public final long permissionCacheTtlMillis;
+
+  /**
+   * The minimum length in characters of the text values compressed with Deflate, <code>0</code>
+   * if the compression is disabled.
+   */
+  public final int textCompressionThreshold;
+
+  /**
+   * How long the non-existence of an audit application is cached in milliseconds, <code>0</code>
+   * if the unknown applications are not cached.
+   */
+  public final long unknownAuditApplicationTtlMillis;
+
+  /**
+   * Whether the caches are warmed up by a background thread.
+   */
+  public final boolean warmUpInBackground;
+
+  /**
+   * The maximum number of applications loaded into the caches with all of their event types at
+   * startup, <code>0</code> if the warm-up is disabled.
+   */
+  public final int warmUpLimit;
+
+  private AuditConfiguration(final Builder builder) {
+    if (builder.eventIdBlockSize <= 0) {
+      throw new IllegalArgumentException("eventIdBlockSize must be positive");
+    }
+    if (builder.permissionCacheSize < 0) {
+      throw new IllegalArgumentException("permissionCacheSize cannot be negative");
+    }
+    if (builder.permissionCacheTtlMillis <= 0) {
+      throw new IllegalArgumentException("permissionCacheTtlMillis must be positive");
+    }
+    if (builder.textCompressionThreshold < 0) {
+      throw new IllegalArgumentException("textCompressionThreshold cannot be negative");
+    }
+    if (builder.unknownAuditApplicationTtlMillis < 0) {
+      throw new IllegalArgumentException("unknownAuditApplicationTtlMillis cannot be negative");
+    }
+    if (builder.warmUpLimit < 0) {
+      throw new IllegalArgumentException("warmUpLimit cannot be negative");
+    }
+    cacheInvalidationBus = builder.cacheInvalidationBus;
+    eventDataFormat = Objects.requireNonNull(builder.eventDataFormat,
+        "eventDataFormat cannot be null");
+    eventIdBlockSize = builder.eventIdBlockSize;
+    eventPartitionManager = builder.eventPartitionManager;
+    metrics = Objects.requireNonNull(builder.metrics, "metrics cannot be null");
+    permissionCacheSize = builder.permissionCacheSize;
+    permissionCacheTtlMillis = builder.permissionCacheTtlMillis;
+    textCompressionThreshold = builder.textCompressionThreshold;
+    unknownAuditApplicationTtlMillis = builder.unknownAuditApplicationTtlMillis;
+    warmUpInBackground = builder.warmUpInBackground;
+    warmUpLimit = builder.warmUpLimit;
+  }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of the audit events that can never be persisted. Every record is written in
+ * the format of the {@link AuditJournal}: the payload length, the CRC32 of the payload and the
+ * payload encoded by the {@link AuditJournalCodec}, or the raw bytes of a corrupted journal record.
+ * The records are forced to the disk before {@link #append(byte[])} returns.
+ */
+final class AuditDeadLetterFile {
+
+  private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+
+  private final Path path;
+
+  AuditDeadLetterFile(final Path path) {
+    this.path = Objects.requireNonNull(path, "path cannot be null");
+  }
+
+  /**
+   * Appends the payload as a new record.
+   *
+   * @throws UncheckedIOException
+   *           if the record cannot be written
+   */
+  synchronized void append(final byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload, 0, payload.length);
+
+    ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+    buffer
+        .putInt(payload.length)
+        .putInt((int) crc.getValue())
+        .put(payload);
+    buffer.flip();
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    } catch (IOException e) {
+      throw new UncheckedIOException("cannot write audit dead-letter file [" + path + "]", e);
+    }
+  }
+
+}
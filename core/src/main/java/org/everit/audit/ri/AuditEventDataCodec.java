@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.everit.audit.dto.EventData;
+import org.everit.audit.dto.EventDataType;
+import org.everit.audit.ri.dto.StoredEventData;
+
+/**
+ * Encodes the event data array of an event into the <code>event_data_blob</code> column.
+ * <p>
+ * Format version 1: the version byte, the number of the event data, then every event data as its
+ * length prefixed UTF-8 name, a type byte and the value. The lengths and the counts are unsigned
+ * variable length integers. A number is an 8 byte IEEE 754 double, a string or text is length
+ * prefixed UTF-8 and a timestamp is the zigzag encoded epoch second and the nanosecond adjustment.
+ * The highest bit of the type byte is set if the value is <code>null</code>.
+ * </p>
+ * <p>
+ * The decoder accepts every earlier version, a new version must be added instead of changing an
+ * existing one.
+ * </p>
+ */
+final class AuditEventDataCodec {
+
+  private static final int FORMAT_VERSION_1 = 1;
+
+  private static final int NULL_VALUE_FLAG = 0x80;
+
+  private static final int TYPE_NUMBER = 1;
+
+  private static final int TYPE_STRING = 2;
+
+  private static final int TYPE_TEXT = 3;
+
+  private static final int TYPE_TIMESTAMP = 4;
+
+  private static final int VARINT_CONTINUATION_FLAG = 0x80;
+
+  private static final int VARINT_PAYLOAD_BITS = 7;
+
+  private static final int VARINT_PAYLOAD_MASK = 0x7f;
+
+  /**
+   * Decodes the event data array stored by {@link #encode(EventData[])}.
+   *
+   * @throws IllegalArgumentException
+   *           if the bytes are not a valid encoded event data array
+   */
+  static StoredEventData[] decode(final byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    try {
+      int formatVersion = buffer.get();
+      if (formatVersion != FORMAT_VERSION_1) {
+        throw new IllegalArgumentException(
+            "[" + formatVersion + "] event data format version not supported");
+      }
+
+      StoredEventData[] rval = new StoredEventData[(int) readVarLong(buffer)];
+      for (int i = 0; i < rval.length; i++) {
+        rval[i] = readEventData(buffer);
+      }
+      return rval;
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("truncated event data", e);
+    }
+  }
+
+  /**
+   * Encodes the event data array with the latest format version.
+   */
+  static byte[] encode(final EventData[] eventDataArray) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(FORMAT_VERSION_1);
+    writeVarLong(out, eventDataArray.length);
+    for (EventData eventData : eventDataArray) {
+      writeString(out, eventData.eventDataName);
+      writeValue(out, eventData);
+    }
+    return out.toByteArray();
+  }
+
+  private static StoredEventData readEventData(final ByteBuffer buffer) {
+    String eventDataName = readString(buffer);
+    int type = buffer.get() & 0xff;
+    boolean nullValue = (type & NULL_VALUE_FLAG) != 0;
+    type &= ~NULL_VALUE_FLAG;
+
+    switch (type) {
+      case TYPE_NUMBER:
+        return new StoredEventData(eventDataName, EventDataType.NUMBER,
+            nullValue ? null : buffer.getDouble(), null, null);
+      case TYPE_STRING:
+        return new StoredEventData(eventDataName, EventDataType.STRING,
+            null, nullValue ? null : readString(buffer), null);
+      case TYPE_TEXT:
+        return new StoredEventData(eventDataName, EventDataType.TEXT,
+            null, nullValue ? null : readString(buffer), null);
+      case TYPE_TIMESTAMP:
+        Instant timestampValue = nullValue
+            ? null
+            : Instant.ofEpochSecond(readZigZagLong(buffer), readVarLong(buffer));
+        return new StoredEventData(eventDataName, EventDataType.TIMESTAMP,
+            null, null, timestampValue);
+      default:
+        throw new IllegalArgumentException("[" + type + "] event data type code not supported");
+    }
+  }
+
+  private static String readString(final ByteBuffer buffer) {
+    int length = (int) readVarLong(buffer);
+    if ((length < 0) || (length > buffer.remaining())) {
+      throw new BufferUnderflowException();
+    }
+    String rval = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return rval;
+  }
+
+  private static long readVarLong(final ByteBuffer buffer) {
+    long rval = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = buffer.get();
+      rval |= (long) (b & VARINT_PAYLOAD_MASK) << shift;
+      shift += VARINT_PAYLOAD_BITS;
+    } while ((b & VARINT_CONTINUATION_FLAG) != 0);
+    return rval;
+  }
+
+  private static long readZigZagLong(final ByteBuffer buffer) {
+    long value = readVarLong(buffer);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static void writeString(final ByteArrayOutputStream out, final String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(out, bytes.length);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  private static void writeType(final ByteArrayOutputStream out, final int type,
+      final Object value) {
+    out.write((value == null) ? (type | NULL_VALUE_FLAG) : type);
+  }
+
+  private static void writeValue(final ByteArrayOutputStream out, final EventData eventData) {
+    switch (eventData.eventDataType) {
+      case NUMBER:
+        writeType(out, TYPE_NUMBER, eventData.numberValue);
+        if (eventData.numberValue != null) {
+          long bits = Double.doubleToLongBits(eventData.numberValue);
+          for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            out.write((int) (bits >>> shift));
+          }
+        }
+        break;
+      case STRING:
+        writeType(out, TYPE_STRING, eventData.textValue);
+        if (eventData.textValue != null) {
+          writeString(out, eventData.textValue);
+        }
+        break;
+      case TEXT:
+        writeType(out, TYPE_TEXT, eventData.textValue);
+        if (eventData.textValue != null) {
+          writeString(out, eventData.textValue);
+        }
+        break;
+      case TIMESTAMP:
+        writeType(out, TYPE_TIMESTAMP, eventData.timestampValue);
+        if (eventData.timestampValue != null) {
+          long epochSecond = eventData.timestampValue.getEpochSecond();
+          writeVarLong(out, (epochSecond << 1) ^ (epochSecond >> (Long.SIZE - 1)));
+          writeVarLong(out, eventData.timestampValue.getNano());
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("[" + eventData.eventDataType + "] not supported");
+    }
+  }
+
+  private static void writeVarLong(final ByteArrayOutputStream out, final long value) {
+    long remaining = value;
+    while ((remaining & ~VARINT_PAYLOAD_MASK) != 0) {
+      out.write((int) ((remaining & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION_FLAG));
+      remaining >>>= VARINT_PAYLOAD_BITS;
+    }
+    out.write((int) remaining);
+  }
+
+  private AuditEventDataCodec() {
+  }
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * The storage formats of the event data.
+ */
+public enum AuditEventDataFormat {
+
+  /**
+   * The whole event data array is stored in the <code>event_data_blob</code> column of the event
+   * encoded by the {@link AuditEventDataCodec}. One row is written per event, but the event data
+   * cannot be filtered by SQL.
+   */
+  COMPACT,
+
+  /**
+   * Every event data is stored in a separate <code>audit_event_data</code> row.
+   */
+  ROWS
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.everit.audit.ri.schema.qdsl.QEventDataName;
+import org.everit.persistence.querydsl.support.QuerydslSupport;
+import org.everit.transaction.propagator.TransactionPropagator;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.dml.SQLInsertClause;
+
+/**
+ * Maps the event data names to the integer keys of the <code>audit_event_data_name</code> table.
+ * The names are never deleted, so every mapping is cached without invalidation in both
+ * directions. The number of distinct names is expected to be small.
+ * <p>
+ * A missing name is inserted in a separate transaction. If another node inserts the same name
+ * concurrently, the <code>unique_event_data_name</code> constraint rejects one of the inserts and
+ * the name inserted by the other node is selected.
+ * </p>
+ */
+class AuditEventDataNameDictionary {
+
+  private static final int SELECT_EVENT_DATA_NAMES_PAGE_SIZE = 100;
+
+  private final ConcurrentMap<String, Integer> idsByName = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<Integer, String> namesById = new ConcurrentHashMap<>();
+
+  private final QuerydslSupport querydslSupport;
+
+  private final TransactionPropagator transactionPropagator;
+
+  AuditEventDataNameDictionary(final QuerydslSupport querydslSupport,
+      final TransactionPropagator transactionPropagator) {
+    this.querydslSupport = querydslSupport;
+    this.transactionPropagator = transactionPropagator;
+  }
+
+  private void cache(final int eventDataNameId, final String eventDataName) {
+    idsByName.put(eventDataName, eventDataNameId);
+    namesById.put(eventDataNameId, eventDataName);
+  }
+
+  private int createEventDataName(final String eventDataName) {
+    try {
+      int rval = transactionPropagator.requiresNew(() -> insertEventDataName(eventDataName));
+      cache(rval, eventDataName);
+      return rval;
+    } catch (RuntimeException e) {
+      // a new transaction, so the row committed by the other node is visible on every isolation
+      // level
+      Integer eventDataNameId = transactionPropagator.requiresNew(() -> {
+        selectEventDataNames(QEventDataName.eventDataName1.eventDataName,
+            Collections.singletonList(eventDataName));
+        return idsByName.get(eventDataName);
+      });
+      if (eventDataNameId == null) {
+        throw e;
+      }
+      return eventDataNameId;
+    }
+  }
+
+  /**
+   * Returns the keys of the names, the missing names are inserted.
+   */
+  Map<String, Integer> getIds(final Collection<String> eventDataNames) {
+    Map<String, Integer> rval = new HashMap<>();
+    Set<String> missingEventDataNames = new LinkedHashSet<>();
+    for (String eventDataName : eventDataNames) {
+      Integer eventDataNameId = idsByName.get(eventDataName);
+      if (eventDataNameId != null) {
+        rval.put(eventDataName, eventDataNameId);
+      } else {
+        missingEventDataNames.add(eventDataName);
+      }
+    }
+
+    if (missingEventDataNames.isEmpty()) {
+      return rval;
+    }
+
+    selectEventDataNames(QEventDataName.eventDataName1.eventDataName,
+        new ArrayList<>(missingEventDataNames));
+
+    for (String eventDataName : missingEventDataNames) {
+      Integer eventDataNameId = idsByName.get(eventDataName);
+      if (eventDataNameId == null) {
+        eventDataNameId = createEventDataName(eventDataName);
+      }
+      rval.put(eventDataName, eventDataNameId);
+    }
+    return rval;
+  }
+
+  /**
+   * Returns the name of the key.
+   *
+   * @throws IllegalStateException
+   *           if the key does not exist
+   */
+  String getName(final int eventDataNameId) {
+    String rval = namesById.get(eventDataNameId);
+    if (rval != null) {
+      return rval;
+    }
+
+    selectEventDataNames(QEventDataName.eventDataName1.eventDataNameId,
+        Collections.singletonList(eventDataNameId));
+
+    rval = namesById.get(eventDataNameId);
+    if (rval == null) {
+      throw new IllegalStateException("[" + eventDataNameId + "] event data name not exists");
+    }
+    return rval;
+  }
+
+  /**
+   * Note: transaction must be provided to this method.
+   */
+  private int insertEventDataName(final String eventDataName) {
+    return querydslSupport.execute((connection, configuration) -> {
+
+      QEventDataName qEventDataName = QEventDataName.eventDataName1;
+
+      return new SQLInsertClause(connection, configuration, qEventDataName)
+          .set(qEventDataName.eventDataName, eventDataName)
+          .executeWithKey(qEventDataName.eventDataNameId);
+    });
+  }
+
+  /**
+   * Selects and caches every name, so the names can be resolved without a query while a result set
+   * is open on the connection.
+   */
+  void loadAll() {
+    querydslSupport.execute((connection, configuration) -> {
+
+      QEventDataName qEventDataName = QEventDataName.eventDataName1;
+
+      List<Tuple> rows = new SQLQuery<Tuple>(connection, configuration)
+          .select(qEventDataName.eventDataNameId, qEventDataName.eventDataName)
+          .from(qEventDataName)
+          .fetch();
+
+      for (Tuple row : rows) {
+        cache(row.get(qEventDataName.eventDataNameId), row.get(qEventDataName.eventDataName));
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Selects and caches the names matching the given values of the name or key column in pages.
+   */
+  private <T> void selectEventDataNames(
+      final SimpleExpression<T> column, final List<T> values) {
+
+    querydslSupport.execute((connection, configuration) -> {
+
+      QEventDataName qEventDataName = QEventDataName.eventDataName1;
+
+      int numberOfValues = values.size();
+      for (int fromIndex = 0; fromIndex < numberOfValues; fromIndex = fromIndex
+          + SELECT_EVENT_DATA_NAMES_PAGE_SIZE) {
+
+        int toIndex = Math.min(fromIndex + SELECT_EVENT_DATA_NAMES_PAGE_SIZE, numberOfValues);
+
+        List<Tuple> rows = new SQLQuery<Tuple>(connection, configuration)
+            .select(qEventDataName.eventDataNameId, qEventDataName.eventDataName)
+            .from(qEventDataName)
+            .where(column.in(new ArrayList<>(values.subList(fromIndex, toIndex))))
+            .fetch();
+
+        for (Tuple row : rows) {
+          cache(row.get(qEventDataName.eventDataNameId), row.get(qEventDataName.eventDataName));
+        }
+      }
+      return null;
+    });
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.time.Instant;
+
+import org.everit.audit.ri.schema.qdsl.QEvent;
+import org.everit.audit.ri.schema.qdsl.QEventData;
+
+/**
+ * A pair of event and event data tables holding the audit events that occured in a period.
+ */
+public final class AuditEventPartition {
+
+  /**
+   * The <code>audit_event</code> and <code>audit_event_data</code> tables. They hold every event if
+   * the events are not partitioned, otherwise the events logged before the partitioning was
+   * switched on.
+   */
+  static final AuditEventPartition DEFAULT =
+      new AuditEventPartition(null, null, QEvent.event, QEventData.eventData);
+
+  public final String eventDataTableName;
+
+  public final String eventTableName;
+
+  /**
+   * The exclusive end of the period, <code>null</code> for the {@link #DEFAULT} tables.
+   */
+  public final Instant periodEnd;
+
+  /**
+   * The inclusive start of the period, <code>null</code> for the {@link #DEFAULT} tables.
+   */
+  public final Instant periodStart;
+
+  final QEvent qEvent;
+
+  final QEventData qEventData;
+
+  AuditEventPartition(final Instant periodStart, final Instant periodEnd,
+      final QEvent qEvent, final QEventData qEventData) {
+    this.periodStart = periodStart;
+    this.periodEnd = periodEnd;
+    this.qEvent = qEvent;
+    this.qEventData = qEventData;
+    eventTableName = qEvent.getTableName();
+    eventDataTableName = qEventData.getTableName();
+  }
+
+  /**
+   * Whether the partition may hold events that occured in the given range.
+   *
+   * @param from
+   *          the inclusive start of the range, <code>null</code> if unbounded
+   * @param to
+   *          the exclusive end of the range, <code>null</code> if unbounded
+   */
+  boolean overlaps(final Instant from, final Instant to) {
+    if (periodStart == null) {
+      return true;
+    }
+    return ((from == null) || from.isBefore(periodEnd))
+        && ((to == null) || to.isAfter(periodStart));
+  }
+
+  @Override
+  public String toString() {
+    return "AuditEventPartition [eventTableName=" + eventTableName + ", eventDataTableName="
+        + eventDataTableName + ", periodStart=" + periodStart + ", periodEnd=" + periodEnd + "]";
+  }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.everit.audit.ri.schema.qdsl.QEvent;
+import org.everit.audit.ri.schema.qdsl.QEventData;
+import org.everit.audit.ri.schema.qdsl.QEventPartition;
+import org.everit.persistence.querydsl.support.QuerydslSupport;
+import org.everit.transaction.propagator.TransactionPropagator;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.dml.SQLDeleteClause;
+import com.querydsl.sql.dml.SQLInsertClause;
+
+/**
+ * Stores the audit events in a separate pair of tables per period selected by the time the events
+ * occured at. The partitions are registered in the <code>audit_event_partition</code> table and
+ * created on demand when the first event of a period is logged. Expired events are removed by
+ * dropping the tables of whole partitions instead of deleting them row by row.
+ * <p>
+ * A partition is never created for a period that ended before the earliest registered partition
+ * or before the retention horizon passed to {@link #dropPartitionsBefore(Instant)}, so a partition
+ * dropped by the retention is not re-created by a late event. Such events are stored in the
+ * default tables, where they are purged row by row.
+ * </p>
+ */
+public class AuditEventPartitionManager {
+
+  private final AuditEventPartitionPeriod partitionPeriod;
+
+  /**
+   * The known partitions mapped by the start of their periods. Replaced as a whole when they are
+   * read from the database, <code>null</code> until first loaded or after
+   * {@link #invalidatePartitions()}.
+   */
+  private volatile NavigableMap<Instant, AuditEventPartition> partitions;
+
+  private final QuerydslSupport querydslSupport;
+
+  /**
+   * The latest retention horizon passed to {@link #dropPartitionsBefore(Instant)},
+   * <code>null</code> if no partition was dropped by this manager.
+   */
+  private volatile Instant retainedFrom;
+
+  private final AuditEventPartitionTableCreator tableCreator;
+
+  private final TransactionPropagator transactionPropagator;
+
+  /**
+   * Constructor with the default {@link AuditEventPartitionTableCreator}.
+   */
+  public AuditEventPartitionManager(final AuditEventPartitionPeriod partitionPeriod,
+      final AuditRequiredServices auditRequiredServices) {
+    this(partitionPeriod, auditRequiredServices, new AuditEventPartitionTableCreator());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param partitionPeriod
+   *          the length of the period of one partition
+   * @param tableCreator
+   *          creates and drops the tables of the partitions
+   */
+  public AuditEventPartitionManager(final AuditEventPartitionPeriod partitionPeriod,
+      final AuditRequiredServices auditRequiredServices,
+      final AuditEventPartitionTableCreator tableCreator) {
+    this.partitionPeriod = Objects.requireNonNull(partitionPeriod,
+        "partitionPeriod cannot be null");
+    this.tableCreator = Objects.requireNonNull(tableCreator, "tableCreator cannot be null");
+    querydslSupport = auditRequiredServices.querydslSupport;
+    transactionPropagator = auditRequiredServices.transactionPropagator;
+  }
+
+  private AuditEventPartition createAuditEventPartition(final Tuple row) {
+
+    QEventPartition qEventPartition = QEventPartition.eventPartition;
+
+    String eventTableName = row.get(qEventPartition.eventTableName);
+    String eventDataTableName = row.get(qEventPartition.eventDataTableName);
+    String schemaName = QEvent.event.getSchemaName();
+
+    return new AuditEventPartition(
+        row.get(qEventPartition.periodStart).toInstant(),
+        row.get(qEventPartition.periodEnd).toInstant(),
+        new QEvent(eventTableName, schemaName, eventTableName),
+        new QEventData(eventDataTableName, schemaName, eventDataTableName));
+  }
+
+  /**
+   * Registers and creates the partition of the period in a separate transaction. If another node
+   * creates the same partition concurrently, the registration fails on the primary key and the
+   * partition created by the other node is used. If the period is expired,
+   * {@link AuditEventPartition#DEFAULT} is returned.
+   */
+  private synchronized AuditEventPartition createPartition(final Instant periodStart) {
+
+    NavigableMap<Instant, AuditEventPartition> loadedPartitions = reloadPartitions();
+    AuditEventPartition auditEventPartition = loadedPartitions.get(periodStart);
+    if (auditEventPartition != null) {
+      return auditEventPartition;
+    }
+    if (isExpired(periodStart, loadedPartitions)) {
+      return AuditEventPartition.DEFAULT;
+    }
+
+    try {
+      transactionPropagator.requiresNew(() -> insertPartition(periodStart));
+    } catch (RuntimeException e) {
+      auditEventPartition = reloadPartitions().get(periodStart);
+      if (auditEventPartition == null) {
+        throw e;
+      }
+      return auditEventPartition;
+    }
+
+    return reloadPartitions().get(periodStart);
+  }
+
+  /**
+   * Note: transaction must be provided to this method.
+   */
+  private Void dropPartition(final AuditEventPartition auditEventPartition) {
+    return querydslSupport.execute((connection, configuration) -> {
+
+      QEventPartition qEventPartition = QEventPartition.eventPartition;
+
+      new SQLDeleteClause(connection, configuration, qEventPartition)
+          .where(qEventPartition.periodStart.eq(Timestamp.from(auditEventPartition.periodStart)))
+          .execute();
+
+      tableCreator.dropTables(connection, configuration, auditEventPartition.eventTableName,
+          auditEventPartition.eventDataTableName);
+
+      return null;
+    });
+  }
+
+  /**
+   * Drops the partitions of the periods that ended before the given instant. Each partition is
+   * dropped in a separate transaction. No partition is created for these periods afterwards.
+   *
+   * @param retainedFrom
+   *          the start of the retained time range, the partitions overlapping this instant are
+   *          kept
+   * @return the number of dropped partitions
+   * @throws NullPointerException
+   *           if <code>retainedFrom</code> is <code>null</code>
+   */
+  public synchronized int dropPartitionsBefore(final Instant retainedFrom) {
+
+    Objects.requireNonNull(retainedFrom, "retainedFrom cannot be null");
+
+    Instant currentRetainedFrom = this.retainedFrom;
+    if ((currentRetainedFrom == null) || retainedFrom.isAfter(currentRetainedFrom)) {
+      this.retainedFrom = retainedFrom;
+    }
+
+    int droppedPartitionCount = 0;
+    for (AuditEventPartition auditEventPartition : reloadPartitions().values()) {
+      if (auditEventPartition.periodEnd.isAfter(retainedFrom)) {
+        break;
+      }
+      transactionPropagator.requiresNew(() -> dropPartition(auditEventPartition));
+      droppedPartitionCount++;
+    }
+
+    if (droppedPartitionCount > 0) {
+      reloadPartitions();
+    }
+    return droppedPartitionCount;
+  }
+
+  /**
+   * Returns the partitions that may hold events occured in the given range ordered by their
+   * periods. The partitions are read from the database, so the ones dropped by other nodes are not
+   * returned.
+   *
+   * @param from
+   *          the inclusive start of the range, <code>null</code> if unbounded
+   * @param to
+   *          the exclusive end of the range, <code>null</code> if unbounded
+   */
+  List<AuditEventPartition> findPartitions(final Instant from, final Instant to) {
+    List<AuditEventPartition> rval = new ArrayList<>();
+    for (AuditEventPartition auditEventPartition : reloadPartitions().values()) {
+      if (auditEventPartition.overlaps(from, to)) {
+        rval.add(auditEventPartition);
+      }
+    }
+    return rval;
+  }
+
+  /**
+   * Returns the partition of the period containing the given instant and creates it in a separate
+   * transaction if it does not exist yet. The partitions are read from the database only if the
+   * cached ones do not contain the period. Returns {@link AuditEventPartition#DEFAULT} if the
+   * period is expired.
+   */
+  AuditEventPartition getPartition(final Instant occuredAt) {
+
+    NavigableMap<Instant, AuditEventPartition> currentPartitions = partitions;
+    if (currentPartitions == null) {
+      currentPartitions = reloadPartitions();
+    }
+
+    Map.Entry<Instant, AuditEventPartition> entry = currentPartitions.floorEntry(occuredAt);
+    if ((entry != null) && entry.getValue().periodEnd.isAfter(occuredAt)) {
+      return entry.getValue();
+    }
+
+    Instant periodStart = partitionPeriod.getPeriodStart(occuredAt);
+    if (isExpired(periodStart, currentPartitions)) {
+      return AuditEventPartition.DEFAULT;
+    }
+    return createPartition(periodStart);
+  }
+
+  /**
+   * Returns all partitions ordered by their periods.
+   */
+  public List<AuditEventPartition> getPartitions() {
+    return new ArrayList<>(reloadPartitions().values());
+  }
+
+  /**
+   * Note: transaction must be provided to this method.
+   */
+  private Void insertPartition(final Instant periodStart) {
+
+    String tableNameSuffix = partitionPeriod.getTableNameSuffix(periodStart);
+    String eventTableName = QEvent.event.getTableName() + tableNameSuffix;
+    String eventDataTableName = QEventData.eventData.getTableName() + tableNameSuffix;
+
+    return querydslSupport.execute((connection, configuration) -> {
+
+      QEventPartition qEventPartition = QEventPartition.eventPartition;
+
+      // registered first, so a concurrent creation of the same partition waits for this one
+      new SQLInsertClause(connection, configuration, qEventPartition)
+          .set(qEventPartition.periodStart, Timestamp.from(periodStart))
+          .set(qEventPartition.periodEnd,
+              Timestamp.from(partitionPeriod.getPeriodEnd(periodStart)))
+          .set(qEventPartition.eventTableName, eventTableName)
+          .set(qEventPartition.eventDataTableName, eventDataTableName)
+          .execute();
+
+      tableCreator.createTables(connection, configuration, eventTableName, eventDataTableName);
+
+      return null;
+    });
+  }
+
+  /**
+   * Drops the cached partitions, so they are read from the database when the next event is
+   * logged. Called when writing a partition fails, as it may have been dropped by another node.
+   */
+  void invalidatePartitions() {
+    partitions = null;
+  }
+
+  /**
+   * Returns whether the period ended before the earliest registered partition or before the
+   * retention horizon, so it must not get a partition.
+   */
+  private boolean isExpired(final Instant periodStart,
+      final NavigableMap<Instant, AuditEventPartition> registeredPartitions) {
+
+    Instant periodEnd = partitionPeriod.getPeriodEnd(periodStart);
+    Instant currentRetainedFrom = retainedFrom;
+    return ((currentRetainedFrom != null) && !periodEnd.isAfter(currentRetainedFrom))
+        || (!registeredPartitions.isEmpty() && !periodEnd.isAfter(registeredPartitions.firstKey()));
+  }
+
+  /**
+   * Reads the registered partitions and replaces the cached ones with them.
+   */
+  private NavigableMap<Instant, AuditEventPartition> reloadPartitions() {
+
+    List<Tuple> rows = querydslSupport.execute((connection, configuration) -> {
+      QEventPartition qEventPartition = QEventPartition.eventPartition;
+      return new SQLQuery<Tuple>(connection, configuration)
+          .select(qEventPartition.periodStart, qEventPartition.periodEnd,
+              qEventPartition.eventTableName, qEventPartition.eventDataTableName)
+          .from(qEventPartition)
+          .orderBy(qEventPartition.periodStart.asc())
+          .fetch();
+    });
+
+    NavigableMap<Instant, AuditEventPartition> loadedPartitions = new TreeMap<>();
+    for (Tuple row : rows) {
+      AuditEventPartition auditEventPartition = createAuditEventPartition(row);
+      loadedPartitions.put(auditEventPartition.periodStart, auditEventPartition);
+    }
+
+    NavigableMap<Instant, AuditEventPartition> rval =
+        Collections.unmodifiableNavigableMap(loadedPartitions);
+    partitions = rval;
+    return rval;
+  }
+
+}
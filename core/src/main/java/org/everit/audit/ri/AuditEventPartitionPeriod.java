@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The length of the periods the audit events are partitioned by. The periods are aligned to the
+ * calendar in UTC.
+ */
+public enum AuditEventPartitionPeriod {
+
+  DAY("yyyyMMdd"),
+
+  MONTH("yyyyMM"),
+
+  YEAR("yyyy");
+
+  private final DateTimeFormatter tableNameSuffixFormatter;
+
+  AuditEventPartitionPeriod(final String tableNameSuffixPattern) {
+    tableNameSuffixFormatter = DateTimeFormatter.ofPattern(tableNameSuffixPattern);
+  }
+
+  /**
+   * Returns the start of the period following the one starting at the given instant.
+   */
+  Instant getPeriodEnd(final Instant periodStart) {
+    LocalDate startDate = periodStart.atOffset(ZoneOffset.UTC).toLocalDate();
+    LocalDate endDate;
+    switch (this) {
+      case DAY:
+        endDate = startDate.plusDays(1);
+        break;
+      case MONTH:
+        endDate = startDate.plusMonths(1);
+        break;
+      default:
+        endDate = startDate.plusYears(1);
+        break;
+    }
+    return endDate.atStartOfDay().toInstant(ZoneOffset.UTC);
+  }
+
+  /**
+   * Returns the start of the period containing the given instant.
+   */
+  Instant getPeriodStart(final Instant instant) {
+    LocalDate date = instant.atOffset(ZoneOffset.UTC).toLocalDate();
+    LocalDate startDate;
+    switch (this) {
+      case DAY:
+        startDate = date;
+        break;
+      case MONTH:
+        startDate = date.withDayOfMonth(1);
+        break;
+      default:
+        startDate = date.withDayOfYear(1);
+        break;
+    }
+    return startDate.atStartOfDay().toInstant(ZoneOffset.UTC);
+  }
+
+  /**
+   * Returns the suffix appended to the names of the tables of the period starting at the given
+   * instant.
+   */
+  String getTableNameSuffix(final Instant periodStart) {
+    return "_" + tableNameSuffixFormatter.format(periodStart.atOffset(ZoneOffset.UTC));
+  }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLTemplates;
+
+/**
+ * Creates and drops the tables of the audit event partitions. The tables have the same columns,
+ * keys and indexes as <code>audit_event</code> and <code>audit_event_data</code>. The statements
+ * use standard SQL types and identity columns, the methods returning the statements or the types
+ * can be overridden for databases that need a different syntax.
+ */
+public class AuditEventPartitionTableCreator {
+
+  /**
+   * Creates the tables of a partition.
+   *
+   * @param connection
+   *          the connection of the current transaction
+   * @param configuration
+   *          the Querydsl configuration used to quote the identifiers
+   */
+  public void createTables(final Connection connection, final Configuration configuration,
+      final String eventTableName, final String eventDataTableName) {
+    executeStatements(connection, configuration, getCreateTablesStatements(
+        configuration.getTemplates(), eventTableName, eventDataTableName));
+  }
+
+  /**
+   * Drops the tables of a partition.
+   *
+   * @param connection
+   *          the connection of the current transaction
+   * @param configuration
+   *          the Querydsl configuration used to quote the identifiers
+   */
+  public void dropTables(final Connection connection, final Configuration configuration,
+      final String eventTableName, final String eventDataTableName) {
+    executeStatements(connection, configuration, getDropTablesStatements(
+        configuration.getTemplates(), eventTableName, eventDataTableName));
+  }
+
+  private void executeStatements(final Connection connection, final Configuration configuration,
+      final List<String> sqls) {
+    for (String sql : sqls) {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute(sql);
+      } catch (SQLException e) {
+        throw configuration.translate(sql, Collections.emptyList(), e);
+      }
+    }
+  }
+
+  /**
+   * Returns the statements creating the event table, then the event data table of a partition.
+   */
+  protected List<String> getCreateTablesStatements(final SQLTemplates templates,
+      final String eventTableName, final String eventDataTableName) {
+
+    String eventTable = templates.quoteIdentifier(eventTableName);
+    String eventDataTable = templates.quoteIdentifier(eventDataTableName);
+    String eventId = templates.quoteIdentifier("event_id");
+    String eventTypeId = templates.quoteIdentifier("event_type_id");
+    String occuredAt = templates.quoteIdentifier("occured_at");
+    String createdAt = templates.quoteIdentifier("created_at");
+    String eventDataId = templates.quoteIdentifier("event_data_id");
+    String eventDataNameId = templates.quoteIdentifier("event_data_name_id");
+
+    return Arrays.asList(
+        "CREATE TABLE " + eventTable + " ("
+            + eventId + " " + getBigintType() + " NOT NULL, "
+            + createdAt + " " + getTimestampType() + " NOT NULL, "
+            + occuredAt + " " + getTimestampType() + " NOT NULL, "
+            + eventTypeId + " " + getBigintType() + " NOT NULL, "
+            + templates.quoteIdentifier("event_data_blob") + " " + getBlobType() + ", "
+            + "CONSTRAINT " + templates.quoteIdentifier(eventTableName + "_pk")
+            + " PRIMARY KEY (" + eventId + "), "
+            + "CONSTRAINT " + templates.quoteIdentifier(eventTableName + "_fk_event_type_id")
+            + " FOREIGN KEY (" + eventTypeId + ") REFERENCES "
+            + templates.quoteIdentifier("audit_event_type") + " (" + eventTypeId + "))",
+        "CREATE INDEX " + templates.quoteIdentifier(eventTableName + "_idx_event_type_id")
+            + " ON " + eventTable + " (" + eventTypeId + ", " + occuredAt + ", " + eventId + ")",
+        "CREATE INDEX " + templates.quoteIdentifier(eventTableName + "_idx_created_at")
+            + " ON " + eventTable + " (" + createdAt + ", " + eventId + ")",
+        "CREATE TABLE " + eventDataTable + " ("
+            + eventDataId + " " + getBigintType() + " " + getIdentityClause() + ", "
+            + eventId + " " + getBigintType() + " NOT NULL, "
+            + templates.quoteIdentifier("event_data_name") + " VARCHAR(255), "
+            + eventDataNameId + " " + getIntegerType() + ", "
+            + templates.quoteIdentifier("event_data_type") + " VARCHAR(32) NOT NULL, "
+            + templates.quoteIdentifier("string_value") + " VARCHAR(2000), "
+            + templates.quoteIdentifier("number_value") + " " + getDoubleType() + ", "
+            + templates.quoteIdentifier("text_value") + " " + getTextType() + ", "
+            + templates.quoteIdentifier("timestamp_value") + " " + getTimestampType() + ", "
+            + templates.quoteIdentifier("compressed_value") + " " + getBlobType() + ", "
+            + "CONSTRAINT " + templates.quoteIdentifier(eventDataTableName + "_pk")
+            + " PRIMARY KEY (" + eventDataId + "), "
+            + "CONSTRAINT " + templates.quoteIdentifier(eventDataTableName + "_fk_event_id")
+            + " FOREIGN KEY (" + eventId + ") REFERENCES " + eventTable + " (" + eventId + "), "
+            + "CONSTRAINT "
+            + templates.quoteIdentifier(eventDataTableName + "_fk_event_data_name_id")
+            + " FOREIGN KEY (" + eventDataNameId + ") REFERENCES "
+            + templates.quoteIdentifier("audit_event_data_name") + " (" + eventDataNameId + "))",
+        "CREATE INDEX " + templates.quoteIdentifier(eventDataTableName + "_idx_event_id")
+            + " ON " + eventDataTable + " (" + eventId + ", " + eventDataId + ")");
+  }
+
+  protected String getBigintType() {
+    return "BIGINT";
+  }
+
+  protected String getBlobType() {
+    return "BLOB";
+  }
+
+  protected String getDoubleType() {
+    return "DOUBLE PRECISION";
+  }
+
+  /**
+   * Returns the statements dropping the event data table, then the event table of a partition.
+   */
+  protected List<String> getDropTablesStatements(final SQLTemplates templates,
+      final String eventTableName, final String eventDataTableName) {
+    return Arrays.asList(
+        "DROP TABLE " + templates.quoteIdentifier(eventDataTableName),
+        "DROP TABLE " + templates.quoteIdentifier(eventTableName));
+  }
+
+  /**
+   * Returns the clause generating the values of the <code>event_data_id</code> column.
+   */
+  protected String getIdentityClause() {
+    return "GENERATED BY DEFAULT AS IDENTITY";
+  }
+
+  protected String getIntegerType() {
+    return "INTEGER";
+  }
+
+  protected String getTextType() {
+    return "CLOB";
+  }
+
+  protected String getTimestampType() {
+    return "TIMESTAMP";
+  }
+
+}
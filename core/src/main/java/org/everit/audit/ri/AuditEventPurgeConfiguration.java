@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * Configuration of the {@link AuditEventPurger}.
+ */
+public class AuditEventPurgeConfiguration {
+
+  /**
+   * Builder class to create the configuration easily.
+   */
+  public static class Builder {
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private long pauseBetweenChunksMillis = 0;
+
+    private AuditEventPurgeListener purgeListener;
+
+    /**
+     * Default constructor.
+     */
+    public Builder() {
+    }
+
+    public AuditEventPurgeConfiguration build() {
+      return new AuditEventPurgeConfiguration(this);
+    }
+
+    /**
+     * Sets the maximum number of events deleted in one transaction.
+     */
+    public Builder chunkSize(final int chunkSize) {
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    /**
+     * Sets how long the purger sleeps after each chunk to leave room for the writers.
+     */
+    public Builder pauseBetweenChunksMillis(final long pauseBetweenChunksMillis) {
+      this.pauseBetweenChunksMillis = pauseBetweenChunksMillis;
+      return this;
+    }
+
+    /**
+     * Sets the listener notified about the progress after each chunk.
+     */
+    public Builder purgeListener(final AuditEventPurgeListener purgeListener) {
+      this.purgeListener = purgeListener;
+      return this;
+    }
+  }
+
+  public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+  /**
+   * The maximum number of events deleted in one transaction.
+   */
+  public final int chunkSize;
+
+  /**
+   * The time in milliseconds the purger sleeps after each chunk, <code>0</code> if the chunks
+   * follow each other without pause.
+   */
+  public final long pauseBetweenChunksMillis;
+
+  /**
+   * The listener notified about the progress after each chunk, <code>null</code> if the progress
+   * is not reported.
+   */
+  public final AuditEventPurgeListener purgeListener;
+
+  private AuditEventPurgeConfiguration(final Builder builder) {
+    if (builder.chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive");
+    }
+    if (builder.pauseBetweenChunksMillis < 0) {
+      throw new IllegalArgumentException("pauseBetweenChunksMillis cannot be negative");
+    }
+    chunkSize = builder.chunkSize;
+    pauseBetweenChunksMillis = builder.pauseBetweenChunksMillis;
+    purgeListener = builder.purgeListener;
+  }
+
+}
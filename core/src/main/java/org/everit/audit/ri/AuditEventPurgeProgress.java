@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * The state of a purge run of the {@link AuditEventPurger}.
+ */
+public final class AuditEventPurgeProgress {
+
+  public final long elapsedMillis;
+
+  /**
+   * The identifier of the last event deleted by the purge, 0 if no event was deleted.
+   */
+  public final long lastEventId;
+
+  public final long purgedEventCount;
+
+  public final long purgedEventDataCount;
+
+  public final AuditRetentionRule retentionRule;
+
+  AuditEventPurgeProgress(final AuditRetentionRule retentionRule, final long purgedEventCount,
+      final long purgedEventDataCount, final long lastEventId, final long elapsedMillis) {
+    this.retentionRule = retentionRule;
+    this.purgedEventCount = purgedEventCount;
+    this.purgedEventDataCount = purgedEventDataCount;
+    this.lastEventId = lastEventId;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  /**
+   * Returns the average number of events purged per second including the pauses.
+   */
+  public double getEventsPerSecond() {
+    if (elapsedMillis == 0) {
+      return 0;
+    }
+    return purgedEventCount * 1000.0 / elapsedMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "AuditEventPurgeProgress [retentionRule=" + retentionRule + ", purgedEventCount="
+        + purgedEventCount + ", purgedEventDataCount=" + purgedEventDataCount + ", lastEventId="
+        + lastEventId + ", elapsedMillis=" + elapsedMillis + "]";
+  }
+
+}
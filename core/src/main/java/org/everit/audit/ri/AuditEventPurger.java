@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.everit.audit.ri.schema.qdsl.QEvent;
+import org.everit.audit.ri.schema.qdsl.QEventData;
+import org.everit.audit.ri.schema.qdsl.QEventType;
+import org.everit.persistence.querydsl.support.QuerydslSupport;
+import org.everit.transaction.propagator.TransactionPropagator;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.dml.SQLDeleteClause;
+
+/**
+ * Deletes the expired audit events in small chunks. The events are purged per event type, each
+ * chunk selects the next events in <code>(occured_at, event_id)</code> order after the last
+ * examined event with a range scan of the <code>idx_event_type_id_occured_at</code> index. The
+ * data and then the events of a chunk are deleted in a separate short transaction, so no long lock
+ * is held and the logging transactions can proceed between the chunks. As every committed chunk is
+ * final, a purge interrupted by a crash is resumed simply by running it again.
+ */
+public class AuditEventPurger {
+
+  /**
+   * The result of one chunk.
+   */
+  private static final class PurgedChunk {
+
+    private final int eventCount;
+
+    private final long eventDataCount;
+
+    private final long lastEventId;
+
+    private final Timestamp lastOccuredAt;
+
+    PurgedChunk(final int eventCount, final long eventDataCount, final Timestamp lastOccuredAt,
+        final long lastEventId) {
+      this.eventCount = eventCount;
+      this.eventDataCount = eventDataCount;
+      this.lastOccuredAt = lastOccuredAt;
+      this.lastEventId = lastEventId;
+    }
+  }
+
+  private final AuditEventPurgeConfiguration auditEventPurgeConfiguration;
+
+  private final InternalAuditService internalAuditService;
+
+  private final QuerydslSupport querydslSupport;
+
+  private final TransactionPropagator transactionPropagator;
+
+  /**
+   * Constructor.
+   *
+   * @param internalAuditService
+   *          resolves the audit applications and the partitions of the events
+   */
+  public AuditEventPurger(final InternalAuditService internalAuditService,
+      final AuditRequiredServices auditRequiredServices,
+      final AuditEventPurgeConfiguration auditEventPurgeConfiguration) {
+    this.internalAuditService = Objects.requireNonNull(internalAuditService,
+        "internalAuditService cannot be null");
+    this.auditEventPurgeConfiguration = Objects.requireNonNull(auditEventPurgeConfiguration,
+        "auditEventPurgeConfiguration cannot be null");
+    querydslSupport = auditRequiredServices.querydslSupport;
+    transactionPropagator = auditRequiredServices.transactionPropagator;
+  }
+
+  /**
+   * Selects the events of one event type that occured before the instant and follow the previous
+   * chunk in <code>(occured_at, event_id)</code> order.
+   */
+  private BooleanBuilder createPredicate(final QEvent qEvent, final long eventTypeId,
+      final Timestamp occuredBefore, final PurgedChunk previousChunk) {
+
+    BooleanBuilder predicate = new BooleanBuilder(qEvent.eventTypeId.eq(eventTypeId))
+        .and(qEvent.occuredAt.lt(occuredBefore));
+    if (previousChunk != null) {
+      predicate.and(qEvent.occuredAt.gt(previousChunk.lastOccuredAt)
+          .or(qEvent.occuredAt.eq(previousChunk.lastOccuredAt)
+              .and(qEvent.eventId.gt(previousChunk.lastEventId))));
+    }
+    return predicate;
+  }
+
+  /**
+   * Deletes the events that occured before the retention period of the rule. The default tables
+   * and every partition that may hold expired events are purged one after the other.
+   *
+   * @param retentionRule
+   *          the rule selecting the application, the event types and the retention period
+   * @return the totals of the purge
+   * @throws NullPointerException
+   *           if <code>retentionRule</code> is <code>null</code>
+   * @throws UnknownAuditApplicationException
+   *           if the application of the rule not exists
+   */
+  public AuditEventPurgeProgress purge(final AuditRetentionRule retentionRule) {
+
+    Objects.requireNonNull(retentionRule, "retentionRule cannot be null");
+
+    CachedAuditApplication auditApplication =
+        internalAuditService.requireAuditApplication(retentionRule.applicationName);
+
+    long startNanos = System.nanoTime();
+    Instant occuredBefore = Instant.now().minus(retentionRule.retentionPeriod);
+
+    List<Long> eventTypeIds = selectEventTypeIds(auditApplication, retentionRule);
+
+    List<AuditEventPartition> auditEventPartitions =
+        internalAuditService.findAuditEventPartitions(null, occuredBefore);
+
+    AuditEventPurgeProgress progress =
+        new AuditEventPurgeProgress(retentionRule, 0, 0, 0, 0);
+
+    for (AuditEventPartition auditEventPartition : auditEventPartitions) {
+      for (Long eventTypeId : eventTypeIds) {
+
+        PurgedChunk purgedChunk = null;
+        do {
+          PurgedChunk previousChunk = purgedChunk;
+          purgedChunk = transactionPropagator.requiresNew(
+              () -> purgeChunk(auditEventPartition, eventTypeId, Timestamp.from(occuredBefore),
+                  previousChunk));
+          if (purgedChunk.eventCount == 0) {
+            break;
+          }
+
+          progress = new AuditEventPurgeProgress(retentionRule,
+              progress.purgedEventCount + purgedChunk.eventCount,
+              progress.purgedEventDataCount + purgedChunk.eventDataCount,
+              purgedChunk.lastEventId,
+              (System.nanoTime() - startNanos) / 1000000);
+
+          if (auditEventPurgeConfiguration.purgeListener != null) {
+            auditEventPurgeConfiguration.purgeListener.chunkPurged(progress);
+          }
+          if (!pause()) {
+            return progress;
+          }
+        } while (purgedChunk.eventCount == auditEventPurgeConfiguration.chunkSize);
+      }
+    }
+
+    return progress;
+  }
+
+  /**
+   * Throttles the purge between two chunks.
+   *
+   * @return <code>false</code> if the thread was interrupted and the purge has to stop
+   */
+  private boolean pause() {
+    if (auditEventPurgeConfiguration.pauseBetweenChunksMillis == 0) {
+      return !Thread.currentThread().isInterrupted();
+    }
+    try {
+      Thread.sleep(auditEventPurgeConfiguration.pauseBetweenChunksMillis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Note: transaction must be provided to this method.
+   */
+  private PurgedChunk purgeChunk(final AuditEventPartition auditEventPartition,
+      final long eventTypeId, final Timestamp occuredBefore, final PurgedChunk previousChunk) {
+
+    return querydslSupport.execute((connection, configuration) -> {
+
+      QEvent qEvent = auditEventPartition.qEvent;
+      QEventData qEventData = auditEventPartition.qEventData;
+
+      List<Tuple> rows = new SQLQuery<Tuple>(connection, configuration)
+          .select(qEvent.eventId, qEvent.occuredAt)
+          .from(qEvent)
+          .where(createPredicate(qEvent, eventTypeId, occuredBefore, previousChunk))
+          .orderBy(qEvent.occuredAt.asc(), qEvent.eventId.asc())
+          .limit(auditEventPurgeConfiguration.chunkSize)
+          .fetch();
+
+      if (rows.isEmpty()) {
+        return new PurgedChunk(0, 0, null, 0);
+      }
+
+      List<Long> eventIds = new ArrayList<>(rows.size());
+      for (Tuple row : rows) {
+        eventIds.add(row.get(qEvent.eventId));
+      }
+
+      long eventDataCount = new SQLDeleteClause(connection, configuration, qEventData)
+          .where(qEventData.eventId.in(eventIds))
+          .execute();
+
+      new SQLDeleteClause(connection, configuration, qEvent)
+          .where(qEvent.eventId.in(eventIds))
+          .execute();
+
+      Tuple lastRow = rows.get(rows.size() - 1);
+      return new PurgedChunk(rows.size(), eventDataCount, lastRow.get(qEvent.occuredAt),
+          lastRow.get(qEvent.eventId));
+    });
+  }
+
+  /**
+   * Selects the identifiers of the event types of the application that the rule applies to.
+   */
+  private List<Long> selectEventTypeIds(final CachedAuditApplication auditApplication,
+      final AuditRetentionRule retentionRule) {
+
+    return querydslSupport.execute((connection, configuration) -> {
+
+      QEventType qEventType = QEventType.eventType;
+
+      BooleanBuilder predicate = new BooleanBuilder(
+          qEventType.applicationId.eq(auditApplication.applicationId));
+      if (retentionRule.eventTypeNames != null) {
+        predicate.and(qEventType.eventTypeName.in(retentionRule.eventTypeNames));
+      }
+
+      return new SQLQuery<Long>(connection, configuration)
+          .select(qEventType.eventTypeId)
+          .from(qEventType)
+          .where(predicate)
+          .orderBy(qEventType.eventTypeId.asc())
+          .fetch();
+    });
+  }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * Signs that an audit event could not be submitted because the queue of the pending audit events
+ * is full and the {@link QueueFullPolicy#FAIL} policy is configured.
+ */
+public class AuditEventQueueFullException extends RuntimeException {
+
+  /**
+   * Serial version UID.
+   */
+  private static final long serialVersionUID = -2538161962437335470L;
+
+  /**
+   * Constructor.
+   *
+   * @param queueCapacity
+   *          the capacity of the full queue
+   */
+  public AuditEventQueueFullException(final int queueCapacity) {
+    super("audit event queue is full, capacity [" + queueCapacity + "]");
+  }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Two-level registry of the cached audit event types: the primitive <code>applicationId</code> is
+ * mapped to the event type table of the application, where the event types are mapped by their
+ * names. The {@link CachedAuditApplication} references its table directly, so the lookups of the
+ * logging path cost one hash probe.
+ * <p>
+ * The application level is an open addressing hash table with <code>long</code> keys that is
+ * replaced on modification. Modifications are rare (once per application), while the lookups read
+ * a consistent snapshot without locking, boxing or allocation.
+ * </p>
+ * <p>
+ * The tables are referenced weakly, so the table of an application is removed when the
+ * {@link CachedAuditApplication} referencing it is evicted from the application cache and
+ * collected. The slots of the collected tables are dropped when the next table is added.
+ * </p>
+ */
+public class AuditEventTypeRegistry {
+
+  /**
+   * Snapshot of the application level table. It is not modified after it is published.
+   */
+  private static final class Snapshot {
+
+    private final long[] applicationIds;
+
+    private final int mask;
+
+    private int size = 0;
+
+    private final WeakReference<Map<String, CachedAuditEventType>>[] tables;
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    Snapshot(final int capacity) {
+      applicationIds = new long[capacity];
+      tables = new WeakReference[capacity];
+      mask = capacity - 1;
+    }
+
+    Map<String, CachedAuditEventType> find(final long applicationId) {
+      int index = indexOf(applicationId, mask);
+      WeakReference<Map<String, CachedAuditEventType>> tableReference = tables[index];
+      while (tableReference != null) {
+        if (applicationIds[index] == applicationId) {
+          return tableReference.get();
+        }
+        index = (index + 1) & mask;
+        tableReference = tables[index];
+      }
+      return null;
+    }
+
+    void insert(final long applicationId,
+        final WeakReference<Map<String, CachedAuditEventType>> tableReference) {
+      int index = indexOf(applicationId, mask);
+      while (tables[index] != null) {
+        index = (index + 1) & mask;
+      }
+      applicationIds[index] = applicationId;
+      tables[index] = tableReference;
+      size++;
+    }
+  }
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static int indexOf(final long applicationId, final int mask) {
+    long hash = applicationId * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private volatile Snapshot snapshot = new Snapshot(INITIAL_CAPACITY);
+
+  private final Supplier<Map<String, CachedAuditEventType>> tableFactory;
+
+  /**
+   * Constructor.
+   *
+   * @param tableFactory
+   *          creates the thread-safe table of the event types of one audit application, for e.g.
+   *          a {@link BoundedAuditCache}
+   */
+  public AuditEventTypeRegistry(final Supplier<Map<String, CachedAuditEventType>> tableFactory) {
+    this.tableFactory = Objects.requireNonNull(tableFactory, "tableFactory cannot be null");
+  }
+
+  /**
+   * Copies the entries of the current snapshot except the collected tables and the one of the
+   * removed application.
+   */
+  private Snapshot copySnapshot(final int capacity, final long removedApplicationId,
+      final boolean remove) {
+    Snapshot current = snapshot;
+    Snapshot rval = new Snapshot(capacity);
+    for (int i = 0; i < current.tables.length; i++) {
+      WeakReference<Map<String, CachedAuditEventType>> tableReference = current.tables[i];
+      long applicationId = current.applicationIds[i];
+      if ((tableReference != null) && (tableReference.get() != null)
+          && !(remove && (applicationId == removedApplicationId))) {
+        rval.insert(applicationId, tableReference);
+      }
+    }
+    return rval;
+  }
+
+  /**
+   * Returns the event type table of the application or <code>null</code> if the application has
+   * no table yet.
+   */
+  public Map<String, CachedAuditEventType> findEventTypes(final long applicationId) {
+    return snapshot.find(applicationId);
+  }
+
+  /**
+   * Returns the identifiers of the applications that have an event type table.
+   */
+  public long[] getApplicationIds() {
+    Snapshot current = snapshot;
+    long[] rval = new long[current.size];
+    int j = 0;
+    for (int i = 0; i < current.tables.length; i++) {
+      if ((current.tables[i] != null) && (current.tables[i].get() != null)) {
+        rval[j++] = current.applicationIds[i];
+      }
+    }
+    return Arrays.copyOf(rval, j);
+  }
+
+  /**
+   * Returns the event type table of the application. The table is created if it does not exist.
+   * The table is kept only while the caller references it.
+   */
+  public Map<String, CachedAuditEventType> getEventTypes(final long applicationId) {
+    Map<String, CachedAuditEventType> table = snapshot.find(applicationId);
+    if (table != null) {
+      return table;
+    }
+    synchronized (this) {
+      table = snapshot.find(applicationId);
+      if (table != null) {
+        return table;
+      }
+      table = Objects.requireNonNull(tableFactory.get(), "tableFactory returned null");
+
+      int capacity = snapshot.tables.length;
+      // the load factor is kept at most 0.5 for short probe sequences
+      if (((snapshot.size + 1) * 2) > capacity) {
+        capacity = capacity * 2;
+      }
+      Snapshot next = copySnapshot(capacity, 0, false);
+      next.insert(applicationId, new WeakReference<>(table));
+      snapshot = next;
+      return table;
+    }
+  }
+
+  /**
+   * Clears and removes the event type tables of all applications, for e.g. when the application
+   * cache was cleared.
+   */
+  public synchronized void invalidateAll() {
+    for (WeakReference<Map<String, CachedAuditEventType>> tableReference : snapshot.tables) {
+      Map<String, CachedAuditEventType> table =
+          (tableReference != null) ? tableReference.get() : null;
+      if (table != null) {
+        table.clear();
+      }
+    }
+    snapshot = new Snapshot(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Clears the cached event types of one application. The tables of the other applications are
+   * not touched.
+   */
+  public void invalidateEventTypes(final long applicationId) {
+    Map<String, CachedAuditEventType> table = findEventTypes(applicationId);
+    if (table != null) {
+      table.clear();
+    }
+  }
+
+  /**
+   * Clears and removes the event type table of one application, for e.g. when the application
+   * itself was removed.
+   */
+  public synchronized void removeEventTypes(final long applicationId) {
+    Map<String, CachedAuditEventType> table = findEventTypes(applicationId);
+    if (table == null) {
+      return;
+    }
+    table.clear();
+    snapshot = copySnapshot(snapshot.tables.length, applicationId, true);
+  }
+
+}
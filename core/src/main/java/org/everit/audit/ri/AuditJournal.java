@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal stored in fixed size, memory-mapped segment files. Every record is written
+ * as its payload length, the CRC32 of the payload and the payload. A segment is closed by an
+ * end-of-segment marker when the next record does not fit into it.
+ * <p>
+ * Records are appended by any thread, but read and checkpointed only by one reader thread. The
+ * reader sees the records up to the volatile write position, so it never reads a record that is
+ * being written. The checkpoint is the position of the first record that is not processed yet,
+ * the segments before it are deleted.
+ * </p>
+ * <p>
+ * On open, the last segment is scanned and the journal continues after its last valid record. The
+ * rest of the segment is cleared so a record torn by a crash is never read.
+ * </p>
+ * <p>
+ * The records that can never be processed are moved by the reader to the dead-letter file in the
+ * same format. The journal never reads that file back. A record failing its CRC check is returned
+ * as a corrupted record, so the reader can move its bytes to the dead-letter file and continue
+ * after it. If its length cannot be trusted, the rest of the segment is skipped.
+ * </p>
+ */
+final class AuditJournal implements AutoCloseable {
+
+  private static final String CHECKPOINT_FILE_NAME = "checkpoint";
+
+  private static final int CHECKPOINT_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+  private static final String CHECKPOINT_TEMP_FILE_NAME = "checkpoint.tmp";
+
+  private static final String DEAD_LETTER_FILE_NAME = "dead-letter.journal";
+
+  private static final int END_OF_SEGMENT = -1;
+
+  private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+
+  static final int MIN_SEGMENT_SIZE = 4096;
+
+  private static final String SEGMENT_FILE_PREFIX = "segment-";
+
+  private static final String SEGMENT_FILE_SUFFIX = ".journal";
+
+  private volatile AuditJournalPosition checkpoint;
+
+  private final AuditDeadLetterFile deadLetterFile;
+
+  private final Path directory;
+
+  private final boolean forceOnWrite;
+
+  private final int maxSegmentCount;
+
+  /**
+   * The mapped segment the reader thread reads from.
+   */
+  private MappedByteBuffer readBuffer;
+
+  private long readSegmentId = -1;
+
+  private final NavigableSet<Long> segmentIds = new ConcurrentSkipListSet<>();
+
+  private final int segmentSize;
+
+  /**
+   * Guarded by <code>this</code>.
+   */
+  private MappedByteBuffer writeBuffer;
+
+  /**
+   * The position after the last completely written record.
+   */
+  private volatile AuditJournalPosition writePosition;
+
+  /**
+   * Opens or creates the journal in the configured directory.
+   *
+   * @throws UncheckedIOException
+   *           if the journal cannot be opened
+   */
+  AuditJournal(final AuditJournalConfiguration journalConfiguration) {
+    directory = journalConfiguration.directory;
+    deadLetterFile = new AuditDeadLetterFile(directory.resolve(DEAD_LETTER_FILE_NAME));
+    forceOnWrite = journalConfiguration.forceOnWrite;
+    maxSegmentCount = journalConfiguration.maxSegmentCount;
+    segmentSize = journalConfiguration.segmentSize;
+    try {
+      Files.createDirectories(directory);
+      open();
+    } catch (IOException e) {
+      throw new UncheckedIOException("cannot open audit journal [" + directory + "]", e);
+    }
+  }
+
+  /**
+   * Appends the payloads as separate records and forces them to the disk once if
+   * {@link AuditJournalConfiguration#forceOnWrite} is set.
+   *
+   * @throws AuditJournalFullException
+   *           if a new segment would be needed but the maximum number of segments is reached
+   * @throws IllegalArgumentException
+   *           if a payload does not fit into one segment
+   * @throws IllegalStateException
+   *           if the journal is closed
+   */
+  synchronized void append(final List<byte[]> payloads) {
+    if (writeBuffer == null) {
+      throw new IllegalStateException("audit journal is closed");
+    }
+    for (byte[] payload : payloads) {
+      if (payload.length > (segmentSize - RECORD_HEADER_SIZE)) {
+        throw new IllegalArgumentException("audit journal record of [" + payload.length
+            + "] bytes does not fit into a segment of [" + segmentSize + "] bytes");
+      }
+    }
+
+    int remaining = writeBuffer.remaining();
+    int newSegmentCount = 0;
+    for (byte[] payload : payloads) {
+      if (remaining < (RECORD_HEADER_SIZE + payload.length)) {
+        newSegmentCount++;
+        remaining = segmentSize;
+      }
+      remaining -= RECORD_HEADER_SIZE + payload.length;
+    }
+    if ((segmentIds.size() + newSegmentCount) > maxSegmentCount) {
+      throw new AuditJournalFullException(maxSegmentCount);
+    }
+
+    long segmentId = writePosition.segmentId;
+    for (byte[] payload : payloads) {
+      if (writeBuffer.remaining() < (RECORD_HEADER_SIZE + payload.length)) {
+        segmentId = startNextSegment(segmentId);
+      }
+      writeBuffer
+          .putInt(payload.length)
+          .putInt((int) crc(payload, 0, payload.length))
+          .put(payload);
+    }
+
+    if (forceOnWrite) {
+      writeBuffer.force();
+    }
+    writePosition = new AuditJournalPosition(segmentId, writeBuffer.position());
+  }
+
+  /**
+   * Appends the payload of a record that can never be processed to the dead-letter file and forces
+   * it to the disk.
+   */
+  void appendDeadLetter(final byte[] payload) {
+    deadLetterFile.append(payload);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (writeBuffer != null) {
+      writeBuffer.force();
+      writeBuffer = null;
+    }
+    readBuffer = null;
+  }
+
+  private static long crc(final byte[] bytes, final int offset, final int length) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes, offset, length);
+    return crc.getValue();
+  }
+
+  /**
+   * Deletes the segments before the given position.
+   */
+  private void deleteSegmentsBefore(final AuditJournalPosition position) {
+    while (!segmentIds.isEmpty() && (segmentIds.first() < position.segmentId)) {
+      long segmentId = segmentIds.first();
+      if (readSegmentId == segmentId) {
+        readBuffer = null;
+        readSegmentId = -1;
+      }
+      try {
+        Files.deleteIfExists(getSegmentPath(segmentId));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      segmentIds.remove(segmentId);
+    }
+  }
+
+  /**
+   * Returns the position of the first record that is not processed yet.
+   */
+  AuditJournalPosition getCheckpoint() {
+    return checkpoint;
+  }
+
+  private MappedByteBuffer getReadBuffer(final long segmentId) throws IOException {
+    if (readSegmentId != segmentId) {
+      readBuffer = map(segmentId, MapMode.READ_ONLY);
+      readSegmentId = segmentId;
+    }
+    return readBuffer;
+  }
+
+  private Path getSegmentPath(final long segmentId) {
+    return directory.resolve(
+        SEGMENT_FILE_PREFIX + String.format("%019d", segmentId) + SEGMENT_FILE_SUFFIX);
+  }
+
+  private MappedByteBuffer map(final long segmentId, final MapMode mapMode) throws IOException {
+    Path segmentPath = getSegmentPath(segmentId);
+    if (mapMode == MapMode.READ_ONLY) {
+      try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+        return channel.map(mapMode, 0, segmentSize);
+      }
+    }
+    try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(mapMode, 0, segmentSize);
+    }
+  }
+
+  /**
+   * Returns the position where the reading continues after the rest of the segment is skipped:
+   * the start of the next segment or the write position if the segment is the last one.
+   */
+  private static AuditJournalPosition nextSegmentStart(final long segmentId,
+      final AuditJournalPosition end) {
+    if (segmentId == end.segmentId) {
+      return end;
+    }
+    return new AuditJournalPosition(segmentId + 1, 0);
+  }
+
+  private void open() throws IOException {
+    try (DirectoryStream<Path> segmentPaths =
+        Files.newDirectoryStream(directory, SEGMENT_FILE_PREFIX + "*" + SEGMENT_FILE_SUFFIX)) {
+      for (Path segmentPath : segmentPaths) {
+        String fileName = segmentPath.getFileName().toString();
+        segmentIds.add(Long.parseLong(fileName.substring(SEGMENT_FILE_PREFIX.length(),
+            fileName.length() - SEGMENT_FILE_SUFFIX.length())));
+      }
+    }
+
+    checkpoint = readCheckpoint();
+    deleteSegmentsBefore(checkpoint);
+
+    long lastSegmentId = segmentIds.isEmpty() ? checkpoint.segmentId : segmentIds.last();
+    segmentIds.add(lastSegmentId);
+    writeBuffer = map(lastSegmentId, MapMode.READ_WRITE);
+
+    int offset = (lastSegmentId == checkpoint.segmentId) ? checkpoint.offset : 0;
+    offset = scanValidRecords(writeBuffer, offset);
+
+    // clears the remains of torn records
+    for (int i = offset; i < segmentSize; i++) {
+      writeBuffer.put(i, (byte) 0);
+    }
+    writeBuffer.force();
+
+    writeBuffer.position(offset);
+    writePosition = new AuditJournalPosition(lastSegmentId, offset);
+  }
+
+  /**
+   * Reads the records after the given position up to the write position. A corrupted record is
+   * returned alone, the records before it are returned by the previous call.
+   *
+   * @param from
+   *          the position of the first record to read
+   * @param maxRecordCount
+   *          the maximum number of records to read
+   */
+  List<AuditJournalRecord> read(final AuditJournalPosition from, final int maxRecordCount) {
+    AuditJournalPosition end = writePosition;
+    List<AuditJournalRecord> rval = new ArrayList<>();
+
+    long segmentId = from.segmentId;
+    int offset = from.offset;
+    try {
+      while ((rval.size() < maxRecordCount)
+          && new AuditJournalPosition(segmentId, offset).isBefore(end)) {
+
+        MappedByteBuffer buffer = getReadBuffer(segmentId);
+        int length = readInt(buffer, offset, segmentSize);
+        if (length == END_OF_SEGMENT) {
+          segmentId++;
+          offset = 0;
+          continue;
+        }
+
+        int limit = (segmentId == end.segmentId) ? end.offset : segmentSize;
+        // compared without adding to the length, so a corrupted length cannot overflow
+        boolean lengthValid = (length > 0) && (length <= (limit - offset - RECORD_HEADER_SIZE));
+        // the bytes of a record with an invalid length are skipped up to the limit
+        int payloadOffset = lengthValid ? (offset + RECORD_HEADER_SIZE) : offset;
+        byte[] payload = new byte[lengthValid ? length : (limit - offset)];
+        ByteBuffer recordBuffer = buffer.duplicate();
+        recordBuffer.position(payloadOffset);
+        recordBuffer.get(payload);
+        if (lengthValid
+            && ((int) crc(payload, 0, length) == buffer.getInt(offset + Integer.BYTES))) {
+          offset += RECORD_HEADER_SIZE + length;
+          rval.add(new AuditJournalRecord(payload, new AuditJournalPosition(segmentId, offset),
+              false));
+          continue;
+        }
+
+        if (rval.isEmpty()) {
+          AuditJournalPosition corruptedEnd = lengthValid
+              ? new AuditJournalPosition(segmentId, payloadOffset + length)
+              : nextSegmentStart(segmentId, end);
+          rval.add(new AuditJournalRecord(payload, corruptedEnd, true));
+        }
+        return rval;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return rval;
+  }
+
+  private AuditJournalPosition readCheckpoint() throws IOException {
+    Path checkpointPath = directory.resolve(CHECKPOINT_FILE_NAME);
+    if (!Files.exists(checkpointPath)) {
+      return new AuditJournalPosition(segmentIds.isEmpty() ? 0 : segmentIds.first(), 0);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpointPath));
+    if (buffer.remaining() != CHECKPOINT_SIZE) {
+      throw new IOException("invalid audit journal checkpoint [" + checkpointPath + "]");
+    }
+    long segmentId = buffer.getLong();
+    int offset = buffer.getInt();
+    if (buffer.getLong() != crc(buffer.array(), 0, Long.BYTES + Integer.BYTES)) {
+      throw new IOException("corrupted audit journal checkpoint [" + checkpointPath + "]");
+    }
+    return new AuditJournalPosition(segmentId, offset);
+  }
+
+  private static int readInt(final ByteBuffer buffer, final int offset, final int limit) {
+    if ((offset + Integer.BYTES) > limit) {
+      return END_OF_SEGMENT;
+    }
+    return buffer.getInt(offset);
+  }
+
+  /**
+   * Returns the offset after the last valid record starting from the given offset.
+   */
+  private int scanValidRecords(final ByteBuffer buffer, final int fromOffset) {
+    int offset = fromOffset;
+    while (true) {
+      int length = readInt(buffer, offset, segmentSize);
+      if ((length <= 0) || (length > (segmentSize - offset - RECORD_HEADER_SIZE))) {
+        return offset;
+      }
+
+      byte[] payload = new byte[length];
+      ByteBuffer recordBuffer = buffer.duplicate();
+      recordBuffer.position(offset + RECORD_HEADER_SIZE);
+      recordBuffer.get(payload);
+      if ((int) crc(payload, 0, length) != buffer.getInt(offset + Integer.BYTES)) {
+        return offset;
+      }
+      offset += RECORD_HEADER_SIZE + length;
+    }
+  }
+
+  /**
+   * Closes the current segment with an end-of-segment marker and maps the next one.
+   *
+   * @return the identifier of the next segment
+   */
+  private long startNextSegment(final long segmentId) {
+    if (writeBuffer.remaining() >= Integer.BYTES) {
+      writeBuffer.putInt(END_OF_SEGMENT);
+    }
+    writeBuffer.force();
+
+    long nextSegmentId = segmentId + 1;
+    try {
+      writeBuffer = map(nextSegmentId, MapMode.READ_WRITE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    segmentIds.add(nextSegmentId);
+    return nextSegmentId;
+  }
+
+  /**
+   * Stores the position of the first record that is not processed yet and deletes the segments
+   * before it. The checkpoint file is replaced atomically.
+   */
+  void updateCheckpoint(final AuditJournalPosition position) {
+    ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_SIZE);
+    buffer.putLong(position.segmentId);
+    buffer.putInt(position.offset);
+    buffer.putLong(crc(buffer.array(), 0, Long.BYTES + Integer.BYTES));
+    buffer.flip();
+
+    Path tempPath = directory.resolve(CHECKPOINT_TEMP_FILE_NAME);
+    try {
+      try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+      Files.move(tempPath, directory.resolve(CHECKPOINT_FILE_NAME),
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    checkpoint = position;
+    deleteSegmentsBefore(position);
+  }
+
+}
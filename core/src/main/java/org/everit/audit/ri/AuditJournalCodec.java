@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.everit.audit.dto.AuditEvent;
+import org.everit.audit.dto.EventData;
+import org.everit.audit.dto.EventDataType;
+
+/**
+ * Converts the audit events to the payload of the journal records and back. The payload starts
+ * with a format version so the records written by an older version can still be replayed.
+ */
+final class AuditJournalCodec {
+
+  /**
+   * An audit event read from the journal with the name of its audit application.
+   */
+  static final class JournaledAuditEvent {
+
+    public final String applicationName;
+
+    public final AuditEvent auditEvent;
+
+    JournaledAuditEvent(final String applicationName, final AuditEvent auditEvent) {
+      this.applicationName = applicationName;
+      this.auditEvent = auditEvent;
+    }
+  }
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int NULL_LENGTH = -1;
+
+  /**
+   * Reads the audit event from the payload of a journal record.
+   *
+   * @throws IllegalStateException
+   *           if the payload is invalid
+   */
+  static JournaledAuditEvent decode(final byte[] payload) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+
+      int formatVersion = in.readByte();
+      if (formatVersion != FORMAT_VERSION) {
+        throw new IllegalStateException(
+            "[" + formatVersion + "] audit journal format version not supported");
+      }
+
+      String applicationName = readString(in);
+      String eventTypeName = readString(in);
+      Instant occuredAt = Instant.ofEpochSecond(in.readLong(), in.readInt());
+
+      EventData[] eventDataArray = new EventData[in.readInt()];
+      for (int i = 0; i < eventDataArray.length; i++) {
+        eventDataArray[i] = readEventData(in);
+      }
+
+      return new JournaledAuditEvent(applicationName, new AuditEvent.Builder()
+          .eventTypeName(eventTypeName)
+          .occuredAt(occuredAt)
+          .eventDataArray(eventDataArray)
+          .build());
+    } catch (IOException e) {
+      throw new IllegalStateException("invalid audit journal record", e);
+    }
+  }
+
+  /**
+   * Writes the audit event to the payload of a journal record.
+   */
+  static byte[] encode(final String applicationName, final AuditEvent auditEvent) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+
+      out.writeByte(FORMAT_VERSION);
+      writeString(out, applicationName);
+      writeString(out, auditEvent.eventTypeName);
+      out.writeLong(auditEvent.occuredAt.getEpochSecond());
+      out.writeInt(auditEvent.occuredAt.getNano());
+
+      out.writeInt(auditEvent.eventDataArray.length);
+      for (EventData eventData : auditEvent.eventDataArray) {
+        writeEventData(out, eventData);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static EventData readEventData(final DataInputStream in) throws IOException {
+    EventData.Builder builder = new EventData.Builder(readString(in));
+    EventDataType eventDataType = EventDataType.valueOf(readString(in));
+    switch (eventDataType) {
+      case NUMBER:
+        return builder.buildNumberValue(in.readDouble());
+      case STRING:
+        return builder.buildStringValue(readString(in));
+      case TEXT:
+        return builder.buildTextValue(readString(in));
+      case TIMESTAMP:
+        return builder.buildTimestampValue(Instant.ofEpochSecond(in.readLong(), in.readInt()));
+      default:
+        throw new UnsupportedOperationException("[" + eventDataType + "] not supported");
+    }
+  }
+
+  private static String readString(final DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeEventData(final DataOutputStream out, final EventData eventData)
+      throws IOException {
+    writeString(out, eventData.eventDataName);
+    writeString(out, eventData.eventDataType.name());
+    switch (eventData.eventDataType) {
+      case NUMBER:
+        out.writeDouble(eventData.numberValue);
+        break;
+      case STRING:
+      case TEXT:
+        writeString(out, eventData.textValue);
+        break;
+      case TIMESTAMP:
+        out.writeLong(eventData.timestampValue.getEpochSecond());
+        out.writeInt(eventData.timestampValue.getNano());
+        break;
+      default:
+        throw new UnsupportedOperationException("[" + eventData.eventDataType + "] not supported");
+    }
+  }
+
+  private static void writeString(final DataOutputStream out, final String value)
+      throws IOException {
+    if (value == null) {
+      out.writeInt(NULL_LENGTH);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private AuditJournalCodec() {
+  }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Configuration of the {@link JournalLoggingService}.
+ */
+public class AuditJournalConfiguration {
+
+  /**
+   * Builder class to create the configuration easily.
+   */
+  public static class Builder {
+
+    private Path directory;
+
+    private boolean forceOnWrite = true;
+
+    private int maxSegmentCount = DEFAULT_MAX_SEGMENT_COUNT;
+
+    private int replayBatchSize = DEFAULT_REPLAY_BATCH_SIZE;
+
+    private long replayRetryIntervalMillis = DEFAULT_REPLAY_RETRY_INTERVAL_MILLIS;
+
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+    /**
+     * Default constructor.
+     */
+    public Builder() {
+    }
+
+    public AuditJournalConfiguration build() {
+      return new AuditJournalConfiguration(this);
+    }
+
+    /**
+     * Sets the local directory of the segment and checkpoint files.
+     */
+    public Builder directory(final Path directory) {
+      this.directory = directory;
+      return this;
+    }
+
+    /**
+     * Sets whether the written segment is forced to the disk before the logging call returns.
+     */
+    public Builder forceOnWrite(final boolean forceOnWrite) {
+      this.forceOnWrite = forceOnWrite;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of segment files, the journal is full if all of them hold
+     * audit events that are not replayed yet.
+     */
+    public Builder maxSegmentCount(final int maxSegmentCount) {
+      this.maxSegmentCount = maxSegmentCount;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of audit events replayed in one transaction.
+     */
+    public Builder replayBatchSize(final int replayBatchSize) {
+      this.replayBatchSize = replayBatchSize;
+      return this;
+    }
+
+    /**
+     * Sets how long the replayer waits after a failed replay, for e.g. while the database is not
+     * reachable.
+     */
+    public Builder replayRetryIntervalMillis(final long replayRetryIntervalMillis) {
+      this.replayRetryIntervalMillis = replayRetryIntervalMillis;
+      return this;
+    }
+
+    /**
+     * Sets the size of one segment file in bytes.
+     */
+    public Builder segmentSize(final int segmentSize) {
+      this.segmentSize = segmentSize;
+      return this;
+    }
+  }
+
+  public static final int DEFAULT_MAX_SEGMENT_COUNT = 16;
+
+  public static final int DEFAULT_REPLAY_BATCH_SIZE = 100;
+
+  public static final long DEFAULT_REPLAY_RETRY_INTERVAL_MILLIS = 1000;
+
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * The local directory of the segment and checkpoint files.
+   */
+  public final Path directory;
+
+  /**
+   * Whether the written segment is forced to the disk before the logging call returns.
+   */
+  public final boolean forceOnWrite;
+
+  /**
+   * The maximum number of segment files.
+   */
+  public final int maxSegmentCount;
+
+  /**
+   * The maximum number of audit events replayed in one transaction.
+   */
+  public final int replayBatchSize;
+
+  /**
+   * The time in milliseconds the replayer waits after a failed replay.
+   */
+  public final long replayRetryIntervalMillis;
+
+  /**
+   * The size of one segment file in bytes.
+   */
+  public final int segmentSize;
+
+  private AuditJournalConfiguration(final Builder builder) {
+    if (builder.maxSegmentCount < 2) {
+      throw new IllegalArgumentException("maxSegmentCount must be at least 2");
+    }
+    if (builder.replayBatchSize <= 0) {
+      throw new IllegalArgumentException("replayBatchSize must be positive");
+    }
+    if (builder.replayRetryIntervalMillis <= 0) {
+      throw new IllegalArgumentException("replayRetryIntervalMillis must be positive");
+    }
+    if (builder.segmentSize < AuditJournal.MIN_SEGMENT_SIZE) {
+      throw new IllegalArgumentException(
+          "segmentSize must be at least " + AuditJournal.MIN_SEGMENT_SIZE);
+    }
+    directory = Objects.requireNonNull(builder.directory, "directory cannot be null");
+    forceOnWrite = builder.forceOnWrite;
+    maxSegmentCount = builder.maxSegmentCount;
+    replayBatchSize = builder.replayBatchSize;
+    replayRetryIntervalMillis = builder.replayRetryIntervalMillis;
+    segmentSize = builder.segmentSize;
+  }
+
+}
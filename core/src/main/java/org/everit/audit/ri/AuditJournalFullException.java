@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * Signs that an audit event could not be written to the journal of the
+ * {@link JournalLoggingService} because all segments hold audit events that are not replayed yet.
+ */
+public class AuditJournalFullException extends RuntimeException {
+
+  /**
+   * Serial version UID.
+   */
+  private static final long serialVersionUID = 4719843320566123107L;
+
+  /**
+   * Constructor.
+   *
+   * @param maxSegmentCount
+   *          the maximum number of segments of the full journal
+   */
+  public AuditJournalFullException(final int maxSegmentCount) {
+    super("audit journal is full, maximum segment count [" + maxSegmentCount + "]");
+  }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * A position in the journal: the identifier of a segment and an offset inside it.
+ */
+final class AuditJournalPosition {
+
+  public final int offset;
+
+  public final long segmentId;
+
+  AuditJournalPosition(final long segmentId, final int offset) {
+    this.segmentId = segmentId;
+    this.offset = offset;
+  }
+
+  boolean isBefore(final AuditJournalPosition other) {
+    return (segmentId < other.segmentId)
+        || ((segmentId == other.segmentId) && (offset < other.offset));
+  }
+
+  @Override
+  public String toString() {
+    return segmentId + ":" + offset;
+  }
+
+}
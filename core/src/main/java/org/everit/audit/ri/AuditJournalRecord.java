@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * A record read from the journal with the position right after it.
+ */
+final class AuditJournalRecord {
+
+  /**
+   * Whether the record failed its CRC check. The payload of a corrupted record holds the raw bytes
+   * that were skipped.
+   */
+  public final boolean corrupted;
+
+  public final AuditJournalPosition endPosition;
+
+  public final byte[] payload;
+
+  AuditJournalRecord(final byte[] payload, final AuditJournalPosition endPosition,
+      final boolean corrupted) {
+    this.payload = payload;
+    this.endPosition = endPosition;
+    this.corrupted = corrupted;
+  }
+
+}
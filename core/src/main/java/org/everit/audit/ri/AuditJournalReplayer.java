@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.everit.audit.ri.AuditJournalCodec.JournaledAuditEvent;
+
+/**
+ * Persists the audit events of the journal after its checkpoint in batches by the
+ * {@link InternalAuditService} and moves the checkpoint after every persisted batch.
+ * <p>
+ * The permissions were checked when the audit events were journaled, so they are not checked
+ * again. If the JVM stops between the commit of a batch and the checkpoint update, the batch is
+ * persisted again on the next start.
+ * </p>
+ * <p>
+ * If a batch fails with a retriable error, for e.g. because the database is not reachable, the
+ * checkpoint stays before the batch and the whole batch is retried by the next call. If it fails
+ * with an error that is not retriable, its audit events are persisted one by one. Only the
+ * records that fail with an error that is not retriable are moved to the dead-letter file of the
+ * journal, the checkpoint stops before the first one that fails with a retriable error. The
+ * corrupted records are moved to the dead-letter file too, so they do not stop the replay.
+ * </p>
+ */
+class AuditJournalReplayer {
+
+  private final int batchSize;
+
+  private final Consumer<RuntimeException> deadLetterErrorHandler;
+
+  private final InternalAuditService internalAuditService;
+
+  private final AuditJournal journal;
+
+  /**
+   * Constructor.
+   *
+   * @param deadLetterErrorHandler
+   *          receives the failure of every record moved to the dead-letter file
+   */
+  AuditJournalReplayer(final AuditJournal journal,
+      final InternalAuditService internalAuditService, final int batchSize,
+      final Consumer<RuntimeException> deadLetterErrorHandler) {
+    this.journal = journal;
+    this.internalAuditService = internalAuditService;
+    this.batchSize = batchSize;
+    this.deadLetterErrorHandler = deadLetterErrorHandler;
+  }
+
+  private void deadLetter(final AuditJournalRecord record, final RuntimeException failure) {
+    journal.appendDeadLetter(record.payload);
+    journal.updateCheckpoint(record.endPosition);
+    deadLetterErrorHandler.accept(failure);
+  }
+
+  /**
+   * Returns whether replaying the record again may succeed. The records that cannot be decoded or
+   * belong to a removed audit application never succeed.
+   */
+  private static boolean isRetriable(final RuntimeException failure) {
+    return !(failure instanceof InvalidAuditJournalRecordException)
+        && !(failure instanceof UnknownAuditApplicationException)
+        && AuditPersistenceErrors.isRetriable(failure);
+  }
+
+  private void persist(final List<AuditJournalRecord> records) {
+    List<QueuedAuditEvent> batch = new ArrayList<>(records.size());
+    for (AuditJournalRecord record : records) {
+      JournaledAuditEvent journaledAuditEvent;
+      try {
+        journaledAuditEvent = AuditJournalCodec.decode(record.payload);
+      } catch (RuntimeException e) {
+        throw new InvalidAuditJournalRecordException(record, e);
+      }
+      batch.add(new QueuedAuditEvent(
+          internalAuditService.requireAuditApplication(journaledAuditEvent.applicationName),
+          journaledAuditEvent.auditEvent));
+    }
+
+    internalAuditService.logQueuedAuditEvents(batch);
+  }
+
+  /**
+   * Persists the next batch of audit events. Must be called by one thread only.
+   *
+   * @return the number of processed journal records including the ones moved to the dead-letter
+   *         file, <code>0</code> if the journal has no pending record
+   * @throws RuntimeException
+   *           the retriable failure of the batch or of the first record failing with a retriable
+   *           error, the checkpoint stays before it
+   */
+  int replayNextBatch() {
+    List<AuditJournalRecord> records = journal.read(journal.getCheckpoint(), batchSize);
+    if (records.isEmpty()) {
+      return 0;
+    }
+
+    AuditJournalRecord firstRecord = records.get(0);
+    if (firstRecord.corrupted) {
+      deadLetter(firstRecord, new InvalidAuditJournalRecordException(firstRecord, null));
+      return 1;
+    }
+
+    try {
+      persist(records);
+    } catch (RuntimeException e) {
+      if (isRetriable(e)) {
+        throw e;
+      }
+      return replayOneByOne(records);
+    }
+
+    journal.updateCheckpoint(records.get(records.size() - 1).endPosition);
+    return records.size();
+  }
+
+  private int replayOneByOne(final List<AuditJournalRecord> records) {
+    int processedCount = 0;
+    for (AuditJournalRecord record : records) {
+      try {
+        persist(Collections.singletonList(record));
+      } catch (RuntimeException e) {
+        if (isRetriable(e)) {
+          throw e;
+        }
+        deadLetter(record, e);
+        processedCount++;
+        continue;
+      }
+
+      journal.updateCheckpoint(record.endPosition);
+      processedCount++;
+    }
+    return processedCount;
+  }
+
+}
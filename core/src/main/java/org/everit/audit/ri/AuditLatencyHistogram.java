@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of a latency histogram of the {@link InMemoryAuditMetrics}. The bucket
+ * <code>i</code> counts the latencies below <code>2^i</code> nanoseconds that did not fit into
+ * the previous bucket, so the percentiles are accurate within a factor of two.
+ */
+public class AuditLatencyHistogram {
+
+  private final long[] bucketCounts;
+
+  /**
+   * The number of recorded latencies.
+   */
+  public final long count;
+
+  /**
+   * The greatest recorded latency in nanoseconds.
+   */
+  public final long maxNanos;
+
+  /**
+   * The sum of the recorded latencies in nanoseconds.
+   */
+  public final long totalNanos;
+
+  /**
+   * Constructor.
+   */
+  public AuditLatencyHistogram(final long[] bucketCounts, final long count,
+      final long totalNanos, final long maxNanos) {
+    this.bucketCounts = bucketCounts.clone();
+    this.count = count;
+    this.totalNanos = totalNanos;
+    this.maxNanos = maxNanos;
+  }
+
+  /**
+   * Returns the number of latencies in the bucket, see the class description for the bounds of
+   * the buckets.
+   */
+  public long getBucketCount(final int bucketIndex) {
+    return bucketCounts[bucketIndex];
+  }
+
+  public int getBucketNumber() {
+    return bucketCounts.length;
+  }
+
+  /**
+   * Returns the average latency in nanoseconds, or <code>0</code> if nothing was recorded.
+   */
+  public double getMeanNanos() {
+    return (count == 0) ? 0 : ((double) totalNanos / count);
+  }
+
+  /**
+   * Returns the upper bound of the bucket holding the given percentile.
+   *
+   * @param percentile
+   *          the percentile between <code>0.0</code> and <code>1.0</code>
+   * @return the latency in nanoseconds that is not exceeded by the given part of the recorded
+   *         latencies, or <code>0</code> if nothing was recorded
+   */
+  public long getPercentileNanos(final double percentile) {
+    if ((percentile < 0) || (percentile > 1)) {
+      throw new IllegalArgumentException("percentile must be between 0.0 and 1.0");
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile * count));
+    long cumulativeCount = 0;
+    for (int i = 0; i < bucketCounts.length; i++) {
+      cumulativeCount += bucketCounts[i];
+      if (cumulativeCount >= rank) {
+        return Math.min(maxNanos, (i == 0) ? 0 : ((1L << i) - 1));
+      }
+    }
+    return maxNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "AuditLatencyHistogram [count=" + count + ", totalNanos=" + totalNanos
+        + ", maxNanos=" + maxNanos + ", bucketCounts=" + Arrays.toString(bucketCounts) + "]";
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.sql.SQLException;
+
+/**
+ * Tells the errors of persisting an audit event that fail again on every retry from the transient
+ * ones, like a lost connection, a lock timeout or a deadlock.
+ */
+final class AuditPersistenceErrors {
+
+  /**
+   * The SQLSTATE class of the data exceptions, for e.g. a value that is too long.
+   */
+  private static final String DATA_EXCEPTION_SQL_STATE_CLASS = "22";
+
+  /**
+   * The SQLSTATE class of the integrity constraint violations.
+   */
+  private static final String INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE_CLASS = "23";
+
+  /**
+   * Returns whether persisting the same audit event again may succeed. The errors caused by the
+   * content of the audit event are not retriable: the invalid arguments, the data exceptions and
+   * the integrity constraint violations of the database. Every other error is retriable, as it
+   * cannot be told apart from the unavailability of the database.
+   */
+  static boolean isRetriable(final Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof IllegalArgumentException) {
+        return false;
+      }
+      if (cause instanceof SQLException) {
+        String sqlState = ((SQLException) cause).getSQLState();
+        if ((sqlState != null)
+            && (sqlState.startsWith(DATA_EXCEPTION_SQL_STATE_CLASS)
+                || sqlState.startsWith(INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE_CLASS))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private AuditPersistenceErrors() {
+  }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.everit.audit.ri;
 
+import org.everit.authentication.context.AuthenticationContext;
 import org.everit.authnr.permissionchecker.AuthnrPermissionChecker;
 import org.everit.authorization.AuthorizationManager;
 import org.everit.persistence.querydsl.support.QuerydslSupport;
@@ -27,6 +28,12 @@ import org.everit.transaction.propagator.TransactionPropagator;
  */
 public class AuditRequiredServices {
 
+  /**
+   * The context of the authenticated resource, <code>null</code> if the permission decisions are
+   * not cached.
+   */
+  public final AuthenticationContext authenticationContext;
+
   public final AuthnrPermissionChecker authnrPermissionChecker;
 
   public final AuthorizationManager authorizationManager;
@@ -40,12 +47,25 @@ public class AuditRequiredServices {
   public final TransactionPropagator transactionPropagator;
 
   /**
-   * Constructor.
+   * Constructor without {@link AuthenticationContext}, the permission decisions are not cached.
    */
   public AuditRequiredServices(final AuthnrPermissionChecker authnrPermissionChecker,
       final AuthorizationManager authorizationManager, final PropertyManager propertyManager,
       final ResourceService resourceService, final QuerydslSupport querydslSupport,
       final TransactionPropagator transactionPropagator) {
+    this(authnrPermissionChecker, authorizationManager, propertyManager, resourceService,
+        querydslSupport, transactionPropagator, null);
+  }
+
+  /**
+   * Constructor.
+   */
+  public AuditRequiredServices(final AuthnrPermissionChecker authnrPermissionChecker,
+      final AuthorizationManager authorizationManager, final PropertyManager propertyManager,
+      final ResourceService resourceService, final QuerydslSupport querydslSupport,
+      final TransactionPropagator transactionPropagator,
+      final AuthenticationContext authenticationContext) {
+    this.authenticationContext = authenticationContext;
     this.authnrPermissionChecker = authnrPermissionChecker;
     this.authorizationManager = authorizationManager;
     this.propertyManager = propertyManager;
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Defines how long the events of an audit application or of some of its event types are kept.
+ */
+public class AuditRetentionRule {
+
+  /**
+   * Builder class to create the rule easily.
+   */
+  public static class Builder {
+
+    private String applicationName;
+
+    private String[] eventTypeNames;
+
+    private Duration retentionPeriod;
+
+    /**
+     * Default constructor.
+     */
+    public Builder() {
+    }
+
+    public Builder applicationName(final String applicationName) {
+      this.applicationName = applicationName;
+      return this;
+    }
+
+    public AuditRetentionRule build() {
+      return new AuditRetentionRule(this);
+    }
+
+    /**
+     * Restricts the rule to the given event types. By default the rule applies to all event types
+     * of the application.
+     */
+    public Builder eventTypeNames(final String... eventTypeNames) {
+      this.eventTypeNames = eventTypeNames;
+      return this;
+    }
+
+    /**
+     * Sets how long the events are kept after they occured.
+     */
+    public Builder retentionPeriod(final Duration retentionPeriod) {
+      this.retentionPeriod = retentionPeriod;
+      return this;
+    }
+  }
+
+  public final String applicationName;
+
+  /**
+   * The names of the event types the rule applies to, <code>null</code> if the rule applies to all
+   * event types of the application.
+   */
+  public final String[] eventTypeNames;
+
+  /**
+   * How long the events are kept after they occured.
+   */
+  public final Duration retentionPeriod;
+
+  private AuditRetentionRule(final Builder builder) {
+    applicationName = Objects.requireNonNull(builder.applicationName,
+        "applicationName cannot be null");
+    retentionPeriod = Objects.requireNonNull(builder.retentionPeriod,
+        "retentionPeriod cannot be null");
+    if (retentionPeriod.isNegative()) {
+      throw new IllegalArgumentException("retentionPeriod cannot be negative");
+    }
+    if (builder.eventTypeNames != null) {
+      for (String eventTypeName : builder.eventTypeNames) {
+        Objects.requireNonNull(eventTypeName, "eventTypeNames cannot contain null value");
+      }
+      eventTypeNames = builder.eventTypeNames.clone();
+    } else {
+      eventTypeNames = null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AuditRetentionRule [applicationName=" + applicationName + ", eventTypeNames="
+        + Arrays.toString(eventTypeNames) + ", retentionPeriod=" + retentionPeriod + "]";
+  }
+
+}
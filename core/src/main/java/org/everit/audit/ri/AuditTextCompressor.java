@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the large text event data values with Deflate. A compressed value is stored in the
+ * <code>compressed_value</code> column with the {@link #TEXT_DEFLATE_EVENT_DATA_TYPE} type, so
+ * the readers recognize it regardless of the current configuration.
+ */
+final class AuditTextCompressor {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * The value of the <code>event_data_type</code> column of the compressed text values.
+   */
+  static final String TEXT_DEFLATE_EVENT_DATA_TYPE = "TEXT_DEFLATE";
+
+  /**
+   * Returns the UTF-8 encoded text compressed with Deflate, <code>null</code> if the compressed
+   * form is not smaller than the UTF-8 encoded text.
+   */
+  static byte[] deflate(final String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+    Deflater deflater = new Deflater();
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+        if (out.size() >= bytes.length) {
+          return null;
+        }
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Decompresses a value compressed by {@link #deflate(String)}.
+   *
+   * @throws IllegalArgumentException
+   *           if the value is not a valid Deflate stream
+   */
+  static String inflate(final byte[] compressedValue) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressedValue);
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(compressedValue.length * 4);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!inflater.finished()) {
+        int length = inflater.inflate(buffer);
+        if ((length == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalArgumentException("truncated compressed text value");
+        }
+        out.write(buffer, 0, length);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("invalid compressed text value", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private AuditTextCompressor() {
+  }
+
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe, size bounded {@link Map} implementation that can be passed to the
+ * {@link InternalAuditService} as cache. The entries are distributed into segments, each evicting
+ * an entry that was not read since the previous eviction round (the CLOCK algorithm) when it is
+ * full. The reads do not lock, only the insertions lock their segment. Entries can optionally
+ * expire after a fixed time to live counted from their insertion.
+ * <p>
+ * The <code>null</code> keys and values are not supported. The views returned by
+ * {@link #entrySet()}, {@link #keySet()} and {@link #values()} are unmodifiable snapshots.
+ * </p>
+ *
+ * @param <K>
+ *          the type of the keys
+ * @param <V>
+ *          the type of the values
+ */
+public class BoundedAuditCache<K, V> extends AbstractMap<K, V> {
+
+  /**
+   * A cached value with its expiration time.
+   */
+  private static final class CacheEntry<K, V> {
+
+    private final long expiresAtNanos;
+
+    private final K key;
+
+    /**
+     * Whether the entry was read since the clock hand passed it last time.
+     */
+    private volatile boolean referenced;
+
+    private final V value;
+
+    CacheEntry(final K key, final V value, final long expiresAtNanos) {
+      this.key = key;
+      this.value = value;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+  }
+
+  /**
+   * A part of the cache. The map can be read and the entries can be removed without locking, the
+   * insertions and the evictions lock the segment.
+   */
+  private static final class Segment<K, V> {
+
+    private final int capacity;
+
+    /**
+     * The entries in the order the clock hand visits them, guarded by the segment. Contains the
+     * removed and replaced entries too until the hand reaches them or the queue is compacted.
+     */
+    private final ArrayDeque<CacheEntry<K, V>> clock = new ArrayDeque<>();
+
+    private final ConcurrentHashMap<K, CacheEntry<K, V>> entries;
+
+    private final LongAdder evictionCount;
+
+    Segment(final int capacity, final LongAdder evictionCount) {
+      this.capacity = capacity;
+      this.evictionCount = evictionCount;
+      entries = new ConcurrentHashMap<>(INITIAL_SEGMENT_CAPACITY, LOAD_FACTOR);
+    }
+
+    synchronized void clear() {
+      entries.clear();
+      clock.clear();
+    }
+
+    /**
+     * Evicts the entries not read since the hand passed them until the segment has at most the
+     * given number of entries. The read entries get a second chance, but only during one turn of
+     * the hand, so the readers cannot keep the eviction running.
+     */
+    private void evict(final int maximumSize) {
+      int secondChanceCount = clock.size();
+      while ((entries.size() > maximumSize) && !clock.isEmpty()) {
+        CacheEntry<K, V> cacheEntry = clock.pollFirst();
+        if (entries.get(cacheEntry.key) != cacheEntry) {
+          continue;
+        }
+        if (cacheEntry.referenced && (secondChanceCount-- > 0)) {
+          cacheEntry.referenced = false;
+          clock.addLast(cacheEntry);
+        } else if (entries.remove(cacheEntry.key, cacheEntry)) {
+          evictionCount.increment();
+        }
+      }
+    }
+
+    synchronized CacheEntry<K, V> put(final CacheEntry<K, V> cacheEntry) {
+      if (!entries.containsKey(cacheEntry.key)) {
+        evict(capacity - 1);
+      }
+      CacheEntry<K, V> previous = entries.put(cacheEntry.key, cacheEntry);
+      clock.addLast(cacheEntry);
+      if (clock.size() > (capacity * 2)) {
+        clock.removeIf(queuedEntry -> entries.get(queuedEntry.key) != queuedEntry);
+      }
+      return previous;
+    }
+  }
+
+  private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private static final int MAX_SEGMENT_COUNT = 16;
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  private final LongAdder expirationCount = new LongAdder();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final Segment<K, V>[] segments;
+
+  private final long timeToLiveNanos;
+
+  /**
+   * Constructor of a cache without expiration.
+   *
+   * @param maximumSize
+   *          the maximum number of entries, must be positive
+   */
+  public BoundedAuditCache(final int maximumSize) {
+    this(maximumSize, 0);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maximumSize
+   *          the maximum number of entries, must be positive
+   * @param timeToLiveMillis
+   *          the time in milliseconds after an entry expires, <code>0</code> if the entries never
+   *          expire
+   */
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  public BoundedAuditCache(final int maximumSize, final long timeToLiveMillis) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize must be positive");
+    }
+    if (timeToLiveMillis < 0) {
+      throw new IllegalArgumentException("timeToLiveMillis cannot be negative");
+    }
+    timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+
+    int segmentCount = Math.min(MAX_SEGMENT_COUNT, Integer.highestOneBit(maximumSize));
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      int segmentCapacity = (maximumSize / segmentCount)
+          + ((i < (maximumSize % segmentCount)) ? 1 : 0);
+      segments[i] = new Segment<>(segmentCapacity, evictionCount);
+    }
+  }
+
+  @Override
+  public void clear() {
+    for (Segment<K, V> segment : segments) {
+      segment.clear();
+    }
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    CacheEntry<K, V> cacheEntry = segmentFor(key).entries.get(key);
+    return (cacheEntry != null) && !isExpired(cacheEntry, System.nanoTime());
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    Set<Map.Entry<K, V>> rval = new HashSet<>();
+    long now = System.nanoTime();
+    for (Segment<K, V> segment : segments) {
+      for (CacheEntry<K, V> cacheEntry : segment.entries.values()) {
+        if (!isExpired(cacheEntry, now)) {
+          rval.add(new AbstractMap.SimpleImmutableEntry<>(cacheEntry.key, cacheEntry.value));
+        }
+      }
+    }
+    return Collections.unmodifiableSet(rval);
+  }
+
+  @Override
+  public V get(final Object key) {
+    Segment<K, V> segment = segmentFor(key);
+    CacheEntry<K, V> cacheEntry = segment.entries.get(key);
+    if (cacheEntry == null) {
+      missCount.increment();
+      return null;
+    }
+    if (isExpired(cacheEntry, System.nanoTime())) {
+      if (segment.entries.remove(key, cacheEntry)) {
+        expirationCount.increment();
+      }
+      missCount.increment();
+      return null;
+    }
+    if (!cacheEntry.referenced) {
+      cacheEntry.referenced = true;
+    }
+    hitCount.increment();
+    return cacheEntry.value;
+  }
+
+  /**
+   * Returns a snapshot of the statistics of the cache.
+   */
+  public AuditCacheStatistics getStatistics() {
+    return new AuditCacheStatistics(hitCount.sum(), missCount.sum(), evictionCount.sum(),
+        expirationCount.sum(), size());
+  }
+
+  private boolean isExpired(final CacheEntry<K, V> cacheEntry, final long now) {
+    return (timeToLiveNanos > 0) && ((now - cacheEntry.expiresAtNanos) >= 0);
+  }
+
+  @Override
+  public V put(final K key, final V value) {
+    Objects.requireNonNull(value, "value cannot be null");
+    Segment<K, V> segment = segmentFor(key);
+    CacheEntry<K, V> previous =
+        segment.put(new CacheEntry<>(key, value, System.nanoTime() + timeToLiveNanos));
+    return (previous == null) ? null : previous.value;
+  }
+
+  @Override
+  public V remove(final Object key) {
+    CacheEntry<K, V> previous = segmentFor(key).entries.remove(key);
+    return (previous == null) ? null : previous.value;
+  }
+
+  private Segment<K, V> segmentFor(final Object key) {
+    Objects.requireNonNull(key, "key cannot be null");
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return segments[hash & (segments.length - 1)];
+  }
+
+  @Override
+  public int size() {
+    int rval = 0;
+    for (Segment<K, V> segment : segments) {
+      rval += segment.entries.size();
+    }
+    return rval;
+  }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.Map;
+import java.util.Objects;
+
+import org.everit.audit.ri.dto.AuditApplication;
+
+/**
+ * The immutable representation of an audit application held by the cache of the
+ * {@link InternalAuditService}. The same instance is shared by every lookup, so a cache hit does
+ * not allocate. The instance references the event type table of the application held by the
+ * {@link AuditEventTypeRegistry}.
+ */
+public final class CachedAuditApplication {
+
+  public final long applicationId;
+
+  public final String applicationName;
+
+  /**
+   * The cached event types of the application mapped by their names.
+   */
+  final Map<String, CachedAuditEventType> eventTypes;
+
+  /**
+   * The cached log permissions on the application, <code>null</code> if the permission decisions
+   * are not cached.
+   */
+  final CachedLogPermissions logPermissions;
+
+  public final long resourceId;
+
+  CachedAuditApplication(final AuditApplication auditApplication,
+      final Map<String, CachedAuditEventType> eventTypes,
+      final CachedLogPermissions logPermissions) {
+    applicationId = auditApplication.applicationId;
+    applicationName = Objects.requireNonNull(auditApplication.applicationName,
+        "applicationName cannot be null");
+    resourceId = auditApplication.resourceId;
+    this.eventTypes = Objects.requireNonNull(eventTypes, "eventTypes cannot be null");
+    this.logPermissions = logPermissions;
+  }
+
+  @Override
+  public String toString() {
+    return "CachedAuditApplication [applicationId=" + applicationId + ", applicationName="
+        + applicationName + ", resourceId=" + resourceId + "]";
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.Objects;
+
+import org.everit.audit.dto.AuditEventType;
+
+/**
+ * The immutable representation of an audit event type held by the cache of the
+ * {@link InternalAuditService}.
+ */
+public final class CachedAuditEventType {
+
+  public final long eventTypeId;
+
+  public final String eventTypeName;
+
+  public final long resourceId;
+
+  CachedAuditEventType(final AuditEventType auditEventType) {
+    this(auditEventType.eventTypeId, auditEventType.eventTypeName, auditEventType.resourceId);
+  }
+
+  CachedAuditEventType(final long eventTypeId, final String eventTypeName,
+      final long resourceId) {
+    this.eventTypeId = eventTypeId;
+    this.eventTypeName = Objects.requireNonNull(eventTypeName, "eventTypeName cannot be null");
+    this.resourceId = resourceId;
+  }
+
+  @Override
+  public String toString() {
+    return "CachedAuditEventType [eventTypeId=" + eventTypeId + ", eventTypeName="
+        + eventTypeName + ", resourceId=" + resourceId + "]";
+  }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.Arrays;
+
+/**
+ * The granted log permissions of the authenticated resources on one audit application. A lookup is
+ * a binary search in an immutable snapshot of primitive arrays, so a cached check does not
+ * allocate or lock. The snapshot is replaced on every change.
+ */
+final class CachedLogPermissions {
+
+  /**
+   * An immutable state of the cache.
+   */
+  private static final class Snapshot {
+
+    /**
+     * The expiration times of the permissions in the order of the {@link #resourceIds}.
+     */
+    private final long[] expiresAtNanos;
+
+    private final long generation;
+
+    /**
+     * The sorted identifiers of the authenticated resources having the permission.
+     */
+    private final long[] resourceIds;
+
+    Snapshot(final long[] resourceIds, final long[] expiresAtNanos, final long generation) {
+      this.resourceIds = resourceIds;
+      this.expiresAtNanos = expiresAtNanos;
+      this.generation = generation;
+    }
+  }
+
+  private final int maximumSize;
+
+  private volatile Snapshot snapshot = new Snapshot(new long[0], new long[0], 0);
+
+  private final long timeToLiveNanos;
+
+  /**
+   * Constructor.
+   *
+   * @param maximumSize
+   *          the maximum number of cached permissions, must be positive
+   * @param timeToLiveNanos
+   *          the time in nanoseconds after a permission expires
+   */
+  CachedLogPermissions(final int maximumSize, final long timeToLiveNanos) {
+    this.maximumSize = maximumSize;
+    this.timeToLiveNanos = timeToLiveNanos;
+  }
+
+  /**
+   * Removes every cached permission. The permissions granted with a generation returned before the
+   * eviction are not cached.
+   */
+  synchronized void evictAll() {
+    snapshot = new Snapshot(new long[0], new long[0], snapshot.generation + 1);
+  }
+
+  /**
+   * Returns the generation that must be passed to {@link #grant(long, long)} after the permission
+   * is checked.
+   */
+  long getGeneration() {
+    return snapshot.generation;
+  }
+
+  /**
+   * Caches a granted permission if no eviction happened since the generation was read. The expired
+   * permissions are removed, and the permission expiring first if the cache is still full.
+   *
+   * @param resourceId
+   *          the authenticated resource having the permission
+   * @param generation
+   *          the result of {@link #getGeneration()} read before the permission was checked
+   */
+  synchronized void grant(final long resourceId, final long generation) {
+    Snapshot current = snapshot;
+    if (current.generation != generation) {
+      return;
+    }
+
+    long now = System.nanoTime();
+    int length = current.resourceIds.length;
+    long[] resourceIds = new long[length + 1];
+    long[] expiresAtNanos = new long[length + 1];
+    int size = 0;
+    int earliestIndex = -1;
+    for (int i = 0; i < length; i++) {
+      if ((current.resourceIds[i] != resourceId) && ((current.expiresAtNanos[i] - now) > 0)) {
+        resourceIds[size] = current.resourceIds[i];
+        expiresAtNanos[size] = current.expiresAtNanos[i];
+        if ((earliestIndex < 0)
+            || ((expiresAtNanos[size] - expiresAtNanos[earliestIndex]) < 0)) {
+          earliestIndex = size;
+        }
+        size++;
+      }
+    }
+    if (size >= maximumSize) {
+      size--;
+      System.arraycopy(resourceIds, earliestIndex + 1, resourceIds, earliestIndex,
+          size - earliestIndex);
+      System.arraycopy(expiresAtNanos, earliestIndex + 1, expiresAtNanos, earliestIndex,
+          size - earliestIndex);
+    }
+
+    int insertionIndex = -(Arrays.binarySearch(resourceIds, 0, size, resourceId) + 1);
+    System.arraycopy(resourceIds, insertionIndex, resourceIds, insertionIndex + 1,
+        size - insertionIndex);
+    System.arraycopy(expiresAtNanos, insertionIndex, expiresAtNanos, insertionIndex + 1,
+        size - insertionIndex);
+    resourceIds[insertionIndex] = resourceId;
+    expiresAtNanos[insertionIndex] = now + timeToLiveNanos;
+    size++;
+
+    snapshot = new Snapshot(Arrays.copyOf(resourceIds, size), Arrays.copyOf(expiresAtNanos, size),
+        generation);
+  }
+
+  /**
+   * Returns whether the resource has a cached permission that is not expired.
+   */
+  boolean isGranted(final long resourceId) {
+    Snapshot current = snapshot;
+    int index = Arrays.binarySearch(current.resourceIds, resourceId);
+    return (index >= 0) && ((current.expiresAtNanos[index] - System.nanoTime()) > 0);
+  }
+
+}
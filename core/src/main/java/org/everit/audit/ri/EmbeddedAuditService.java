@@ -15,6 +15,8 @@
  */
 package org.everit.audit.ri;
 
+import java.util.Collection;
+
 import org.everit.audit.AuditEventTypeManager;
 import org.everit.audit.LoggingService;
 import org.everit.audit.dto.AuditEvent;
@@ -85,4 +87,19 @@ public class EmbeddedAuditService implements
     });
   }
 
+  /**
+   * Persists the given audit events in one step.
+   *
+   * @see InternalLoggingService#logEvents(String, Collection)
+   */
+  public void logEvents(final Collection<AuditEvent> auditEvents) {
+
+    long systemResourceId = permissionChecker.getSystemResourceId();
+
+    authenticationPropagator.runAs(systemResourceId, () -> {
+      internalLoggingService.logEvents(embeddedAuditApplicationName, auditEvents);
+      return null;
+    });
+  }
+
 }
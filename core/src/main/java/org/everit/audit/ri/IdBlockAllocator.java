@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.everit.audit.ri.schema.qdsl.QIdSequence;
+import org.everit.persistence.querydsl.support.QuerydslSupport;
+import org.everit.transaction.propagator.TransactionPropagator;
+
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.dml.SQLInsertClause;
+import com.querydsl.sql.dml.SQLUpdateClause;
+
+/**
+ * Hands out identifiers from blocks reserved in the <code>audit_id_sequence</code> table, so the
+ * rows can be inserted with known keys instead of reading back the generated ones. Each block is
+ * reserved in a separate transaction, so the sequence row is locked only for a short time. The
+ * monitor of the allocator is not held during the reservation, so the other threads can take the
+ * free identifiers meanwhile. The identifiers of a block that are not used before a restart are
+ * lost.
+ * <p>
+ * The identifiers should be allocated before the transaction of the rows is opened, so reserving a
+ * block does not need a second connection while the first one is held.
+ * </p>
+ */
+class IdBlockAllocator {
+
+  private final int blockSize;
+
+  /**
+   * The ranges of the reserved identifiers that are not handed out yet. The first element of a
+   * range is the next free identifier, the second one is the end of the range (exclusive).
+   */
+  private final Deque<long[]> freeRanges = new ArrayDeque<>();
+
+  /**
+   * Supplies the identifier columns of every table holding the identifiers.
+   */
+  private final Supplier<List<NumberPath<Long>>> idPaths;
+
+  private final QuerydslSupport querydslSupport;
+
+  private final String sequenceName;
+
+  private final TransactionPropagator transactionPropagator;
+
+  /**
+   * Constructor.
+   *
+   * @param sequenceName
+   *          the name of the sequence row
+   * @param idPaths
+   *          supplies the identifier columns of every table holding the identifiers, used to
+   *          initialize the sequence above the existing identifiers. Called in the transaction
+   *          inserting the sequence row.
+   */
+  IdBlockAllocator(final String sequenceName, final Supplier<List<NumberPath<Long>>> idPaths,
+      final int blockSize, final QuerydslSupport querydslSupport,
+      final TransactionPropagator transactionPropagator) {
+    this.sequenceName = sequenceName;
+    this.idPaths = idPaths;
+    this.blockSize = blockSize;
+    this.querydslSupport = querydslSupport;
+    this.transactionPropagator = transactionPropagator;
+  }
+
+  /**
+   * Returns free identifiers. The ones left in the reserved blocks are used first, a new block is
+   * reserved only if they are not enough.
+   *
+   * @param count
+   *          the number of the identifiers
+   */
+  public long[] allocate(final int count) {
+    long[] rval = new long[count];
+    int allocated = takeFreeIds(rval, 0);
+    while (allocated < count) {
+      long blockStart = reserveBlock();
+      long blockEnd = blockStart + blockSize;
+      long id = blockStart;
+      while ((allocated < count) && (id < blockEnd)) {
+        rval[allocated++] = id++;
+      }
+      if (id < blockEnd) {
+        synchronized (this) {
+          freeRanges.add(new long[] { id, blockEnd });
+        }
+      }
+    }
+    return rval;
+  }
+
+  /**
+   * Inserts the sequence row starting after the greatest identifier of all tables. A concurrent
+   * insertion of the row by another node fails on the primary key, so the caller transaction
+   * rolls back and the reservation is retried.
+   * <p>
+   * Note: transaction must be provided to this method.
+   * </p>
+   */
+  private void insertSequence() {
+    List<NumberPath<Long>> currentIdPaths = idPaths.get();
+    querydslSupport.execute((connection, configuration) -> {
+
+      long maxId = 0;
+      for (NumberPath<Long> idPath : currentIdPaths) {
+        Long tableMaxId = new SQLQuery<Long>(connection, configuration)
+            .select(idPath.max())
+            .from(idPath.getRoot())
+            .fetchOne();
+        if (tableMaxId != null) {
+          maxId = Math.max(maxId, tableMaxId);
+        }
+      }
+
+      QIdSequence qIdSequence = QIdSequence.idSequence;
+
+      return new SQLInsertClause(connection, configuration, qIdSequence)
+          .set(qIdSequence.sequenceName, sequenceName)
+          .set(qIdSequence.nextValue, maxId + 1)
+          .execute();
+    });
+  }
+
+  private long reserveBlock() {
+    try {
+      return transactionPropagator.requiresNew(this::reserveBlockInTransaction);
+    } catch (RuntimeException e) {
+      // the sequence row might have been created by another node in the meantime
+      return transactionPropagator.requiresNew(this::reserveBlockInTransaction);
+    }
+  }
+
+  /**
+   * Note: transaction must be provided to this method.
+   */
+  private long reserveBlockInTransaction() {
+
+    Long blockStart = selectNextValueForUpdate();
+
+    if (blockStart == null) {
+      insertSequence();
+      blockStart = selectNextValueForUpdate();
+    }
+
+    long reservedBlockStart = blockStart;
+
+    querydslSupport.execute((connection, configuration) -> {
+      QIdSequence qIdSequence = QIdSequence.idSequence;
+      return new SQLUpdateClause(connection, configuration, qIdSequence)
+          .set(qIdSequence.nextValue, reservedBlockStart + blockSize)
+          .where(qIdSequence.sequenceName.eq(sequenceName))
+          .execute();
+    });
+
+    return reservedBlockStart;
+  }
+
+  /**
+   * Note: transaction must be provided to this method.
+   */
+  private Long selectNextValueForUpdate() {
+    return querydslSupport.execute((connection, configuration) -> {
+      QIdSequence qIdSequence = QIdSequence.idSequence;
+      return new SQLQuery<Long>(connection, configuration)
+          .select(qIdSequence.nextValue)
+          .from(qIdSequence)
+          .where(qIdSequence.sequenceName.eq(sequenceName))
+          .forUpdate()
+          .fetchOne();
+    });
+  }
+
+  /**
+   * Fills the identifiers from the free ranges.
+   *
+   * @param offset
+   *          the index of the first identifier to fill
+   * @return the index after the last filled identifier
+   */
+  private synchronized int takeFreeIds(final long[] ids, final int offset) {
+    int rval = offset;
+    while ((rval < ids.length) && !freeRanges.isEmpty()) {
+      long[] freeRange = freeRanges.peek();
+      ids[rval++] = freeRange[0]++;
+      if (freeRange[0] == freeRange[1]) {
+        freeRanges.poll();
+      }
+    }
+    return rval;
+  }
+
+}
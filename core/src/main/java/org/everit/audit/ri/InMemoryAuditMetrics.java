@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.everit.audit.ri.metrics.AuditCounter;
+import org.everit.audit.ri.metrics.AuditMetrics;
+import org.everit.audit.ri.metrics.AuditTimer;
+
+/**
+ * {@link AuditMetrics} keeping the counters and power of two latency histograms in memory. The
+ * recording methods do not allocate and do not lock, the values can be read as snapshots.
+ */
+public class InMemoryAuditMetrics implements AuditMetrics {
+
+  /**
+   * The mutable state of one histogram.
+   */
+  private static final class Histogram {
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(Long.SIZE);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    void record(final long nanos) {
+      long value = Math.max(0, nanos);
+      bucketCounts.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+      count.increment();
+      totalNanos.add(value);
+      maxNanos.accumulate(value);
+    }
+
+    AuditLatencyHistogram snapshot() {
+      long[] bucketCountSnapshot = new long[bucketCounts.length()];
+      for (int i = 0; i < bucketCountSnapshot.length; i++) {
+        bucketCountSnapshot[i] = bucketCounts.get(i);
+      }
+      return new AuditLatencyHistogram(bucketCountSnapshot, count.sum(), totalNanos.sum(),
+          maxNanos.get());
+    }
+  }
+
+  private final Map<AuditCounter, LongAdder> counters = new EnumMap<>(AuditCounter.class);
+
+  private final Map<AuditTimer, Histogram> histograms = new EnumMap<>(AuditTimer.class);
+
+  /**
+   * Constructor.
+   */
+  public InMemoryAuditMetrics() {
+    for (AuditCounter counter : AuditCounter.values()) {
+      counters.put(counter, new LongAdder());
+    }
+    for (AuditTimer timer : AuditTimer.values()) {
+      histograms.put(timer, new Histogram());
+    }
+  }
+
+  public long getCount(final AuditCounter counter) {
+    return counters.get(counter).sum();
+  }
+
+  public AuditLatencyHistogram getLatencyHistogram(final AuditTimer timer) {
+    return histograms.get(timer).snapshot();
+  }
+
+  @Override
+  public void increment(final AuditCounter counter, final long amount) {
+    counters.get(counter).add(amount);
+  }
+
+  @Override
+  public void recordNanos(final AuditTimer timer, final long nanos) {
+    histograms.get(timer).record(nanos);
+  }
+
+}
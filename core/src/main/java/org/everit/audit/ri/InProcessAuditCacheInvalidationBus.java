@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link AuditCacheInvalidationBus} delivering the invalidations synchronously to the listeners
+ * registered in the same JVM. It can connect several {@link InternalAuditService} instances of
+ * one JVM, for e.g. in tests simulating a cluster.
+ */
+public class InProcessAuditCacheInvalidationBus implements AuditCacheInvalidationBus {
+
+  private final List<AuditCacheInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void addListener(final AuditCacheInvalidationListener listener) {
+    listeners.add(Objects.requireNonNull(listener, "listener cannot be null"));
+  }
+
+  @Override
+  public void publishAllInvalidation() {
+    for (AuditCacheInvalidationListener listener : listeners) {
+      listener.allInvalidated();
+    }
+  }
+
+  @Override
+  public void publishAuditApplicationInvalidation(final String applicationName) {
+    for (AuditCacheInvalidationListener listener : listeners) {
+      listener.auditApplicationInvalidated(applicationName);
+    }
+  }
+
+  @Override
+  public void publishAuditEventTypesInvalidation(final long applicationId) {
+    for (AuditCacheInvalidationListener listener : listeners) {
+      listener.auditEventTypesInvalidated(applicationId);
+    }
+  }
+
+  @Override
+  public void removeListener(final AuditCacheInvalidationListener listener) {
+    listeners.remove(listener);
+  }
+
+}
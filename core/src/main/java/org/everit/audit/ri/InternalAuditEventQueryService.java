@@ -0,0 +1,460 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.everit.audit.dto.EventDataType;
+import org.everit.audit.ri.dto.AuditEventCursor;
+import org.everit.audit.ri.dto.AuditEventPage;
+import org.everit.audit.ri.dto.AuditEventQuery;
+import org.everit.audit.ri.dto.StoredAuditEvent;
+import org.everit.audit.ri.dto.StoredEventData;
+import org.everit.audit.ri.schema.qdsl.QEvent;
+import org.everit.audit.ri.schema.qdsl.QEventData;
+import org.everit.audit.ri.schema.qdsl.QEventType;
+import org.everit.persistence.querydsl.support.QuerydslSupport;
+import org.everit.transaction.propagator.TransactionPropagator;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.StatementOptions;
+
+/**
+ * The implementation of the {@link AuditEventQueryService} and the {@link AuditEventExportService}
+ * reading the tables written by the {@link InternalAuditService}. If the events are partitioned,
+ * only the partitions overlapping the queried time range are read.
+ */
+public class InternalAuditEventQueryService implements
+    AuditEventQueryService,
+    AuditEventExportService {
+
+  private static final StoredEventData[] EMPTY_EVENT_DATA_ARRAY = new StoredEventData[0];
+
+  private static final int EXPORT_FETCH_SIZE = 1000;
+
+  private static final Comparator<StoredAuditEvent> KEYSET_ORDER =
+      Comparator.comparing((final StoredAuditEvent auditEvent) -> auditEvent.occuredAt)
+          .thenComparingLong(auditEvent -> auditEvent.eventId);
+
+  private static final int SELECT_EVENT_DATA_PAGE_SIZE = 500;
+
+  private final InternalAuditService internalAuditService;
+
+  private final QuerydslSupport querydslSupport;
+
+  private final TransactionPropagator transactionPropagator;
+
+  /**
+   * Constructor.
+   *
+   * @param internalAuditService
+   *          resolves the audit applications and checks the permissions
+   */
+  public InternalAuditEventQueryService(final InternalAuditService internalAuditService,
+      final AuditRequiredServices auditRequiredServices) {
+    this.internalAuditService = Objects.requireNonNull(internalAuditService,
+        "internalAuditService cannot be null");
+    querydslSupport = auditRequiredServices.querydslSupport;
+    transactionPropagator = auditRequiredServices.transactionPropagator;
+  }
+
+  /**
+   * Creates the filter of the query on the given event table including the keyset condition of the
+   * cursor.
+   */
+  BooleanBuilder createPredicate(final QEvent qEvent,
+      final CachedAuditApplication auditApplication, final AuditEventQuery auditEventQuery) {
+
+    QEventType qEventType = QEventType.eventType;
+
+    BooleanBuilder predicate = new BooleanBuilder(
+        qEventType.applicationId.eq(auditApplication.applicationId));
+
+    if (auditEventQuery.eventTypeNames != null) {
+      predicate.and(qEventType.eventTypeName.in(auditEventQuery.eventTypeNames));
+    }
+    if (auditEventQuery.occuredAtFrom != null) {
+      predicate.and(qEvent.occuredAt.goe(Timestamp.from(auditEventQuery.occuredAtFrom)));
+    }
+    if (auditEventQuery.occuredAtTo != null) {
+      predicate.and(qEvent.occuredAt.lt(Timestamp.from(auditEventQuery.occuredAtTo)));
+    }
+    if (auditEventQuery.createdAtFrom != null) {
+      predicate.and(qEvent.createdAt.goe(Timestamp.from(auditEventQuery.createdAtFrom)));
+    }
+    if (auditEventQuery.createdAtTo != null) {
+      predicate.and(qEvent.createdAt.lt(Timestamp.from(auditEventQuery.createdAtTo)));
+    }
+
+    AuditEventCursor cursor = auditEventQuery.cursor;
+    if (cursor != null) {
+      Timestamp cursorOccuredAt = Timestamp.from(cursor.occuredAt);
+      predicate.and(qEvent.occuredAt.gt(cursorOccuredAt)
+          .or(qEvent.occuredAt.eq(cursorOccuredAt).and(qEvent.eventId.gt(cursor.eventId))));
+    }
+
+    return predicate;
+  }
+
+  @Override
+  public void exportEvents(final AuditEventQuery auditEventQuery,
+      final StoredAuditEventVisitor visitor) {
+
+    Objects.requireNonNull(auditEventQuery, "auditEventQuery cannot be null");
+    Objects.requireNonNull(visitor, "visitor cannot be null");
+
+    CachedAuditApplication auditApplication =
+        internalAuditService.requireReadableAuditApplication(auditEventQuery.applicationName);
+
+    List<AuditEventPartition> auditEventPartitions = findAuditEventPartitions(auditEventQuery);
+
+    // some drivers (for e.g. PostgreSQL) stream the result set only outside of auto-commit mode
+    transactionPropagator.required(() -> querydslSupport.execute((connection, configuration) -> {
+
+      for (AuditEventPartition auditEventPartition : auditEventPartitions) {
+        if (!exportEvents(connection, configuration, auditEventPartition, auditApplication,
+            auditEventQuery, visitor)) {
+          return null;
+        }
+      }
+      return null;
+    }));
+  }
+
+  /**
+   * Streams the events of one partition to the visitor.
+   *
+   * @return <code>false</code> if the visitor stopped the export
+   */
+  private boolean exportEvents(final Connection connection, final Configuration configuration,
+      final AuditEventPartition auditEventPartition, final CachedAuditApplication auditApplication,
+      final AuditEventQuery auditEventQuery, final StoredAuditEventVisitor visitor) {
+
+    QEvent qEvent = auditEventPartition.qEvent;
+    QEventType qEventType = QEventType.eventType;
+    QEventData qEventData = auditEventPartition.qEventData;
+
+    SQLQuery<Tuple> query = new SQLQuery<Tuple>(connection, configuration)
+        .select(qEvent.eventId, qEvent.occuredAt, qEvent.createdAt, qEventType.eventTypeName,
+            qEvent.eventDataBlob, qEventData.eventDataName, qEventData.eventDataNameId,
+            qEventData.eventDataType,
+            qEventData.numberValue, qEventData.stringValue, qEventData.textValue,
+            qEventData.timestampValue, qEventData.compressedValue)
+        .from(qEvent)
+        .innerJoin(qEventType).on(qEvent.eventTypeId.eq(qEventType.eventTypeId))
+        .leftJoin(qEventData).on(qEventData.eventId.eq(qEvent.eventId))
+        .where(createPredicate(qEvent, auditApplication, auditEventQuery))
+        .orderBy(qEvent.occuredAt.asc(), qEvent.eventId.asc(), qEventData.eventDataId.asc());
+    query.setStatementOptions(StatementOptions.builder()
+        .setFetchSize(EXPORT_FETCH_SIZE)
+        .build());
+
+    // the names are resolved while the result set is open, and some drivers (for e.g. MySQL)
+    // cannot run another query on the connection until the streamed result set is closed. The
+    // names are inserted before the events referencing them, so the rows selected by the cursor
+    // reference only names committed before it is opened.
+    internalAuditService.loadEventDataNames();
+
+    try (CloseableIterator<Tuple> iterator = query.iterate()) {
+      return visitRows(auditEventPartition, iterator, visitor);
+    }
+  }
+
+  /**
+   * Returns the tables that may hold the events matching the query. The cursor narrows the time
+   * range as the events before it are not returned.
+   */
+  private List<AuditEventPartition> findAuditEventPartitions(
+      final AuditEventQuery auditEventQuery) {
+
+    Instant occuredAtFrom = auditEventQuery.occuredAtFrom;
+    AuditEventCursor cursor = auditEventQuery.cursor;
+    if ((cursor != null)
+        && ((occuredAtFrom == null) || cursor.occuredAt.isAfter(occuredAtFrom))) {
+      occuredAtFrom = cursor.occuredAt;
+    }
+
+    return internalAuditService.findAuditEventPartitions(occuredAtFrom,
+        auditEventQuery.occuredAtTo);
+  }
+
+  @Override
+  public AuditEventPage queryEvents(final AuditEventQuery auditEventQuery) {
+
+    Objects.requireNonNull(auditEventQuery, "auditEventQuery cannot be null");
+
+    CachedAuditApplication auditApplication =
+        internalAuditService.requireReadableAuditApplication(auditEventQuery.applicationName);
+
+    List<AuditEventPartition> auditEventPartitions = findAuditEventPartitions(auditEventQuery);
+
+    return querydslSupport.execute((connection, configuration) -> {
+
+      // one more row than the page size tells whether there is a next page
+      int limit = auditEventQuery.pageSize + 1;
+
+      List<StoredAuditEvent> auditEvents = new ArrayList<>();
+      Map<Long, AuditEventPartition> auditEventPartitionByEventId = new HashMap<>();
+      int partitionedAuditEventCount = 0;
+
+      for (AuditEventPartition auditEventPartition : auditEventPartitions) {
+
+        // the partitions follow each other in time, the later ones are needed only if the earlier
+        // ones do not fill the page
+        boolean defaultPartition = auditEventPartition == AuditEventPartition.DEFAULT;
+        if (!defaultPartition && (partitionedAuditEventCount >= limit)) {
+          break;
+        }
+
+        List<StoredAuditEvent> partitionAuditEvents = selectAuditEvents(connection, configuration,
+            auditEventPartition, auditApplication, auditEventQuery, limit);
+
+        for (StoredAuditEvent auditEvent : partitionAuditEvents) {
+          auditEventPartitionByEventId.put(auditEvent.eventId, auditEventPartition);
+        }
+        auditEvents.addAll(partitionAuditEvents);
+        if (!defaultPartition) {
+          partitionedAuditEventCount += partitionAuditEvents.size();
+        }
+      }
+
+      if (auditEventPartitions.size() > 1) {
+        auditEvents.sort(KEYSET_ORDER);
+      }
+
+      boolean hasNextPage = auditEvents.size() > auditEventQuery.pageSize;
+      if (hasNextPage) {
+        auditEvents = auditEvents.subList(0, auditEventQuery.pageSize);
+      }
+
+      Map<AuditEventPartition, List<Long>> eventIdsByPartition = new LinkedHashMap<>();
+      for (StoredAuditEvent auditEvent : auditEvents) {
+        if (auditEvent.eventDataArray.length > 0) {
+          // stored in the compact format
+          continue;
+        }
+        eventIdsByPartition
+            .computeIfAbsent(auditEventPartitionByEventId.get(auditEvent.eventId),
+                key -> new ArrayList<>())
+            .add(auditEvent.eventId);
+      }
+
+      Map<Long, List<StoredEventData>> eventDataByEventId = new HashMap<>();
+      eventIdsByPartition.forEach((auditEventPartition, eventIds) -> {
+        eventDataByEventId.putAll(
+            selectEventData(connection, configuration, auditEventPartition, eventIds));
+      });
+
+      List<StoredAuditEvent> auditEventsWithData = new ArrayList<>(auditEvents.size());
+      for (StoredAuditEvent auditEvent : auditEvents) {
+        List<StoredEventData> eventDataList = eventDataByEventId.get(auditEvent.eventId);
+        auditEventsWithData.add((eventDataList == null)
+            ? auditEvent
+            : new StoredAuditEvent(
+                auditEvent.eventId,
+                auditEvent.eventTypeName,
+                auditEvent.occuredAt,
+                auditEvent.createdAt,
+                toEventDataArray(eventDataList)));
+      }
+
+      AuditEventCursor nextCursor = null;
+      if (hasNextPage) {
+        StoredAuditEvent lastAuditEvent = auditEventsWithData.get(auditEventsWithData.size() - 1);
+        nextCursor = new AuditEventCursor(lastAuditEvent.occuredAt, lastAuditEvent.eventId);
+      }
+
+      return new AuditEventPage(auditEventsWithData, nextCursor);
+    });
+  }
+
+  /**
+   * Selects the first events of a partition in keyset order. Only the data stored in the compact
+   * format are returned, the data rows are selected separately.
+   */
+  private List<StoredAuditEvent> selectAuditEvents(final Connection connection,
+      final Configuration configuration, final AuditEventPartition auditEventPartition,
+      final CachedAuditApplication auditApplication, final AuditEventQuery auditEventQuery,
+      final int limit) {
+
+    QEvent qEvent = auditEventPartition.qEvent;
+    QEventType qEventType = QEventType.eventType;
+
+    List<Tuple> rows = new SQLQuery<Tuple>(connection, configuration)
+        .select(qEvent.eventId, qEvent.occuredAt, qEvent.createdAt, qEventType.eventTypeName,
+            qEvent.eventDataBlob)
+        .from(qEvent)
+        .innerJoin(qEventType).on(qEvent.eventTypeId.eq(qEventType.eventTypeId))
+        .where(createPredicate(qEvent, auditApplication, auditEventQuery))
+        .orderBy(qEvent.occuredAt.asc(), qEvent.eventId.asc())
+        .limit(limit)
+        .fetch();
+
+    List<StoredAuditEvent> rval = new ArrayList<>(rows.size());
+    for (Tuple row : rows) {
+      rval.add(toStoredAuditEvent(auditEventPartition, row, null));
+    }
+    return rval;
+  }
+
+  /**
+   * Selects the data of the given events in pages to keep the number of parameters low.
+   */
+  private Map<Long, List<StoredEventData>> selectEventData(final Connection connection,
+      final Configuration configuration, final AuditEventPartition auditEventPartition,
+      final List<Long> eventIds) {
+
+    QEventData qEventData = auditEventPartition.qEventData;
+
+    Map<Long, List<StoredEventData>> rval = new HashMap<>();
+    int numberOfEventIds = eventIds.size();
+
+    for (int fromIndex = 0; fromIndex < numberOfEventIds; fromIndex = fromIndex
+        + SELECT_EVENT_DATA_PAGE_SIZE) {
+
+      int toIndex = Math.min(fromIndex + SELECT_EVENT_DATA_PAGE_SIZE, numberOfEventIds);
+
+      List<Tuple> rows = new SQLQuery<Tuple>(connection, configuration)
+          .select(qEventData.eventId, qEventData.eventDataName, qEventData.eventDataNameId,
+              qEventData.eventDataType, qEventData.numberValue, qEventData.stringValue,
+              qEventData.textValue, qEventData.timestampValue, qEventData.compressedValue)
+          .from(qEventData)
+          .where(qEventData.eventId.in(new ArrayList<>(eventIds.subList(fromIndex, toIndex))))
+          .orderBy(qEventData.eventId.asc(), qEventData.eventDataId.asc())
+          .fetch();
+
+      for (Tuple row : rows) {
+        rval.computeIfAbsent(row.get(qEventData.eventId), key -> new ArrayList<>())
+            .add(toStoredEventData(qEventData, row));
+      }
+    }
+
+    return rval;
+  }
+
+  private StoredEventData[] toEventDataArray(final List<StoredEventData> eventDataList) {
+    return ((eventDataList == null) || eventDataList.isEmpty())
+        ? EMPTY_EVENT_DATA_ARRAY
+        : eventDataList.toArray(new StoredEventData[eventDataList.size()]);
+  }
+
+  /**
+   * Converts an event row of a partition joined with the event type name. The data stored in the
+   * compact format are decoded, otherwise the given data rows are used.
+   */
+  private StoredAuditEvent toStoredAuditEvent(final AuditEventPartition auditEventPartition,
+      final Tuple row, final List<StoredEventData> eventDataList) {
+
+    QEvent qEvent = auditEventPartition.qEvent;
+
+    byte[] eventDataBlob = row.get(qEvent.eventDataBlob);
+
+    return new StoredAuditEvent(
+        row.get(qEvent.eventId),
+        row.get(QEventType.eventType.eventTypeName),
+        row.get(qEvent.occuredAt).toInstant(),
+        row.get(qEvent.createdAt).toInstant(),
+        (eventDataBlob == null)
+            ? toEventDataArray(eventDataList)
+            : AuditEventDataCodec.decode(eventDataBlob));
+  }
+
+  /**
+   * Converts an event data row selected with all value columns.
+   */
+  StoredEventData toStoredEventData(final QEventData qEventData, final Tuple row) {
+
+    String storedEventDataType = row.get(qEventData.eventDataType);
+    EventDataType eventDataType;
+    String textValue;
+    if (AuditTextCompressor.TEXT_DEFLATE_EVENT_DATA_TYPE.equals(storedEventDataType)) {
+      eventDataType = EventDataType.TEXT;
+      textValue = AuditTextCompressor.inflate(row.get(qEventData.compressedValue));
+    } else {
+      eventDataType = EventDataType.valueOf(storedEventDataType);
+      textValue = (eventDataType == EventDataType.STRING)
+          ? row.get(qEventData.stringValue)
+          : row.get(qEventData.textValue);
+    }
+    Timestamp timestampValue = row.get(qEventData.timestampValue);
+
+    // the rows written before the name dictionary hold the name itself
+    String eventDataName = row.get(qEventData.eventDataName);
+    if (eventDataName == null) {
+      eventDataName = internalAuditService.getEventDataName(row.get(qEventData.eventDataNameId));
+    }
+
+    return new StoredEventData(
+        eventDataName,
+        eventDataType,
+        row.get(qEventData.numberValue),
+        textValue,
+        (timestampValue == null) ? null : timestampValue.toInstant());
+  }
+
+  /**
+   * Assembles the events from the rows in keyset order, the rows of an event follow each other.
+   * Only the data of the current event is held in memory.
+   *
+   * @return <code>false</code> if the visitor stopped the export
+   */
+  private boolean visitRows(final AuditEventPartition auditEventPartition,
+      final CloseableIterator<Tuple> iterator, final StoredAuditEventVisitor visitor) {
+
+    QEvent qEvent = auditEventPartition.qEvent;
+    QEventData qEventData = auditEventPartition.qEventData;
+
+    Tuple eventRow = null;
+    List<StoredEventData> eventDataList = new ArrayList<>();
+
+    while (iterator.hasNext()) {
+
+      Tuple row = iterator.next();
+
+      if ((eventRow == null) || !eventRow.get(qEvent.eventId).equals(row.get(qEvent.eventId))) {
+        if ((eventRow != null)
+            && !visitor.visit(toStoredAuditEvent(auditEventPartition, eventRow, eventDataList))) {
+          return false;
+        }
+        eventRow = row;
+        eventDataList.clear();
+      }
+
+      // the left join returns one row with null data columns for the events without data
+      if (row.get(qEventData.eventDataType) != null) {
+        eventDataList.add(toStoredEventData(qEventData, row));
+      }
+    }
+
+    if (eventRow != null) {
+      return visitor.visit(toStoredAuditEvent(auditEventPartition, eventRow, eventDataList));
+    }
+    return true;
+  }
+}
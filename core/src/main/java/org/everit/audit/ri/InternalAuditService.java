@@ -15,26 +15,49 @@
  */
 package org.everit.audit.ri;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.everit.audit.dto.AuditEvent;
 import org.everit.audit.dto.AuditEventType;
 import org.everit.audit.dto.EventData;
+import org.everit.audit.dto.EventDataType;
 import org.everit.audit.ri.authorization.AuditRiAuthorizationManager;
 import org.everit.audit.ri.authorization.AuditRiPermissionChecker;
 import org.everit.audit.ri.authorization.AuditRiPermissionConstants;
 import org.everit.audit.ri.dto.AuditApplication;
+import org.everit.audit.ri.dto.StreamedEventData;
+import org.everit.audit.ri.metrics.AuditCounter;
+import org.everit.audit.ri.metrics.AuditMetrics;
+import org.everit.audit.ri.metrics.AuditTimer;
 import org.everit.audit.ri.props.AuditRiPropertyConstants;
 import org.everit.audit.ri.schema.qdsl.QApplication;
 import org.everit.audit.ri.schema.qdsl.QEvent;
 import org.everit.audit.ri.schema.qdsl.QEventData;
 import org.everit.audit.ri.schema.qdsl.QEventType;
+import org.everit.authentication.context.AuthenticationContext;
 import org.everit.authnr.permissionchecker.AuthnrPermissionChecker;
 import org.everit.authorization.AuthorizationManager;
 import org.everit.persistence.querydsl.support.QuerydslSupport;
@@ -43,8 +66,18 @@ import org.everit.resource.ResourceService;
 import org.everit.resource.ri.schema.qdsl.QResource;
 import org.everit.transaction.propagator.TransactionPropagator;
 
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLExpressions;
 import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.StatementOptions;
 import com.querydsl.sql.dml.SQLInsertClause;
 
 /**
@@ -52,39 +85,177 @@ import com.querydsl.sql.dml.SQLInsertClause;
  */
 public class InternalAuditService implements
     AuditApplicationManager,
+    AuditCacheManager,
     InternalAuditEventTypeManager,
     InternalLoggingService,
+    InternalStreamingLoggingService,
     AuditRiAuthorizationManager,
-    AuditRiPermissionChecker {
+    AuditRiPermissionChecker,
+    AutoCloseable {
+
+  /**
+   * Applies the cache invalidations received from the other nodes.
+   */
+  private class CacheInvalidationListener implements AuditCacheInvalidationListener {
+
+    @Override
+    public void allInvalidated() {
+      evictAll();
+    }
+
+    @Override
+    public void auditApplicationInvalidated(final String applicationName) {
+      evictAuditApplication(applicationName);
+    }
+
+    @Override
+    public void auditEventTypesInvalidated(final long applicationId) {
+      auditEventTypeRegistry.invalidateEventTypes(applicationId);
+    }
+  }
+
+  /**
+   * Identifies an event type under creation.
+   */
+  private static final class EventTypeKey {
+
+    private final long applicationId;
+
+    private final String eventTypeName;
+
+    EventTypeKey(final long applicationId, final String eventTypeName) {
+      this.applicationId = applicationId;
+      this.eventTypeName = eventTypeName;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof EventTypeKey)) {
+        return false;
+      }
+      EventTypeKey other = (EventTypeKey) obj;
+      return (applicationId == other.applicationId) && eventTypeName.equals(other.eventTypeName);
+    }
+
+    @Override
+    public int hashCode() {
+      return (31 * Long.hashCode(applicationId)) + eventTypeName.hashCode();
+    }
+  }
+
+  private static final int INSERT_AUDIT_EVENTS_BATCH_SIZE = 500;
+
+  /**
+   * The number of cached unknown application names above which the expired ones are removed.
+   */
+  private static final int PURGE_UNKNOWN_AUDIT_APPLICATIONS_THRESHOLD = 10000;
 
   private static final int SELECT_AUDIT_EVENT_TYPES_PAGE_SIZE = 50;
 
-  private final Map<String, AuditApplication> auditApplicationCache;
+  private static final int WARM_UP_FETCH_SIZE = 1000;
+
+  private static final String WARM_UP_THREAD_NAME = "audit-cache-warm-up";
+
+  private final Map<String, CachedAuditApplication> auditApplicationCache;
+
+  /**
+   * The audit applications being selected by a thread of this JVM, the other threads asking for
+   * the same application wait for the result instead of selecting it again.
+   */
+  private final ConcurrentMap<String, CompletableFuture<CachedAuditApplication>>
+      auditApplicationLoads = new ConcurrentHashMap<>();
 
   private final long auditApplicationTypeTargetResourceId;
 
-  private final Map<CachedEventTypeKey, AuditEventType> auditEventTypeCache;
+  private final AuditEventTypeRegistry auditEventTypeRegistry;
+
+  private final AuthenticationContext authenticationContext;
 
   private final AuthnrPermissionChecker authnrPermissionChecker;
 
   private final AuthorizationManager authorizationManager;
 
+  private final AuditCacheInvalidationBus cacheInvalidationBus;
+
+  /**
+   * The listener registered on the {@link #cacheInvalidationBus}, <code>null</code> if there is no
+   * bus.
+   */
+  private final CacheInvalidationListener cacheInvalidationListener;
+
+  private final AuditEventDataFormat eventDataFormat;
+
+  private final AuditEventDataNameDictionary eventDataNameDictionary;
+
+  private final IdBlockAllocator eventIdAllocator;
+
+  private final AuditEventPartitionManager eventPartitionManager;
+
+  /**
+   * The event types being created by a thread of this JVM, the other threads asking for the same
+   * event type wait for the creation instead of inserting it again.
+   */
+  private final ConcurrentMap<EventTypeKey, CompletableFuture<CachedAuditEventType>>
+      eventTypeCreations = new ConcurrentHashMap<>();
+
+  /**
+   * The maximum number of cached {@link AuditRiPermissionConstants#LOG_TO_AUDIT_APPLICATION}
+   * permissions per audit application, <code>0</code> if the permission decisions are not cached.
+   */
+  private final int logPermissionCacheSize;
+
+  private final long logPermissionCacheTtlNanos;
+
+  private final AuditMetrics metrics;
+
   private final QuerydslSupport querydslSupport;
 
+  private final int textCompressionThreshold;
+
   private final ResourceService resourceService;
 
   private final TransactionPropagator transactionPropagator;
 
+  private final long unknownAuditApplicationTtlNanos;
+
   /**
-   * Constructor.
+   * The names of the applications that did not exist mapped to the {@link System#nanoTime()} the
+   * negative result expires at.
+   */
+  private final ConcurrentMap<String, Long> unknownAuditApplications = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor with the default {@link AuditConfiguration}.
    */
   public InternalAuditService(
-      final Map<String, AuditApplication> auditApplicationCache,
-      final Map<CachedEventTypeKey, AuditEventType> auditEventTypeCache,
+      final Map<String, CachedAuditApplication> auditApplicationCache,
+      final AuditEventTypeRegistry auditEventTypeRegistry,
       final AuditRequiredServices auditRequiredServices) {
+    this(auditApplicationCache, auditEventTypeRegistry, auditRequiredServices,
+        new AuditConfiguration.Builder().build());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param auditApplicationCache
+   *          the thread-safe cache of the audit applications mapped by their names
+   * @param auditEventTypeRegistry
+   *          the cache of the event types of the audit applications
+   */
+  public InternalAuditService(
+      final Map<String, CachedAuditApplication> auditApplicationCache,
+      final AuditEventTypeRegistry auditEventTypeRegistry,
+      final AuditRequiredServices auditRequiredServices,
+      final AuditConfiguration auditConfiguration) {
     super();
+    Objects.requireNonNull(auditConfiguration, "auditConfiguration cannot be null");
     this.auditApplicationCache = auditApplicationCache;
-    this.auditEventTypeCache = auditEventTypeCache;
+    this.auditEventTypeRegistry = auditEventTypeRegistry;
+    authenticationContext = auditRequiredServices.authenticationContext;
     authnrPermissionChecker = auditRequiredServices.authnrPermissionChecker;
     authorizationManager = auditRequiredServices.authorizationManager;
     querydslSupport = auditRequiredServices.querydslSupport;
@@ -92,26 +263,75 @@ public class InternalAuditService implements
     transactionPropagator = auditRequiredServices.transactionPropagator;
     auditApplicationTypeTargetResourceId = initAuditApplicationTypeTargetResourceId(
         auditRequiredServices.propertyManager);
+    eventIdAllocator = new IdBlockAllocator(QEvent.event.getTableName(), this::getEventIdPaths,
+        auditConfiguration.eventIdBlockSize, querydslSupport, transactionPropagator);
+    eventDataFormat = auditConfiguration.eventDataFormat;
+    eventDataNameDictionary =
+        new AuditEventDataNameDictionary(querydslSupport, transactionPropagator);
+    eventPartitionManager = auditConfiguration.eventPartitionManager;
+    textCompressionThreshold = auditConfiguration.textCompressionThreshold;
+    metrics = auditConfiguration.metrics;
+    logPermissionCacheSize = (authenticationContext != null)
+        ? auditConfiguration.permissionCacheSize
+        : 0;
+    logPermissionCacheTtlNanos =
+        TimeUnit.MILLISECONDS.toNanos(auditConfiguration.permissionCacheTtlMillis);
+    unknownAuditApplicationTtlNanos = TimeUnit.MILLISECONDS.toNanos(
+        auditConfiguration.unknownAuditApplicationTtlMillis);
+    cacheInvalidationBus = auditConfiguration.cacheInvalidationBus;
+    if (cacheInvalidationBus != null) {
+      cacheInvalidationListener = new CacheInvalidationListener();
+      cacheInvalidationBus.addListener(cacheInvalidationListener);
+    } else {
+      cacheInvalidationListener = null;
+    }
+    startWarmUp(auditConfiguration);
   }
 
+  /**
+   * Sets the type and all value columns so every row of an event data batch has the same SQL
+   * statement. The text values reaching the compression threshold are compressed if that makes
+   * them smaller.
+   */
   private void addEventDataValue(
       final SQLInsertClause insert, final QEventData qEventData, final EventData eventData) {
+    String eventDataType = eventData.eventDataType.toString();
+    Double numberValue = null;
+    String stringValue = null;
+    String textValue = null;
+    Timestamp timestampValue = null;
+    byte[] compressedValue = null;
     switch (eventData.eventDataType) {
       case NUMBER:
-        insert.set(qEventData.numberValue, eventData.numberValue);
+        numberValue = eventData.numberValue;
         break;
       case STRING:
-        insert.set(qEventData.stringValue, eventData.textValue);
+        stringValue = eventData.textValue;
         break;
       case TEXT:
-        insert.set(qEventData.textValue, eventData.textValue);
+        if ((textCompressionThreshold > 0) && (eventData.textValue != null)
+            && (eventData.textValue.length() >= textCompressionThreshold)) {
+          compressedValue = AuditTextCompressor.deflate(eventData.textValue);
+        }
+        if (compressedValue != null) {
+          eventDataType = AuditTextCompressor.TEXT_DEFLATE_EVENT_DATA_TYPE;
+        } else {
+          textValue = eventData.textValue;
+        }
         break;
       case TIMESTAMP:
-        insert.set(qEventData.timestampValue, Timestamp.from(eventData.timestampValue));
+        timestampValue = Timestamp.from(eventData.timestampValue);
         break;
       default:
         throw new UnsupportedOperationException("[" + eventData.eventDataType + "] not supported");
     }
+    insert
+        .set(qEventData.eventDataType, eventDataType)
+        .set(qEventData.numberValue, numberValue)
+        .set(qEventData.stringValue, stringValue)
+        .set(qEventData.textValue, textValue)
+        .set(qEventData.timestampValue, timestampValue)
+        .set(qEventData.compressedValue, compressedValue);
   }
 
   @Override
@@ -124,115 +344,318 @@ public class InternalAuditService implements
   @Override
   public void addPermissionToLogToAuditApplication(final long authorizedResourceId,
       final String applicationName) {
-    AuditApplication auditApplication = requireAuditApplication(applicationName);
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
+    changeLogPermission(auditApplication, () -> authorizationManager.addPermission(
+        authorizedResourceId, auditApplication.resourceId,
+        AuditRiPermissionConstants.LOG_TO_AUDIT_APPLICATION));
+  }
+
+  @Override
+  public void addPermissionToReadAuditApplication(final long authorizedResourceId,
+      final String applicationName) {
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
     authorizationManager.addPermission(
         authorizedResourceId, auditApplication.resourceId,
-        AuditRiPermissionConstants.LOG_TO_AUDIT_APPLICATION);
+        AuditRiPermissionConstants.READ_AUDIT_APPLICATION);
   }
 
-  private void cacheAuditApplication(final AuditApplication auditApplication) {
-    auditApplicationCache.put(auditApplication.applicationName, new AuditApplication(
-        auditApplication));
+  private CachedAuditApplication cacheAuditApplication(final AuditApplication auditApplication) {
+    CachedAuditApplication cachedAuditApplication = new CachedAuditApplication(auditApplication,
+        auditEventTypeRegistry.getEventTypes(auditApplication.applicationId),
+        (logPermissionCacheSize > 0)
+            ? new CachedLogPermissions(logPermissionCacheSize, logPermissionCacheTtlNanos)
+            : null);
+    auditApplicationCache.put(cachedAuditApplication.applicationName, cachedAuditApplication);
+    return cachedAuditApplication;
   }
 
-  private void cacheAuditEventType(final long applicationId, final AuditEventType auditEventType) {
-    auditEventTypeCache.put(
-        new CachedEventTypeKey(applicationId, auditEventType.eventTypeName),
-        new AuditEventType(auditEventType));
+  private void cacheAuditEventType(final CachedAuditApplication auditApplication,
+      final CachedAuditEventType auditEventType) {
+    auditApplication.eventTypes.put(auditEventType.eventTypeName, auditEventType);
   }
 
-  private void cacheAuditEventTypes(final long applicationId,
-      final List<AuditEventType> auditEventTypes) {
-    for (AuditEventType auditEventType : auditEventTypes) {
-      cacheAuditEventType(applicationId, auditEventType);
+  /**
+   * Changes a log permission in the transaction of the caller. The cached log permissions of the
+   * application are evicted before and after the change, so a check running concurrently with the
+   * change cannot cache the permission it read before the change. If the caller commits the change
+   * in its own transaction later, a check between the change and the commit may still cache the
+   * old decision until {@link AuditConfiguration#permissionCacheTtlMillis}.
+   */
+  private void changeLogPermission(final CachedAuditApplication auditApplication,
+      final Runnable permissionChange) {
+    evictLogPermissions(auditApplication);
+    try {
+      permissionChange.run();
+    } finally {
+      evictLogPermissions(auditApplication);
     }
   }
 
-  private void checkPermissionToInitAuditApplication() {
-    authnrPermissionChecker.checkPermission(auditApplicationTypeTargetResourceId,
-        AuditRiPermissionConstants.INIT_AUDIT_APPLICATION);
+  private void checkPermission(final long targetResourceId, final String action) {
+    long startNanos = System.nanoTime();
+    try {
+      authnrPermissionChecker.checkPermission(targetResourceId, action);
+    } finally {
+      recordElapsedNanos(AuditTimer.PERMISSION_CHECK, startNanos);
+    }
   }
 
-  private void checkPermissionToLogToAuditApplication(final long auditApplicationResourceId) {
-    authnrPermissionChecker.checkPermission(
-        auditApplicationResourceId, AuditRiPermissionConstants.LOG_TO_AUDIT_APPLICATION);
+  private void checkPermissionToInitAuditApplication() {
+    checkPermission(auditApplicationTypeTargetResourceId,
+        AuditRiPermissionConstants.INIT_AUDIT_APPLICATION);
   }
 
-  private AuditApplication getAuditApplication(final String applicationName) {
-
-    AuditApplication cachedAuditApplication = auditApplicationCache.get(applicationName);
-    if (cachedAuditApplication != null) {
-      return new AuditApplication(cachedAuditApplication);
+  /**
+   * Checks the permission with the cached log permissions of the application. Only the granted
+   * permissions are cached, so a denied call is always evaluated again.
+   */
+  private void checkPermissionToLogToAuditApplication(
+      final CachedAuditApplication auditApplication) {
+    CachedLogPermissions logPermissions = auditApplication.logPermissions;
+    if (logPermissions == null) {
+      checkPermission(
+          auditApplication.resourceId, AuditRiPermissionConstants.LOG_TO_AUDIT_APPLICATION);
+      return;
     }
 
-    AuditApplication auditApplication = selectAuditApplication(applicationName);
-
-    if (auditApplication != null) {
-      cacheAuditApplication(auditApplication);
+    long authenticatedResourceId = authenticationContext.getCurrentResourceId();
+    if (logPermissions.isGranted(authenticatedResourceId)) {
+      metrics.increment(AuditCounter.PERMISSION_CACHE_HIT, 1);
+      return;
     }
+    metrics.increment(AuditCounter.PERMISSION_CACHE_MISS, 1);
 
-    return auditApplication;
+    long generation = logPermissions.getGeneration();
+    checkPermission(
+        auditApplication.resourceId, AuditRiPermissionConstants.LOG_TO_AUDIT_APPLICATION);
+    logPermissions.grant(authenticatedResourceId, generation);
   }
 
+  private void checkPermissionToReadAuditApplication(final long auditApplicationResourceId) {
+    checkPermission(
+        auditApplicationResourceId, AuditRiPermissionConstants.READ_AUDIT_APPLICATION);
+  }
+
+  /**
+   * Stops receiving the cache invalidations of the other nodes.
+   */
   @Override
-  public long getAuditApplicationTypeTargetResourceId() {
-    return auditApplicationTypeTargetResourceId;
+  public void close() {
+    if (cacheInvalidationListener != null) {
+      cacheInvalidationBus.removeListener(cacheInvalidationListener);
+    }
   }
 
-  private List<String> getNonCachedAuditEventTypeNames(final long applicationId,
-      final List<String> eventTypeNames) {
+  /**
+   * Inserts the event type in a separate transaction and caches it. The concurrent creation of the
+   * same event type by another node is rejected by the
+   * <code>unique_application_id_event_type_name</code> constraint, in that case the event type
+   * inserted by the other node is selected.
+   */
+  private CachedAuditEventType createAuditEventType(
+      final CachedAuditApplication auditApplication, final String eventTypeName) {
+
+    CachedAuditEventType auditEventType;
+    try {
+      auditEventType = transactionPropagator.requiresNew(
+          () -> insertAuditEventType(auditApplication, eventTypeName));
+    } catch (RuntimeException e) {
+      // a new transaction, so the row committed by the other node is visible on every isolation
+      // level
+      auditEventType = transactionPropagator.requiresNew(
+          () -> selectAuditEventType(auditApplication, eventTypeName));
+      if (auditEventType == null) {
+        throw e;
+      }
+    }
 
-    List<String> rval = new ArrayList<>();
+    cacheAuditEventType(auditApplication, auditEventType);
+    return auditEventType;
+  }
 
-    for (String eventTypeName : eventTypeNames) {
+  /**
+   * Inserts the event types in one batch in a separate transaction and caches them. If the batch
+   * fails, because another node inserted some of the event types concurrently, the event types
+   * are created one by one with {@link #createAuditEventType(CachedAuditApplication, String)}.
+   *
+   * @return the created event types mapped by their names
+   */
+  private Map<String, CachedAuditEventType> createAuditEventTypes(
+      final CachedAuditApplication auditApplication, final List<String> eventTypeNames) {
 
-      AuditEventType cachedAuditEventType = auditEventTypeCache.get(
-          new CachedEventTypeKey(applicationId, eventTypeName));
+    if (eventTypeNames.size() == 1) {
+      String eventTypeName = eventTypeNames.get(0);
+      return Collections.singletonMap(eventTypeName,
+          createAuditEventType(auditApplication, eventTypeName));
+    }
 
-      if (cachedAuditEventType == null) {
-        rval.add(eventTypeName);
+    Map<String, CachedAuditEventType> rval = new HashMap<>();
+    try {
+      List<CachedAuditEventType> auditEventTypes = transactionPropagator.requiresNew(
+          () -> insertAuditEventTypes(auditApplication, eventTypeNames));
+      for (CachedAuditEventType auditEventType : auditEventTypes) {
+        cacheAuditEventType(auditApplication, auditEventType);
+        rval.put(auditEventType.eventTypeName, auditEventType);
+      }
+    } catch (RuntimeException e) {
+      for (String eventTypeName : eventTypeNames) {
+        rval.put(eventTypeName, createAuditEventType(auditApplication, eventTypeName));
       }
+    }
+    return rval;
+  }
 
+  /**
+   * Returns the value of the <code>event_data_blob</code> column, <code>null</code> if the data
+   * are stored in rows or the event has no data.
+   */
+  private byte[] encodeEventDataBlob(final AuditEvent auditEvent) {
+    if ((eventDataFormat != AuditEventDataFormat.COMPACT)
+        || (auditEvent.eventDataArray.length == 0)) {
+      return null;
     }
+    return AuditEventDataCodec.encode(auditEvent.eventDataArray);
+  }
+
+  private void evictAll() {
+    auditApplicationCache.clear();
+    unknownAuditApplications.clear();
+    auditEventTypeRegistry.invalidateAll();
+  }
 
+  private void evictAuditApplication(final String applicationName) {
+    unknownAuditApplications.remove(applicationName);
+    CachedAuditApplication cachedAuditApplication = auditApplicationCache.remove(applicationName);
+    if (cachedAuditApplication != null) {
+      auditEventTypeRegistry.removeEventTypes(cachedAuditApplication.applicationId);
+    }
+  }
+
+  /**
+   * Removes the cached log permissions of every authenticated resource on the audit application,
+   * the changed permission may be inherited by more resources than the authorized one.
+   */
+  private void evictLogPermissions(final CachedAuditApplication auditApplication) {
+    if (auditApplication.logPermissions != null) {
+      auditApplication.logPermissions.evictAll();
+    }
+  }
+
+  /**
+   * Returns the tables that may hold events occured in the given range, the default tables first,
+   * then the partitions ordered by their periods.
+   *
+   * @param from
+   *          the inclusive start of the range, <code>null</code> if unbounded
+   * @param to
+   *          the exclusive end of the range, <code>null</code> if unbounded
+   */
+  List<AuditEventPartition> findAuditEventPartitions(final Instant from, final Instant to) {
+    List<AuditEventPartition> rval = new ArrayList<>();
+    rval.add(AuditEventPartition.DEFAULT);
+    if (eventPartitionManager != null) {
+      rval.addAll(eventPartitionManager.findPartitions(from, to));
+    }
     return rval;
   }
 
-  private List<String> getNonCachedAuditEventTypeNames(final long applicationId,
-      final String[] eventTypeNames) {
+  private CachedAuditApplication getAuditApplication(final String applicationName) {
 
-    List<String> rval = new ArrayList<>();
+    CachedAuditApplication cachedAuditApplication = auditApplicationCache.get(applicationName);
+    if (cachedAuditApplication != null) {
+      metrics.increment(AuditCounter.APPLICATION_CACHE_HIT, 1);
+      return cachedAuditApplication;
+    }
+    metrics.increment(AuditCounter.APPLICATION_CACHE_MISS, 1);
 
-    for (String eventTypeName : eventTypeNames) {
+    if (isUnknownAuditApplication(applicationName)) {
+      return null;
+    }
 
-      AuditEventType cachedAuditEventType = auditEventTypeCache.get(
-          new CachedEventTypeKey(applicationId, eventTypeName));
+    CompletableFuture<CachedAuditApplication> load = new CompletableFuture<>();
 
-      if (cachedAuditEventType == null) {
-        rval.add(eventTypeName);
-      }
+    CompletableFuture<CachedAuditApplication> runningLoad =
+        auditApplicationLoads.putIfAbsent(applicationName, load);
+    if (runningLoad != null) {
+      return join(runningLoad);
+    }
 
+    try {
+      cachedAuditApplication = loadAuditApplication(applicationName);
+      load.complete(cachedAuditApplication);
+      return cachedAuditApplication;
+    } catch (RuntimeException e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      auditApplicationLoads.remove(applicationName, load);
     }
+  }
 
-    return rval;
+  @Override
+  public long getAuditApplicationTypeTargetResourceId() {
+    return auditApplicationTypeTargetResourceId;
   }
 
-  private List<String> getNonExistentAuditEventTypeNames(final AuditApplication auditApplication,
-      final List<String> nonCachedAuditEventTypeNames) {
+  /**
+   * Returns the name of an event data name key.
+   */
+  String getEventDataName(final int eventDataNameId) {
+    return eventDataNameDictionary.getName(eventDataNameId);
+  }
 
-    List<AuditEventType> selectedAuditEventTypes = selectAuditEventTypes(
-        auditApplication.applicationName,
-        nonCachedAuditEventTypeNames);
+  /**
+   * Returns the receiver of the metrics of the audit implementation.
+   */
+  AuditMetrics getMetrics() {
+    return metrics;
+  }
 
-    cacheAuditEventTypes(auditApplication.applicationId, selectedAuditEventTypes);
+  /**
+   * Returns the keys of the event data names of the events, the missing names are inserted in their
+   * own transactions. No key is needed if the data are stored in the compact format. Must be called
+   * before the transaction of the events is opened, so a missing name does not occupy a second
+   * connection while the first one is held.
+   */
+  private Map<String, Integer> getEventDataNameIds(final Collection<AuditEvent> auditEvents) {
+    if (eventDataFormat == AuditEventDataFormat.COMPACT) {
+      return Collections.emptyMap();
+    }
+    Set<String> eventDataNames = new LinkedHashSet<>();
+    for (AuditEvent auditEvent : auditEvents) {
+      for (EventData eventData : auditEvent.eventDataArray) {
+        eventDataNames.add(eventData.eventDataName);
+      }
+    }
+    if (eventDataNames.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return eventDataNameDictionary.getIds(eventDataNames);
+  }
 
-    return getNonCachedAuditEventTypeNames(auditApplication.applicationId,
-        nonCachedAuditEventTypeNames);
+  /**
+   * Returns the event identifier columns of the default and of every partition table.
+   */
+  private List<NumberPath<Long>> getEventIdPaths() {
+    List<NumberPath<Long>> rval = new ArrayList<>();
+    for (AuditEventPartition auditEventPartition : findAuditEventPartitions(null, null)) {
+      rval.add(auditEventPartition.qEvent.eventId);
+    }
+    return rval;
+  }
+
+  private boolean hasPermission(final long targetResourceId, final String action) {
+    long startNanos = System.nanoTime();
+    try {
+      return authnrPermissionChecker.hasPermission(targetResourceId, action);
+    } finally {
+      recordElapsedNanos(AuditTimer.PERMISSION_CHECK, startNanos);
+    }
   }
 
   @Override
   public boolean hasPermissionToInitAuditApplication() {
-    return authnrPermissionChecker.hasPermission(auditApplicationTypeTargetResourceId,
+    return hasPermission(auditApplicationTypeTargetResourceId,
         AuditRiPermissionConstants.INIT_AUDIT_APPLICATION);
   }
 
@@ -241,12 +664,23 @@ public class InternalAuditService implements
 
     Objects.requireNonNull(applicationName, "applicationName cannot be null");
 
-    AuditApplication auditApplication = requireAuditApplication(applicationName);
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
 
-    return authnrPermissionChecker.hasPermission(
+    return hasPermission(
         auditApplication.resourceId, AuditRiPermissionConstants.LOG_TO_AUDIT_APPLICATION);
   }
 
+  @Override
+  public boolean hasPermissionToReadAuditApplication(final String applicationName) {
+
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
+
+    return hasPermission(
+        auditApplication.resourceId, AuditRiPermissionConstants.READ_AUDIT_APPLICATION);
+  }
+
   @Override
   public void initAuditApplication(final String applicationName) {
 
@@ -258,20 +692,32 @@ public class InternalAuditService implements
       return;
     }
 
-    transactionPropagator.required(() -> {
+    boolean inserted = transactionPropagator.required(() -> {
 
       lockAuditApplicationTypeTargetResourceId();
 
-      if (getAuditApplication(applicationName) != null) {
-        return null;
+      // the negative cache and the running loads are bypassed, the row may have been inserted
+      // since they were filled
+      if (auditApplicationCache.containsKey(applicationName)) {
+        return false;
       }
 
-      AuditApplication auditApplication = insertAuditApplication(applicationName);
+      AuditApplication auditApplication = selectAuditApplication(applicationName);
+      boolean rval = auditApplication == null;
+      if (rval) {
+        auditApplication = insertAuditApplication(applicationName);
+      }
 
       cacheAuditApplication(auditApplication);
 
-      return null;
+      return rval;
     });
+
+    unknownAuditApplications.remove(applicationName);
+    if (inserted && (cacheInvalidationBus != null)) {
+      // removes the negative cache entries of the other nodes
+      cacheInvalidationBus.publishAuditApplicationInvalidation(applicationName);
+    }
   }
 
   /**
@@ -304,110 +750,160 @@ public class InternalAuditService implements
     });
   }
 
-  private AuditEventType initAuditEventType(final AuditApplication auditApplication,
+  /**
+   * Creates the missing partitions of the events. Must be called before the transaction of the
+   * events is opened, as a partition is created in a separate transaction.
+   */
+  private void initAuditEventPartitions(final Collection<AuditEvent> auditEvents) {
+    if (eventPartitionManager == null) {
+      return;
+    }
+    for (AuditEvent auditEvent : auditEvents) {
+      eventPartitionManager.getPartition(auditEvent.occuredAt);
+    }
+  }
+
+  private CachedAuditEventType initAuditEventType(final CachedAuditApplication auditApplication,
       final String eventTypeName) {
 
-    AuditEventType auditEventType = auditEventTypeCache
-        .get(new CachedEventTypeKey(auditApplication.applicationId, eventTypeName));
+    CachedAuditEventType auditEventType = auditApplication.eventTypes.get(eventTypeName);
 
     if (auditEventType != null) {
+      metrics.increment(AuditCounter.EVENT_TYPE_CACHE_HIT, 1);
       return auditEventType;
     }
 
-    initAuditEventTypes(auditApplication.applicationName, eventTypeName);
-
-    return auditEventTypeCache
-        .get(new CachedEventTypeKey(auditApplication.applicationId, eventTypeName));
-
+    return initAuditEventTypes(auditApplication, eventTypeName).get(eventTypeName);
   }
 
-  @Override
-  public void initAuditEventTypes(final String applicationName, final String... eventTypeNames) {
-
-    Objects.requireNonNull(applicationName, "applicationName cannot be null");
-    Objects.requireNonNull(eventTypeNames, "eventTypeNames cannot be null");
-    requireNotContainsNull(eventTypeNames);
+  /**
+   * Initializes the event types of the given audit events with one
+   * {@link #initAuditEventTypes(CachedAuditApplication, String...)} call.
+   *
+   * @return the event types mapped by their names
+   */
+  private Map<String, CachedAuditEventType> initAuditEventTypes(
+      final CachedAuditApplication auditApplication, final Collection<AuditEvent> auditEvents) {
 
-    if (eventTypeNames.length == 0) {
-      return;
+    Set<String> eventTypeNames = new LinkedHashSet<>();
+    for (AuditEvent auditEvent : auditEvents) {
+      eventTypeNames.add(auditEvent.eventTypeName);
     }
 
-    AuditApplication auditApplication = requireAuditApplication(applicationName);
+    return initAuditEventTypes(auditApplication,
+        eventTypeNames.toArray(new String[eventTypeNames.size()]));
+  }
+
+  /**
+   * Selects the event types that are not cached and creates the missing ones in their own
+   * transactions. Must be called before the transaction of the events is opened, so neither the
+   * creation nor the wait for the creation of another thread holds a connection meanwhile.
+   *
+   * @return the cached, selected and created event types mapped by their names, so the caller
+   *         does not depend on the cache that may have evicted them meanwhile
+   */
+  private Map<String, CachedAuditEventType> initAuditEventTypes(
+      final CachedAuditApplication auditApplication, final String... eventTypeNames) {
 
-    checkPermissionToLogToAuditApplication(auditApplication.resourceId);
+    Map<String, CachedAuditEventType> rval = new HashMap<>();
 
     // check cache
-    List<String> nonCachedAuditEventTypeNames =
-        getNonCachedAuditEventTypeNames(auditApplication.applicationId, eventTypeNames);
+    List<String> nonCachedAuditEventTypeNames = new ArrayList<>();
+    for (String eventTypeName : eventTypeNames) {
+      CachedAuditEventType auditEventType = auditApplication.eventTypes.get(eventTypeName);
+      if (auditEventType != null) {
+        metrics.increment(AuditCounter.EVENT_TYPE_CACHE_HIT, 1);
+        rval.put(eventTypeName, auditEventType);
+      } else if (!nonCachedAuditEventTypeNames.contains(eventTypeName)) {
+        metrics.increment(AuditCounter.EVENT_TYPE_CACHE_MISS, 1);
+        nonCachedAuditEventTypeNames.add(eventTypeName);
+      }
+    }
 
     if (nonCachedAuditEventTypeNames.isEmpty()) {
-      return;
+      return rval;
     }
 
     // select db and cache existent values
-    List<String> nonExistentEventTypeNames =
-        getNonExistentAuditEventTypeNames(auditApplication, nonCachedAuditEventTypeNames);
+    List<String> nonExistentEventTypeNames = new ArrayList<>(nonCachedAuditEventTypeNames);
+    for (AuditEventType selectedAuditEventType : selectAuditEventTypes(
+        auditApplication.applicationName, nonCachedAuditEventTypeNames)) {
+
+      CachedAuditEventType auditEventType = new CachedAuditEventType(selectedAuditEventType);
+      cacheAuditEventType(auditApplication, auditEventType);
+      rval.put(auditEventType.eventTypeName, auditEventType);
+      nonExistentEventTypeNames.remove(auditEventType.eventTypeName);
+    }
 
     if (nonExistentEventTypeNames.isEmpty()) {
-      return;
+      return rval;
     }
 
-    transactionPropagator.required(() -> {
+    // the creations started by other threads are awaited only after the own ones are finished, so
+    // two threads never wait for each other
+    List<CompletableFuture<CachedAuditEventType>> awaitedCreations = new ArrayList<>();
+    Map<EventTypeKey, CompletableFuture<CachedAuditEventType>> ownCreations =
+        new LinkedHashMap<>();
 
-      lockAuditApplication(auditApplication.applicationId);
+    for (String eventTypeName : nonExistentEventTypeNames) {
 
-      // double check cache
-      List<String> nonCachedAuditEventTypeNames2 =
-          getNonCachedAuditEventTypeNames(auditApplication.applicationId, eventTypeNames);
+      EventTypeKey key =
+          new EventTypeKey(auditApplication.applicationId, eventTypeName);
+      CompletableFuture<CachedAuditEventType> creation = new CompletableFuture<>();
 
-      if (nonCachedAuditEventTypeNames2.isEmpty()) {
-        return null;
+      CompletableFuture<CachedAuditEventType> runningCreation =
+          eventTypeCreations.putIfAbsent(key, creation);
+      if (runningCreation != null) {
+        awaitedCreations.add(runningCreation);
+      } else {
+        ownCreations.put(key, creation);
       }
+    }
 
-      // select db again and cache existent values
-      List<String> nonExistentEventTypeNames2 =
-          getNonExistentAuditEventTypeNames(auditApplication, nonCachedAuditEventTypeNames2);
-
-      if (nonExistentEventTypeNames2.isEmpty()) {
-        return null;
+    if (!ownCreations.isEmpty()) {
+      try {
+        List<String> ownEventTypeNames = new ArrayList<>();
+        ownCreations.keySet().forEach((key) -> ownEventTypeNames.add(key.eventTypeName));
+
+        Map<String, CachedAuditEventType> auditEventTypes =
+            createAuditEventTypes(auditApplication, ownEventTypeNames);
+
+        ownCreations.forEach((key, creation) -> creation
+            .complete(auditEventTypes.get(key.eventTypeName)));
+        rval.putAll(auditEventTypes);
+      } catch (RuntimeException e) {
+        ownCreations.values().forEach((creation) -> creation.completeExceptionally(e));
+        throw e;
+      } finally {
+        ownCreations.forEach(eventTypeCreations::remove);
       }
+    }
 
-      // insert non-existent values
-      return insertAndCacheAuditEventTypes(auditApplication, nonExistentEventTypeNames2);
-
-    });
+    for (CompletableFuture<CachedAuditEventType> creation : awaitedCreations) {
+      // cached again in case the entry was evicted since the creation
+      CachedAuditEventType auditEventType = join(creation);
+      cacheAuditEventType(auditApplication, auditEventType);
+      rval.put(auditEventType.eventTypeName, auditEventType);
+    }
+    return rval;
   }
 
-  /**
-   * Note: transaction must be provided to this method.
-   */
-  private Void insertAndCacheAuditEventTypes(final AuditApplication auditApplication,
-      final List<String> eventTypeNames) {
-    return querydslSupport.execute((connection, configuration) -> {
-
-      for (String eventTypeName : eventTypeNames) {
+  @Override
+  public void initAuditEventTypes(final String applicationName, final String... eventTypeNames) {
 
-        Long resourceId = resourceService.createResource();
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+    Objects.requireNonNull(eventTypeNames, "eventTypeNames cannot be null");
+    requireNotContainsNull(eventTypeNames);
 
-        QEventType qEventType = QEventType.eventType;
+    if (eventTypeNames.length == 0) {
+      return;
+    }
 
-        long eventTypeId = new SQLInsertClause(connection, configuration, qEventType)
-            .set(qEventType.eventTypeName, eventTypeName)
-            .set(qEventType.applicationId, auditApplication.applicationId)
-            .set(qEventType.resourceId, resourceId)
-            .executeWithKey(qEventType.eventTypeId);
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
 
-        AuditEventType auditEventType = new AuditEventType.Builder()
-            .eventTypeId(eventTypeId)
-            .eventTypeName(eventTypeName)
-            .resourceId(resourceId)
-            .build();
+    checkPermissionToLogToAuditApplication(auditApplication);
 
-        cacheAuditEventType(auditApplication.applicationId, auditEventType);
-      }
-
-      return null;
-    });
+    initAuditEventTypes(auditApplication, eventTypeNames);
   }
 
   /**
@@ -437,28 +933,63 @@ public class InternalAuditService implements
   /**
    * Note: transaction must be provided to this method.
    */
-  private void insertAuditEvent(final long eventTypeId, final AuditEvent auditEvent) {
+  private void insertAuditEvent(final long eventId, final long eventTypeId,
+      final AuditEvent auditEvent, final Map<String, Integer> eventDataNameIds) {
+
+    AuditEventPartition auditEventPartition = resolveAuditEventPartition(auditEvent.occuredAt);
+
+    long startNanos = System.nanoTime();
+    try {
+      insertAuditEvent(auditEventPartition, eventId, eventTypeId, auditEvent, eventDataNameIds);
+    } catch (RuntimeException e) {
+      invalidateAuditEventPartitions(auditEventPartition);
+      throw e;
+    } finally {
+      recordElapsedNanos(AuditTimer.QUERYDSL_EXECUTE, startNanos);
+    }
+
+    metrics.increment(AuditCounter.EVENTS_WRITTEN, 1);
+    if (eventDataFormat == AuditEventDataFormat.ROWS) {
+      metrics.increment(AuditCounter.EVENT_DATA_ROWS_WRITTEN, auditEvent.eventDataArray.length);
+    }
+  }
+
+  /**
+   * Note: transaction must be provided to this method.
+   */
+  private void insertAuditEvent(final AuditEventPartition auditEventPartition,
+      final long eventId, final long eventTypeId, final AuditEvent auditEvent,
+      final Map<String, Integer> eventDataNameIds) {
 
     querydslSupport.execute((connection, configuration) -> {
 
-      QEvent qEvent = QEvent.event;
+      QEvent qEvent = auditEventPartition.qEvent;
 
-      long eventId = new SQLInsertClause(connection, configuration, qEvent)
+      new SQLInsertClause(connection, configuration, qEvent)
+          .set(qEvent.eventId, eventId)
           .set(qEvent.createdAt, Timestamp.from(Instant.now()))
           .set(qEvent.occuredAt, Timestamp.from(auditEvent.occuredAt))
           .set(qEvent.eventTypeId, eventTypeId)
-          .executeWithKey(qEvent.eventId);
+          .set(qEvent.eventDataBlob, encodeEventDataBlob(auditEvent))
+          .execute();
 
-      for (EventData eventData : auditEvent.eventDataArray) {
+      if (eventDataFormat == AuditEventDataFormat.COMPACT) {
+        return null;
+      }
+
+      QEventData qEventData = auditEventPartition.qEventData;
 
-        QEventData qEventData = QEventData.eventData;
+      SQLInsertClause insert = new SQLInsertClause(connection, configuration, qEventData);
 
-        SQLInsertClause insert = new SQLInsertClause(connection, configuration, qEventData)
+      for (EventData eventData : auditEvent.eventDataArray) {
+        insert
             .set(qEventData.eventId, eventId)
-            .set(qEventData.eventDataName, eventData.eventDataName)
-            .set(qEventData.eventDataType, eventData.eventDataType.toString());
+            .set(qEventData.eventDataNameId, eventDataNameIds.get(eventData.eventDataName));
         addEventDataValue(insert, qEventData, eventData);
+        insert.addBatch();
+      }
 
+      if (!insert.isEmpty()) {
         insert.execute();
       }
 
@@ -467,19 +998,404 @@ public class InternalAuditService implements
   }
 
   /**
+   * Inserts the events in chunks of {@value #INSERT_AUDIT_EVENTS_BATCH_SIZE}.
+   * <p>
+   * Note: transaction must be provided to this method.
+   * </p>
+   */
+  private void insertAuditEventChunks(final Map<String, CachedAuditEventType> auditEventTypes,
+      final Collection<AuditEvent> auditEvents, final PrimitiveIterator.OfLong eventIds,
+      final Map<String, Integer> eventDataNameIds) {
+
+    List<AuditEvent> chunk = new ArrayList<>(INSERT_AUDIT_EVENTS_BATCH_SIZE);
+    Iterator<AuditEvent> iterator = auditEvents.iterator();
+    while (iterator.hasNext()) {
+      chunk.add(iterator.next());
+      if ((chunk.size() == INSERT_AUDIT_EVENTS_BATCH_SIZE) || !iterator.hasNext()) {
+        insertAuditEvents(auditEventTypes, chunk, eventIds, eventDataNameIds);
+        chunk.clear();
+      }
+    }
+  }
+
+  /**
+   * Inserts the events in one batch, then the data of all events in another one. The event IDs are
+   * allocated in advance, so no generated key has to be read back.
+   * <p>
+   * Note: transaction must be provided to this method.
+   * </p>
+   */
+  private void insertAuditEvents(final AuditEventPartition auditEventPartition,
+      final Map<String, CachedAuditEventType> auditEventTypes,
+      final List<AuditEvent> auditEvents, final PrimitiveIterator.OfLong eventIds,
+      final Map<String, Integer> eventDataNameIds) {
+
+    long startNanos = System.nanoTime();
+    try {
+      querydslSupport.execute((connection, configuration) -> {
+
+        QEvent qEvent = auditEventPartition.qEvent;
+
+        SQLInsertClause eventInsert = new SQLInsertClause(connection, configuration, qEvent);
+        Timestamp createdAt = Timestamp.from(Instant.now());
+
+        QEventData qEventData = auditEventPartition.qEventData;
+
+        SQLInsertClause eventDataInsert =
+            new SQLInsertClause(connection, configuration, qEventData);
+
+        for (AuditEvent auditEvent : auditEvents) {
+
+          long eventId = eventIds.nextLong();
+
+          eventInsert
+              .set(qEvent.eventId, eventId)
+              .set(qEvent.createdAt, createdAt)
+              .set(qEvent.occuredAt, Timestamp.from(auditEvent.occuredAt))
+              .set(qEvent.eventTypeId, auditEventTypes.get(auditEvent.eventTypeName).eventTypeId)
+              .set(qEvent.eventDataBlob, encodeEventDataBlob(auditEvent))
+              .addBatch();
+
+          if (eventDataFormat == AuditEventDataFormat.COMPACT) {
+            continue;
+          }
+
+          for (EventData eventData : auditEvent.eventDataArray) {
+            eventDataInsert
+                .set(qEventData.eventId, eventId)
+                .set(qEventData.eventDataNameId, eventDataNameIds.get(eventData.eventDataName));
+            addEventDataValue(eventDataInsert, qEventData, eventData);
+            eventDataInsert.addBatch();
+          }
+        }
+
+        eventInsert.execute();
+
+        if (!eventDataInsert.isEmpty()) {
+          eventDataInsert.execute();
+        }
+
+        return null;
+      });
+    } catch (RuntimeException e) {
+      invalidateAuditEventPartitions(auditEventPartition);
+      throw e;
+    } finally {
+      recordElapsedNanos(AuditTimer.QUERYDSL_EXECUTE, startNanos);
+    }
+
+    metrics.increment(AuditCounter.EVENTS_WRITTEN, auditEvents.size());
+    if (eventDataFormat == AuditEventDataFormat.ROWS) {
+      int eventDataRowCount = 0;
+      for (AuditEvent auditEvent : auditEvents) {
+        eventDataRowCount += auditEvent.eventDataArray.length;
+      }
+      metrics.increment(AuditCounter.EVENT_DATA_ROWS_WRITTEN, eventDataRowCount);
+    }
+  }
+
+  /**
+   * Note: transaction must be provided to this method.
+   */
+  private CachedAuditEventType insertAuditEventType(
+      final CachedAuditApplication auditApplication, final String eventTypeName) {
+    return querydslSupport.execute((connection, configuration) -> {
+
+      long resourceId = resourceService.createResource();
+
+      QEventType qEventType = QEventType.eventType;
+
+      long eventTypeId = new SQLInsertClause(connection, configuration, qEventType)
+          .set(qEventType.eventTypeName, eventTypeName)
+          .set(qEventType.applicationId, auditApplication.applicationId)
+          .set(qEventType.resourceId, resourceId)
+          .executeWithKey(qEventType.eventTypeId);
+
+      return new CachedAuditEventType(eventTypeId, eventTypeName, resourceId);
+    });
+  }
+
+  /**
+   * Inserts the event types with one JDBC batch and selects their generated identifiers.
+   * <p>
    * Note: transaction must be provided to this method.
+   * </p>
    */
-  private void lockAuditApplication(final long applicationId) {
+  private List<CachedAuditEventType> insertAuditEventTypes(
+      final CachedAuditApplication auditApplication, final List<String> eventTypeNames) {
+
     querydslSupport.execute((connection, configuration) -> {
-      QApplication qApplication = QApplication.application;
-      return new SQLQuery<>(connection, configuration)
-          .select(qApplication.applicationId)
-          .from(qApplication)
-          .where(qApplication.applicationId.eq(applicationId))
-          .forUpdate();
+
+      QEventType qEventType = QEventType.eventType;
+
+      SQLInsertClause insert = new SQLInsertClause(connection, configuration, qEventType);
+      for (String eventTypeName : eventTypeNames) {
+        // the ResourceService has no bulk API
+        long resourceId = resourceService.createResource();
+
+        insert
+            .set(qEventType.eventTypeName, eventTypeName)
+            .set(qEventType.applicationId, auditApplication.applicationId)
+            .set(qEventType.resourceId, resourceId)
+            .addBatch();
+      }
+      return insert.execute();
+    });
+
+    List<AuditEventType> auditEventTypes =
+        selectAuditEventTypes(auditApplication.applicationName, eventTypeNames);
+    if (auditEventTypes.size() != eventTypeNames.size()) {
+      throw new IllegalStateException("Inserted event types of application ["
+          + auditApplication.applicationName + "] cannot be selected");
+    }
+
+    List<CachedAuditEventType> rval = new ArrayList<>(auditEventTypes.size());
+    for (AuditEventType auditEventType : auditEventTypes) {
+      rval.add(new CachedAuditEventType(auditEventType));
+    }
+    return rval;
+  }
+
+  /**
+   * Inserts the events into the partitions of the periods they occured in.
+   * <p>
+   * Note: transaction must be provided to this method.
+   * </p>
+   */
+  private void insertAuditEvents(final Map<String, CachedAuditEventType> auditEventTypes,
+      final List<AuditEvent> auditEvents, final PrimitiveIterator.OfLong eventIds,
+      final Map<String, Integer> eventDataNameIds) {
+
+    if (eventPartitionManager == null) {
+      insertAuditEvents(AuditEventPartition.DEFAULT, auditEventTypes, auditEvents, eventIds,
+          eventDataNameIds);
+      return;
+    }
+
+    Map<AuditEventPartition, List<AuditEvent>> auditEventsByPartition = new LinkedHashMap<>();
+    for (AuditEvent auditEvent : auditEvents) {
+      auditEventsByPartition
+          .computeIfAbsent(resolveAuditEventPartition(auditEvent.occuredAt),
+              key -> new ArrayList<>())
+          .add(auditEvent);
+    }
+
+    auditEventsByPartition.forEach((auditEventPartition, partitionAuditEvents) -> {
+      insertAuditEvents(auditEventPartition, auditEventTypes, partitionAuditEvents, eventIds,
+          eventDataNameIds);
     });
   }
 
+  /**
+   * Inserts an event with its data always stored in rows, as the streamed values cannot be part of
+   * the compact format.
+   *
+   * Note: transaction must be provided to this method.
+   */
+  private void insertStreamedAuditEvent(final long eventId, final long eventTypeId,
+      final AuditEvent auditEvent, final StreamedEventData[] streamedEventData,
+      final Map<String, Integer> eventDataNameIds) {
+
+    AuditEventPartition auditEventPartition = resolveAuditEventPartition(auditEvent.occuredAt);
+
+    long startNanos = System.nanoTime();
+    try {
+      querydslSupport.execute((connection, configuration) -> {
+
+        QEvent qEvent = auditEventPartition.qEvent;
+        QEventData qEventData = auditEventPartition.qEventData;
+
+        new SQLInsertClause(connection, configuration, qEvent)
+            .set(qEvent.eventId, eventId)
+            .set(qEvent.createdAt, Timestamp.from(Instant.now()))
+            .set(qEvent.occuredAt, Timestamp.from(auditEvent.occuredAt))
+            .set(qEvent.eventTypeId, eventTypeId)
+            .execute();
+
+        SQLInsertClause insert = new SQLInsertClause(connection, configuration, qEventData);
+        for (EventData eventData : auditEvent.eventDataArray) {
+          insert
+              .set(qEventData.eventId, eventId)
+              .set(qEventData.eventDataNameId, eventDataNameIds.get(eventData.eventDataName));
+          addEventDataValue(insert, qEventData, eventData);
+          insert.addBatch();
+        }
+        if (!insert.isEmpty()) {
+          insert.execute();
+        }
+
+        insertStreamedEventData(connection, configuration, qEventData, eventId, eventDataNameIds,
+            streamedEventData);
+
+        return null;
+      });
+    } catch (RuntimeException e) {
+      invalidateAuditEventPartitions(auditEventPartition);
+      throw e;
+    } finally {
+      recordElapsedNanos(AuditTimer.QUERYDSL_EXECUTE, startNanos);
+    }
+
+    metrics.increment(AuditCounter.EVENTS_WRITTEN, 1);
+    metrics.increment(AuditCounter.EVENT_DATA_ROWS_WRITTEN,
+        auditEvent.eventDataArray.length + streamedEventData.length);
+  }
+
+  /**
+   * Inserts the streamed text values with plain JDBC as Querydsl binds only complete values. The
+   * statement is serialized by Querydsl with parameter placeholders, so the schema and the name
+   * overrides of the configuration are applied. The values are passed to the driver as character
+   * streams and they are never compressed, because the compression could be applied only if the
+   * whole value was in memory. The rows are inserted in one batch if the driver supports batch
+   * updates, the readers are consumed when the batch is executed.
+   */
+  private void insertStreamedEventData(final Connection connection,
+      final Configuration configuration, final QEventData qEventData, final long eventId,
+      final Map<String, Integer> eventDataNameIds, final StreamedEventData[] streamedEventData) {
+
+    if (streamedEventData.length == 0) {
+      return;
+    }
+
+    Expression<Object> parameter = Expressions.template(Object.class, "?");
+    String sql = new SQLInsertClause(connection, configuration, qEventData)
+        .columns(qEventData.eventId, qEventData.eventDataNameId, qEventData.eventDataType,
+            qEventData.textValue)
+        .values(parameter, parameter, parameter, parameter)
+        .getSQL().get(0).getSQL();
+
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      boolean batch = (streamedEventData.length > 1)
+          && connection.getMetaData().supportsBatchUpdates();
+      for (StreamedEventData streamedData : streamedEventData) {
+        statement.setLong(1, eventId);
+        statement.setInt(2, eventDataNameIds.get(streamedData.eventDataName));
+        statement.setString(3, EventDataType.TEXT.toString());
+        if (streamedData.length == StreamedEventData.UNKNOWN_LENGTH) {
+          statement.setCharacterStream(4, streamedData.reader);
+        } else {
+          statement.setCharacterStream(4, streamedData.reader, streamedData.length);
+        }
+        if (batch) {
+          statement.addBatch();
+        } else {
+          statement.executeUpdate();
+        }
+      }
+      if (batch) {
+        statement.executeBatch();
+      }
+    } catch (SQLException e) {
+      throw configuration.translate(sql, Collections.emptyList(), e);
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    evictAll();
+    if (cacheInvalidationBus != null) {
+      cacheInvalidationBus.publishAllInvalidation();
+    }
+  }
+
+  @Override
+  public void invalidateAuditApplication(final String applicationName) {
+
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+
+    evictAuditApplication(applicationName);
+    if (cacheInvalidationBus != null) {
+      cacheInvalidationBus.publishAuditApplicationInvalidation(applicationName);
+    }
+  }
+
+  /**
+   * Drops the cached partitions after writing a partition failed, as the partition may have been
+   * dropped by another node.
+   */
+  private void invalidateAuditEventPartitions(final AuditEventPartition auditEventPartition) {
+    if (auditEventPartition != AuditEventPartition.DEFAULT) {
+      eventPartitionManager.invalidatePartitions();
+    }
+  }
+
+  @Override
+  public void invalidateAuditEventTypes(final String applicationName) {
+
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
+
+    auditEventTypeRegistry.invalidateEventTypes(auditApplication.applicationId);
+    if (cacheInvalidationBus != null) {
+      cacheInvalidationBus.publishAuditEventTypesInvalidation(auditApplication.applicationId);
+    }
+  }
+
+  private boolean isUnknownAuditApplication(final String applicationName) {
+    Long expiresAt = unknownAuditApplications.get(applicationName);
+    if (expiresAt == null) {
+      return false;
+    }
+    if ((System.nanoTime() - expiresAt) < 0) {
+      return true;
+    }
+    unknownAuditApplications.remove(applicationName, expiresAt);
+    return false;
+  }
+
+  /**
+   * Waits for the result of a load or creation started by another thread and rethrows its
+   * failure.
+   */
+  private static <T> T join(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Selects the audit application and caches the result, the negative one as well for
+   * {@link AuditConfiguration#unknownAuditApplicationTtlMillis}.
+   */
+  private CachedAuditApplication loadAuditApplication(final String applicationName) {
+
+    // another load may have finished since the cache was checked
+    CachedAuditApplication cachedAuditApplication = auditApplicationCache.get(applicationName);
+    if (cachedAuditApplication != null) {
+      return cachedAuditApplication;
+    }
+
+    AuditApplication auditApplication = selectAuditApplication(applicationName);
+
+    if (auditApplication != null) {
+      return cacheAuditApplication(auditApplication);
+    }
+
+    if (unknownAuditApplicationTtlNanos > 0) {
+      long now = System.nanoTime();
+      if (unknownAuditApplications.size() >= PURGE_UNKNOWN_AUDIT_APPLICATIONS_THRESHOLD) {
+        unknownAuditApplications.values().removeIf((expiresAt) -> (now - expiresAt) >= 0);
+      }
+      unknownAuditApplications.put(applicationName, now + unknownAuditApplicationTtlNanos);
+    }
+    return null;
+  }
+
+  /**
+   * Reads every event data name into the cache, so {@link #getEventDataName(int)} does not query
+   * the database while a result set is streamed on the same connection.
+   */
+  void loadEventDataNames() {
+    eventDataNameDictionary.loadAll();
+  }
+
   /**
    * Note: transaction must be provided to this method.
    */
@@ -500,20 +1416,159 @@ public class InternalAuditService implements
     Objects.requireNonNull(applicationName, "applicationName cannot be null");
     Objects.requireNonNull(auditEvent, "auditEvent cannot be null");
 
-    AuditApplication auditApplication = requireAuditApplication(applicationName);
+    CachedAuditApplication auditApplication = requireLoggableAuditApplication(applicationName);
 
-    checkPermissionToLogToAuditApplication(auditApplication.resourceId);
+    CachedAuditEventType auditEventType =
+        initAuditEventType(auditApplication, auditEvent.eventTypeName);
+    initAuditEventPartitions(Collections.singletonList(auditEvent));
+    long eventId = eventIdAllocator.allocate(1)[0];
+    Map<String, Integer> eventDataNameIds =
+        getEventDataNameIds(Collections.singletonList(auditEvent));
 
-    transactionPropagator
-        .required(() -> {
+    long startNanos = System.nanoTime();
+    try {
+      transactionPropagator
+          .required(() -> {
 
-          AuditEventType auditEventType = initAuditEventType(auditApplication,
-              auditEvent.eventTypeName);
+            insertAuditEvent(eventId, auditEventType.eventTypeId, auditEvent, eventDataNameIds);
 
-          insertAuditEvent(auditEventType.eventTypeId, auditEvent);
+            return null;
+          });
+    } finally {
+      recordElapsedNanos(AuditTimer.TRANSACTION, startNanos);
+    }
+  }
+
+  @Override
+  public void logEvents(final String applicationName, final Collection<AuditEvent> auditEvents) {
+
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+    Objects.requireNonNull(auditEvents, "auditEvents cannot be null");
+    for (AuditEvent auditEvent : auditEvents) {
+      Objects.requireNonNull(auditEvent, "auditEvents cannot contain null value");
+    }
+
+    if (auditEvents.isEmpty()) {
+      return;
+    }
+
+    CachedAuditApplication auditApplication = requireLoggableAuditApplication(applicationName);
+
+    Map<String, CachedAuditEventType> auditEventTypes =
+        initAuditEventTypes(auditApplication, auditEvents);
+    initAuditEventPartitions(auditEvents);
+    long[] eventIds = eventIdAllocator.allocate(auditEvents.size());
+    Map<String, Integer> eventDataNameIds = getEventDataNameIds(auditEvents);
+
+    long startNanos = System.nanoTime();
+    try {
+      transactionPropagator
+          .required(() -> {
+            insertAuditEventChunks(auditEventTypes, auditEvents,
+                Arrays.stream(eventIds).iterator(), eventDataNameIds);
+            return null;
+          });
+    } finally {
+      recordElapsedNanos(AuditTimer.TRANSACTION, startNanos);
+    }
+  }
+
+  /**
+   * Persists the already authorized audit events in one transaction. The permissions must have
+   * been checked by {@link #requireLoggableAuditApplication(String)} on the thread that submitted
+   * the events.
+   */
+  void logQueuedAuditEvents(final List<QueuedAuditEvent> queuedAuditEvents) {
+
+    Map<String, CachedAuditApplication> auditApplications = new HashMap<>();
+    Map<String, List<AuditEvent>> auditEventsByApplicationName = new LinkedHashMap<>();
+    List<AuditEvent> auditEvents = new ArrayList<>(queuedAuditEvents.size());
+    for (QueuedAuditEvent queuedAuditEvent : queuedAuditEvents) {
+      String applicationName = queuedAuditEvent.auditApplication.applicationName;
+      auditApplications.putIfAbsent(applicationName, queuedAuditEvent.auditApplication);
+      auditEventsByApplicationName
+          .computeIfAbsent(applicationName, key -> new ArrayList<>())
+          .add(queuedAuditEvent.auditEvent);
+      auditEvents.add(queuedAuditEvent.auditEvent);
+    }
+
+    Map<String, Map<String, CachedAuditEventType>> auditEventTypesByApplicationName =
+        new HashMap<>();
+    auditEventsByApplicationName.forEach((applicationName, applicationAuditEvents) -> {
+      auditEventTypesByApplicationName.put(applicationName,
+          initAuditEventTypes(auditApplications.get(applicationName), applicationAuditEvents));
+    });
+    initAuditEventPartitions(auditEvents);
+    long[] eventIds = eventIdAllocator.allocate(auditEvents.size());
+    Map<String, Integer> eventDataNameIds = getEventDataNameIds(auditEvents);
+
+    long startNanos = System.nanoTime();
+    try {
+      transactionPropagator
+          .required(() -> {
+
+            PrimitiveIterator.OfLong eventIdIterator = Arrays.stream(eventIds).iterator();
+            for (Map.Entry<String, List<AuditEvent>> entry : auditEventsByApplicationName
+                .entrySet()) {
+              insertAuditEventChunks(auditEventTypesByApplicationName.get(entry.getKey()),
+                  entry.getValue(), eventIdIterator, eventDataNameIds);
+            }
+
+            return null;
+          });
+    } finally {
+      recordElapsedNanos(AuditTimer.TRANSACTION, startNanos);
+    }
+  }
+
+  @Override
+  public void logStreamedEvent(final String applicationName, final AuditEvent auditEvent,
+      final StreamedEventData... streamedEventData) {
+
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+    Objects.requireNonNull(auditEvent, "auditEvent cannot be null");
+    Objects.requireNonNull(streamedEventData, "streamedEventData cannot be null");
+    for (StreamedEventData streamedData : streamedEventData) {
+      Objects.requireNonNull(streamedData, "streamedEventData cannot contain null value");
+    }
+
+    if (streamedEventData.length == 0) {
+      logEvent(applicationName, auditEvent);
+      return;
+    }
+
+    CachedAuditApplication auditApplication = requireLoggableAuditApplication(applicationName);
+
+    Set<String> eventDataNames = new LinkedHashSet<>();
+    for (EventData eventData : auditEvent.eventDataArray) {
+      eventDataNames.add(eventData.eventDataName);
+    }
+    for (StreamedEventData streamedData : streamedEventData) {
+      eventDataNames.add(streamedData.eventDataName);
+    }
+    CachedAuditEventType auditEventType =
+        initAuditEventType(auditApplication, auditEvent.eventTypeName);
+    initAuditEventPartitions(Collections.singletonList(auditEvent));
+    long eventId = eventIdAllocator.allocate(1)[0];
+    Map<String, Integer> eventDataNameIds = eventDataNameDictionary.getIds(eventDataNames);
+
+    long startNanos = System.nanoTime();
+    try {
+      transactionPropagator
+          .required(() -> {
+
+            insertStreamedAuditEvent(eventId, auditEventType.eventTypeId, auditEvent,
+                streamedEventData, eventDataNameIds);
+
+            return null;
+          });
+    } finally {
+      recordElapsedNanos(AuditTimer.TRANSACTION, startNanos);
+    }
+  }
 
-          return null;
-        });
+  private void recordElapsedNanos(final AuditTimer timer, final long startNanos) {
+    metrics.recordNanos(timer, System.nanoTime() - startNanos);
   }
 
   @Override
@@ -526,18 +1581,55 @@ public class InternalAuditService implements
   @Override
   public void removePermissionLogToAuditApplication(final long authorizedResourceId,
       final String applicationName) {
-    AuditApplication auditApplication = requireAuditApplication(applicationName);
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
+    changeLogPermission(auditApplication, () -> authorizationManager.removePermission(
+        authorizedResourceId, auditApplication.resourceId,
+        AuditRiPermissionConstants.LOG_TO_AUDIT_APPLICATION));
+  }
+
+  @Override
+  public void removePermissionReadAuditApplication(final long authorizedResourceId,
+      final String applicationName) {
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
     authorizationManager.removePermission(
         authorizedResourceId, auditApplication.resourceId,
-        AuditRiPermissionConstants.LOG_TO_AUDIT_APPLICATION);
+        AuditRiPermissionConstants.READ_AUDIT_APPLICATION);
   }
 
-  private AuditApplication requireAuditApplication(final String applicationName) {
+  /**
+   * Returns the audit application without checking any permission.
+   */
+  CachedAuditApplication requireAuditApplication(final String applicationName) {
     return Optional
         .ofNullable(getAuditApplication(applicationName))
         .orElseThrow(() -> new UnknownAuditApplicationException(applicationName));
   }
 
+  /**
+   * Returns the audit application if the authenticated resource has permission to log to it.
+   */
+  CachedAuditApplication requireLoggableAuditApplication(final String applicationName) {
+
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
+
+    checkPermissionToLogToAuditApplication(auditApplication);
+
+    return auditApplication;
+  }
+
+  /**
+   * Returns the audit application if the authenticated resource has permission to read its
+   * events.
+   */
+  CachedAuditApplication requireReadableAuditApplication(final String applicationName) {
+
+    CachedAuditApplication auditApplication = requireAuditApplication(applicationName);
+
+    checkPermissionToReadAuditApplication(auditApplication.resourceId);
+
+    return auditApplication;
+  }
+
   private void requireNotContainsNull(final String... eventTypeNames) {
     for (String eventTypeName : eventTypeNames) {
       if (eventTypeName == null) {
@@ -546,6 +1638,13 @@ public class InternalAuditService implements
     }
   }
 
+  private AuditEventPartition resolveAuditEventPartition(final Instant occuredAt) {
+    if (eventPartitionManager == null) {
+      return AuditEventPartition.DEFAULT;
+    }
+    return eventPartitionManager.getPartition(occuredAt);
+  }
+
   private AuditApplication selectAuditApplication(final String applicationName) {
     return querydslSupport.execute((connection, configuration) -> {
 
@@ -562,6 +1661,16 @@ public class InternalAuditService implements
     });
   }
 
+  /**
+   * Note: transaction must be provided to this method.
+   */
+  private CachedAuditEventType selectAuditEventType(
+      final CachedAuditApplication auditApplication, final String eventTypeName) {
+    List<AuditEventType> auditEventTypes = selectAuditEventTypes(
+        auditApplication.applicationName, Collections.singletonList(eventTypeName));
+    return auditEventTypes.isEmpty() ? null : new CachedAuditEventType(auditEventTypes.get(0));
+  }
+
   private List<AuditEventType> selectAuditEventTypes(final String applicationName,
       final List<String> eventTypeNames) {
 
@@ -602,4 +1711,106 @@ public class InternalAuditService implements
     });
   }
 
+  private void startWarmUp(final AuditConfiguration auditConfiguration) {
+
+    int warmUpLimit = auditConfiguration.warmUpLimit;
+    if (warmUpLimit == 0) {
+      return;
+    }
+
+    if (!auditConfiguration.warmUpInBackground) {
+      warmUpCaches(warmUpLimit);
+      return;
+    }
+
+    Thread warmUpThread = new Thread(() -> warmUpCachesInBackground(warmUpLimit),
+        WARM_UP_THREAD_NAME);
+    warmUpThread.setDaemon(true);
+    warmUpThread.start();
+  }
+
+  /**
+   * Streams the first audit applications joined to all of their event types in one query and fills
+   * both caches. The applications are limited in a subquery, so the limit does not count the
+   * joined rows. The already cached applications are kept.
+   */
+  private void warmUpCaches(final int limit) {
+    // some drivers (for e.g. PostgreSQL) stream the result set only outside of auto-commit mode
+    transactionPropagator.required(() -> querydslSupport.execute((connection, configuration) -> {
+
+      QApplication qApplication = QApplication.application;
+      QEventType qEventType = QEventType.eventType;
+
+      QApplication qLimitedApplication = new QApplication("limited_application");
+      PathBuilder<Tuple> limitedApplications =
+          new PathBuilder<>(Tuple.class, "limited_applications");
+      NumberPath<Long> limitedApplicationId = limitedApplications.getNumber(
+          ColumnMetadata.getName(qLimitedApplication.applicationId), Long.class);
+
+      SQLQuery<Tuple> query = new SQLQuery<Tuple>(connection, configuration)
+          .select(qApplication.applicationId,
+              qApplication.applicationName,
+              qApplication.resourceId,
+              qEventType.eventTypeId,
+              qEventType.eventTypeName,
+              qEventType.resourceId)
+          .from(qApplication)
+          .innerJoin(SQLExpressions.select(qLimitedApplication.applicationId)
+              .from(qLimitedApplication)
+              .orderBy(qLimitedApplication.applicationId.asc())
+              .limit(limit), limitedApplications)
+          .on(qApplication.applicationId.eq(limitedApplicationId))
+          .leftJoin(qEventType).on(qEventType.applicationId.eq(qApplication.applicationId))
+          .orderBy(qApplication.applicationId.asc());
+      query.setStatementOptions(StatementOptions.builder()
+          .setFetchSize(WARM_UP_FETCH_SIZE)
+          .build());
+
+      try (CloseableIterator<Tuple> iterator = query.iterate()) {
+
+        CachedAuditApplication auditApplication = null;
+        while (iterator.hasNext()) {
+
+          Tuple tuple = iterator.next();
+
+          String applicationName = tuple.get(qApplication.applicationName);
+          if ((auditApplication == null)
+              || !auditApplication.applicationName.equals(applicationName)) {
+            auditApplication = auditApplicationCache.get(applicationName);
+            if (auditApplication == null) {
+              auditApplication = cacheAuditApplication(new AuditApplication.Builder()
+                  .applicationId(tuple.get(qApplication.applicationId))
+                  .applicationName(applicationName)
+                  .resourceId(tuple.get(qApplication.resourceId))
+                  .build());
+            }
+          }
+
+          Long eventTypeId = tuple.get(qEventType.eventTypeId);
+          if (eventTypeId != null) {
+            cacheAuditEventType(auditApplication, new CachedAuditEventType(eventTypeId,
+                tuple.get(qEventType.eventTypeName), tuple.get(qEventType.resourceId)));
+          }
+        }
+      }
+
+      return null;
+    }));
+  }
+
+  /**
+   * Reports the errors of the warm-up to the uncaught exception handler of the warm-up thread. The
+   * entries that are not cached by the warm-up are loaded on their first use.
+   */
+  private void warmUpCachesInBackground(final int limit) {
+    try {
+      warmUpCaches(limit);
+    } catch (RuntimeException e) {
+      Thread warmUpThread = Thread.currentThread();
+      Thread.UncaughtExceptionHandler uncaughtExceptionHandler =
+          warmUpThread.getUncaughtExceptionHandler();
+      uncaughtExceptionHandler.uncaughtException(warmUpThread, e);
+    }
+  }
+
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+/**
+ * Signs that a record of the journal of the {@link JournalLoggingService} failed its CRC check or
+ * could not be decoded, so it was moved to the dead-letter file instead of being replayed.
+ */
+public class InvalidAuditJournalRecordException extends RuntimeException {
+
+  /**
+   * Serial version UID.
+   */
+  private static final long serialVersionUID = -2870193461525384402L;
+
+  /**
+   * Constructor.
+   *
+   * @param record
+   *          the invalid record
+   * @param cause
+   *          the decoding failure, <code>null</code> if the record is corrupted
+   */
+  InvalidAuditJournalRecordException(final AuditJournalRecord record, final Throwable cause) {
+    super((record.corrupted ? "corrupted" : "invalid") + " audit journal record ending at ["
+        + record.endPosition + "]", cause);
+  }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.everit.audit.dto.AuditEvent;
+
+/**
+ * Journaling implementation of the {@link InternalLoggingService}. The permission of the caller
+ * is checked synchronously, then the audit event is appended to a local, memory-mapped journal
+ * and the call returns without waiting for the database. A background replayer thread persists
+ * the journaled audit events in batches by the {@link InternalAuditService} as soon as the
+ * database is reachable.
+ * <p>
+ * The journaled audit events survive the stop of the JVM and the outage of the database, they are
+ * forced to the disk before the call returns if {@link AuditJournalConfiguration#forceOnWrite} is
+ * set. The audit events that are not replayed when {@link #close()} is called are replayed after
+ * the next start. An audit event may be persisted twice if the JVM stops right after a batch is
+ * committed.
+ * </p>
+ * <p>
+ * The audit application must be cached or the database must be reachable to check the permission
+ * of the caller. Replay errors are passed to the {@link Thread.UncaughtExceptionHandler} of the
+ * replayer thread and the replay is retried after
+ * {@link AuditJournalConfiguration#replayRetryIntervalMillis}. An audit event that fails with an
+ * error that is not retriable, for e.g. a value that is too long for its column, and a corrupted
+ * journal record are moved to the <code>dead-letter.journal</code> file of the journal directory,
+ * so they do not stop the replay.
+ * </p>
+ */
+public class JournalLoggingService implements InternalLoggingService, AutoCloseable {
+
+  private static final long IDLE_POLL_TIMEOUT_MILLIS = 100;
+
+  private static final String REPLAYER_THREAD_NAME = "audit-journal-replayer";
+
+  private volatile boolean closed = false;
+
+  private final InternalAuditService internalAuditService;
+
+  private final AuditJournal journal;
+
+  private final AuditJournalReplayer replayer;
+
+  private final Object replayerMonitor = new Object();
+
+  private final Thread replayerThread;
+
+  private final long replayRetryIntervalMillis;
+
+  /**
+   * Constructor. Opens the journal and starts the replayer thread.
+   *
+   * @throws java.io.UncheckedIOException
+   *           if the journal cannot be opened
+   */
+  public JournalLoggingService(final InternalAuditService internalAuditService,
+      final AuditJournalConfiguration journalConfiguration) {
+    this.internalAuditService = Objects.requireNonNull(internalAuditService,
+        "internalAuditService cannot be null");
+    Objects.requireNonNull(journalConfiguration, "journalConfiguration cannot be null");
+    replayRetryIntervalMillis = journalConfiguration.replayRetryIntervalMillis;
+    journal = new AuditJournal(journalConfiguration);
+    replayer = new AuditJournalReplayer(journal, internalAuditService,
+        journalConfiguration.replayBatchSize, this::handleReplayError);
+
+    replayerThread = new Thread(this::replay, REPLAYER_THREAD_NAME);
+    replayerThread.setDaemon(true);
+    replayerThread.start();
+  }
+
+  /**
+   * Stops accepting new audit events, waits until the replayer thread finishes its current batch
+   * and closes the journal. The pending audit events stay in the journal.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    synchronized (replayerMonitor) {
+      replayerMonitor.notifyAll();
+    }
+    try {
+      replayerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    journal.close();
+  }
+
+  private void handleReplayError(final RuntimeException e) {
+    Thread.UncaughtExceptionHandler uncaughtExceptionHandler =
+        replayerThread.getUncaughtExceptionHandler();
+    uncaughtExceptionHandler.uncaughtException(replayerThread, e);
+  }
+
+  /**
+   * Checks the permission and appends the audit event to the journal.
+   *
+   * @throws AuditJournalFullException
+   *           if the journal has no free segment
+   * @throws IllegalStateException
+   *           if the service is already closed
+   */
+  @Override
+  public void logEvent(final String applicationName, final AuditEvent auditEvent) {
+
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+    Objects.requireNonNull(auditEvent, "auditEvent cannot be null");
+
+    logEvents(applicationName, Collections.singletonList(auditEvent));
+  }
+
+  /**
+   * Checks the permission once and appends the audit events to the journal with one force.
+   *
+   * @throws AuditJournalFullException
+   *           if the journal has no free segment
+   * @throws IllegalStateException
+   *           if the service is already closed
+   */
+  @Override
+  public void logEvents(final String applicationName, final Collection<AuditEvent> auditEvents) {
+
+    Objects.requireNonNull(applicationName, "applicationName cannot be null");
+    Objects.requireNonNull(auditEvents, "auditEvents cannot be null");
+    for (AuditEvent auditEvent : auditEvents) {
+      Objects.requireNonNull(auditEvent, "auditEvents cannot contain null value");
+    }
+
+    if (closed) {
+      throw new IllegalStateException("journal logging service is closed");
+    }
+
+    if (auditEvents.isEmpty()) {
+      return;
+    }
+
+    CachedAuditApplication auditApplication =
+        internalAuditService.requireLoggableAuditApplication(applicationName);
+
+    List<byte[]> payloads = new ArrayList<>(auditEvents.size());
+    for (AuditEvent auditEvent : auditEvents) {
+      payloads.add(AuditJournalCodec.encode(auditApplication.applicationName, auditEvent));
+    }
+    journal.append(payloads);
+  }
+
+  private void replay() {
+    while (!closed) {
+      long waitMillis = 0;
+      try {
+        if (replayer.replayNextBatch() == 0) {
+          waitMillis = IDLE_POLL_TIMEOUT_MILLIS;
+        }
+      } catch (RuntimeException e) {
+        handleReplayError(e);
+        waitMillis = replayRetryIntervalMillis;
+      }
+
+      if (waitMillis > 0) {
+        waitForClose(waitMillis);
+      }
+    }
+  }
+
+  private void waitForClose(final long timeoutMillis) {
+    synchronized (replayerMonitor) {
+      if (closed) {
+        return;
+      }
+      try {
+        replayerMonitor.wait(timeoutMillis);
+      } catch (InterruptedException e) {
+        // the replayer stops on close only
+        Thread.interrupted();
+      }
+    }
+  }
+
+}
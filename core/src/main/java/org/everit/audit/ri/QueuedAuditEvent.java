@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import org.everit.audit.dto.AuditEvent;
+
+/**
+ * An audit event waiting in the queue of the {@link AsyncLoggingService} together with the audit
+ * application it was authorized for.
+ */
+class QueuedAuditEvent {
+
+  public final CachedAuditApplication auditApplication;
+
+  public final AuditEvent auditEvent;
+
+  QueuedAuditEvent(final CachedAuditApplication auditApplication, final AuditEvent auditEvent) {
+    this.auditApplication = auditApplication;
+    this.auditEvent = auditEvent;
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncLoggingServiceTest {
+
+  private static final int THREAD_COUNT = 8;
+
+  private AuditTestEnvironment environment;
+
+  private InternalAuditService internalAuditService;
+
+  @After
+  public void after() {
+    environment.close();
+  }
+
+  @Before
+  public void before() {
+    environment = new AuditTestEnvironment();
+    internalAuditService =
+        environment.createInternalAuditService(new AuditConfiguration.Builder().build());
+    internalAuditService.initAuditApplication(AuditTestEnvironment.APPLICATION_NAME);
+  }
+
+  @Test
+  public void testCloseDoesNotLoseAcceptedEvents() throws Exception {
+    long acceptedCount = 0;
+    for (int round = 0; round < 5; round++) {
+      AsyncLoggingService asyncLoggingService = new AsyncLoggingService(internalAuditService,
+          new AsyncLoggingConfiguration.Builder().queueCapacity(4).batchSize(3).build());
+      AtomicLong roundAcceptedCount = new AtomicLong();
+
+      ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+      try {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+          futures.add(executor.submit(() -> {
+            start.await();
+            while (true) {
+              try {
+                asyncLoggingService.logEvent(AuditTestEnvironment.APPLICATION_NAME,
+                    AuditTestEnvironment.createAuditEvent("type", Instant.now(), 1));
+              } catch (IllegalStateException e) {
+                return null;
+              }
+              roundAcceptedCount.incrementAndGet();
+            }
+          }));
+        }
+        start.countDown();
+        Thread.sleep(50);
+        asyncLoggingService.close();
+        for (Future<?> future : futures) {
+          future.get(1, TimeUnit.MINUTES);
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+
+      acceptedCount += roundAcceptedCount.get();
+      Assert.assertEquals(acceptedCount,
+          environment.queryLong("SELECT COUNT(*) FROM \"audit_event\""));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testLogEventAfterClose() {
+    AsyncLoggingService asyncLoggingService = new AsyncLoggingService(internalAuditService,
+        new AsyncLoggingConfiguration.Builder().build());
+    asyncLoggingService.close();
+    asyncLoggingService.logEvent(AuditTestEnvironment.APPLICATION_NAME,
+        AuditTestEnvironment.createAuditEvent("type", Instant.now(), 1));
+  }
+
+}
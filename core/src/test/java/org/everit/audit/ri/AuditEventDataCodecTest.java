@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.everit.audit.dto.EventData;
+import org.everit.audit.dto.EventDataType;
+import org.everit.audit.ri.dto.StoredEventData;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AuditEventDataCodecTest {
+
+  private static EventData[] createEventDataArray() {
+    char[] longText = new char[1000];
+    Arrays.fill(longText, 'x');
+    return new EventData[] {
+        new EventData.Builder("number").buildNumberValue(-1.5),
+        new EventData.Builder("string").buildStringValue("value \u00e1rv\u00edzt\u0171r\u0151"),
+        new EventData.Builder("text").buildTextValue(new String(longText)),
+        new EventData.Builder("timestamp")
+            .buildTimestampValue(Instant.ofEpochSecond(-86400, 123456789)),
+        new EventData.Builder("").buildStringValue("") };
+  }
+
+  @Test
+  public void testDecodeTruncated() {
+    byte[] bytes = AuditEventDataCodec.encode(createEventDataArray());
+    for (int length = 0; length < bytes.length; length++) {
+      try {
+        AuditEventDataCodec.decode(Arrays.copyOf(bytes, length));
+        Assert.fail("truncated to [" + length + "] bytes");
+      } catch (IllegalArgumentException e) {
+        Assert.assertNotNull(e.getMessage());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeUnknownVersion() {
+    byte[] bytes = AuditEventDataCodec.encode(createEventDataArray());
+    bytes[0] = 2;
+    AuditEventDataCodec.decode(bytes);
+  }
+
+  @Test
+  public void testRoundTrip() {
+    EventData[] eventDataArray = createEventDataArray();
+
+    StoredEventData[] decoded =
+        AuditEventDataCodec.decode(AuditEventDataCodec.encode(eventDataArray));
+
+    Assert.assertEquals(eventDataArray.length, decoded.length);
+    for (int i = 0; i < eventDataArray.length; i++) {
+      EventData expected = eventDataArray[i];
+      StoredEventData actual = decoded[i];
+      Assert.assertEquals(expected.eventDataName, actual.eventDataName);
+      Assert.assertEquals(expected.eventDataType, actual.eventDataType);
+      Assert.assertEquals(expected.numberValue, actual.numberValue);
+      Assert.assertEquals(expected.textValue, actual.textValue);
+      Assert.assertEquals(expected.timestampValue, actual.timestampValue);
+    }
+  }
+
+  @Test
+  public void testRoundTripEmpty() {
+    Assert.assertEquals(0,
+        AuditEventDataCodec.decode(AuditEventDataCodec.encode(new EventData[0])).length);
+  }
+
+  @Test
+  public void testStringAndTextTypesKept() {
+    StoredEventData[] decoded = AuditEventDataCodec.decode(AuditEventDataCodec.encode(
+        new EventData[] {
+            new EventData.Builder("string").buildStringValue("value"),
+            new EventData.Builder("text").buildTextValue("value") }));
+
+    Assert.assertEquals(EventDataType.STRING, decoded[0].eventDataType);
+    Assert.assertEquals(EventDataType.TEXT, decoded[1].eventDataType);
+  }
+
+}
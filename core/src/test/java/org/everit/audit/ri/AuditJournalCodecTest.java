@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.everit.audit.dto.AuditEvent;
+import org.everit.audit.dto.EventData;
+import org.everit.audit.ri.AuditJournalCodec.JournaledAuditEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AuditJournalCodecTest {
+
+  private static AuditEvent createAuditEvent() {
+    return new AuditEvent.Builder()
+        .eventTypeName("login")
+        .occuredAt(Instant.ofEpochSecond(1500000000, 42))
+        .eventDataArray(
+            new EventData.Builder("number").buildNumberValue(3),
+            new EventData.Builder("string").buildStringValue("value"),
+            new EventData.Builder("text").buildTextValue("long value"),
+            new EventData.Builder("timestamp").buildTimestampValue(Instant.ofEpochMilli(1)))
+        .build();
+  }
+
+  @Test
+  public void testDecodeTruncated() {
+    byte[] payload = AuditJournalCodec.encode("app", createAuditEvent());
+    for (int length = 0; length < payload.length; length++) {
+      try {
+        AuditJournalCodec.decode(Arrays.copyOf(payload, length));
+        Assert.fail("truncated to [" + length + "] bytes");
+      } catch (IllegalStateException e) {
+        Assert.assertNotNull(e.getMessage());
+      }
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testDecodeUnknownVersion() {
+    byte[] payload = AuditJournalCodec.encode("app", createAuditEvent());
+    payload[0] = 0;
+    AuditJournalCodec.decode(payload);
+  }
+
+  @Test
+  public void testRoundTrip() {
+    AuditEvent auditEvent = createAuditEvent();
+
+    JournaledAuditEvent decoded =
+        AuditJournalCodec.decode(AuditJournalCodec.encode("app", auditEvent));
+
+    Assert.assertEquals("app", decoded.applicationName);
+    Assert.assertEquals(auditEvent.eventTypeName, decoded.auditEvent.eventTypeName);
+    Assert.assertEquals(auditEvent.occuredAt, decoded.auditEvent.occuredAt);
+    Assert.assertEquals(auditEvent.eventDataArray.length,
+        decoded.auditEvent.eventDataArray.length);
+    for (int i = 0; i < auditEvent.eventDataArray.length; i++) {
+      EventData expected = auditEvent.eventDataArray[i];
+      EventData actual = decoded.auditEvent.eventDataArray[i];
+      Assert.assertEquals(expected.eventDataName, actual.eventDataName);
+      Assert.assertEquals(expected.eventDataType, actual.eventDataType);
+      Assert.assertEquals(expected.numberValue, actual.numberValue);
+      Assert.assertEquals(expected.textValue, actual.textValue);
+      Assert.assertEquals(expected.timestampValue, actual.timestampValue);
+    }
+  }
+
+}
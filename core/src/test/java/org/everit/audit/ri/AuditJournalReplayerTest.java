@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AuditJournalReplayerTest {
+
+  private static final int BATCH_SIZE = 4;
+
+  private AuditTestEnvironment environment;
+
+  private final List<RuntimeException> failures = new ArrayList<>();
+
+  private InternalAuditService internalAuditService;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @After
+  public void after() {
+    environment.close();
+  }
+
+  private void append(final AuditJournal journal, final String applicationName, final int count) {
+    for (int i = 0; i < count; i++) {
+      journal.append(Collections.singletonList(AuditJournalCodec.encode(applicationName,
+          AuditTestEnvironment.createAuditEvent("type", Instant.now(), 2))));
+    }
+  }
+
+  @Before
+  public void before() {
+    environment = new AuditTestEnvironment();
+    internalAuditService =
+        environment.createInternalAuditService(new AuditConfiguration.Builder().build());
+    internalAuditService.initAuditApplication(AuditTestEnvironment.APPLICATION_NAME);
+  }
+
+  private long countEvents() {
+    return environment.queryLong("SELECT COUNT(*) FROM \"audit_event\"");
+  }
+
+  private AuditJournal openJournal() {
+    return new AuditJournal(new AuditJournalConfiguration.Builder()
+        .directory(temporaryFolder.getRoot().toPath())
+        .segmentSize(AuditJournal.MIN_SEGMENT_SIZE)
+        .build());
+  }
+
+  private int replayAll(final AuditJournalReplayer replayer) {
+    int rval = 0;
+    int processedCount = replayer.replayNextBatch();
+    while (processedCount > 0) {
+      rval += processedCount;
+      processedCount = replayer.replayNextBatch();
+    }
+    return rval;
+  }
+
+  @Test
+  public void testReplayedRecordsAreNotReplayedAfterReopen() {
+    try (AuditJournal journal = openJournal()) {
+      append(journal, AuditTestEnvironment.APPLICATION_NAME, 10);
+      AuditJournalReplayer replayer = new AuditJournalReplayer(journal, internalAuditService,
+          BATCH_SIZE, failures::add);
+
+      Assert.assertEquals(BATCH_SIZE, replayer.replayNextBatch());
+      Assert.assertEquals(BATCH_SIZE, countEvents());
+    }
+
+    try (AuditJournal journal = openJournal()) {
+      AuditJournalReplayer replayer = new AuditJournalReplayer(journal, internalAuditService,
+          BATCH_SIZE, failures::add);
+
+      Assert.assertEquals(10 - BATCH_SIZE, replayAll(replayer));
+      Assert.assertEquals(10, countEvents());
+
+      append(journal, AuditTestEnvironment.APPLICATION_NAME, 1);
+      Assert.assertEquals(1, replayAll(replayer));
+    }
+
+    try (AuditJournal journal = openJournal()) {
+      AuditJournalReplayer replayer = new AuditJournalReplayer(journal, internalAuditService,
+          BATCH_SIZE, failures::add);
+
+      Assert.assertEquals(0, replayAll(replayer));
+    }
+    Assert.assertEquals(11, countEvents());
+    Assert.assertTrue(failures.isEmpty());
+  }
+
+  @Test
+  public void testUnknownAuditApplicationIsDeadLettered() {
+    try (AuditJournal journal = openJournal()) {
+      append(journal, AuditTestEnvironment.APPLICATION_NAME, 2);
+      append(journal, "unknown", 1);
+      append(journal, AuditTestEnvironment.APPLICATION_NAME, 2);
+      AuditJournalReplayer replayer = new AuditJournalReplayer(journal, internalAuditService,
+          BATCH_SIZE, failures::add);
+
+      Assert.assertEquals(5, replayAll(replayer));
+    }
+
+    Assert.assertEquals(4, countEvents());
+    Assert.assertEquals(1, failures.size());
+    Assert.assertTrue(failures.get(0) instanceof UnknownAuditApplicationException);
+  }
+
+}
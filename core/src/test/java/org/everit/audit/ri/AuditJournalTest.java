@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AuditJournalTest {
+
+  private static final int PAYLOAD_SIZE = 1000;
+
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  /**
+   * The number of records of {@link #PAYLOAD_SIZE} fitting into one segment.
+   */
+  private static final int RECORDS_PER_SEGMENT =
+      AuditJournal.MIN_SEGMENT_SIZE / (RECORD_HEADER_SIZE + PAYLOAD_SIZE);
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static byte[] createPayload(final int index) {
+    byte[] rval = new byte[PAYLOAD_SIZE];
+    Arrays.fill(rval, (byte) index);
+    byte[] prefix = ("record" + index).getBytes(StandardCharsets.UTF_8);
+    System.arraycopy(prefix, 0, rval, 0, prefix.length);
+    return rval;
+  }
+
+  private void append(final AuditJournal journal, final int fromIndex, final int toIndex) {
+    for (int i = fromIndex; i < toIndex; i++) {
+      journal.append(Collections.singletonList(createPayload(i)));
+    }
+  }
+
+  private void assertPayloads(final List<AuditJournalRecord> records, final int fromIndex,
+      final int toIndex) {
+    Assert.assertEquals(toIndex - fromIndex, records.size());
+    for (int i = fromIndex; i < toIndex; i++) {
+      AuditJournalRecord record = records.get(i - fromIndex);
+      Assert.assertFalse(record.corrupted);
+      Assert.assertArrayEquals(createPayload(i), record.payload);
+    }
+  }
+
+  private AuditJournal openJournal(final int maxSegmentCount) {
+    return new AuditJournal(new AuditJournalConfiguration.Builder()
+        .directory(temporaryFolder.getRoot().toPath())
+        .segmentSize(AuditJournal.MIN_SEGMENT_SIZE)
+        .maxSegmentCount(maxSegmentCount)
+        .build());
+  }
+
+  /**
+   * Reads every record after the checkpoint without moving it.
+   */
+  private List<AuditJournalRecord> readAll(final AuditJournal journal) {
+    List<AuditJournalRecord> rval = new ArrayList<>();
+    AuditJournalPosition position = journal.getCheckpoint();
+    List<AuditJournalRecord> records = journal.read(position, Integer.MAX_VALUE);
+    while (!records.isEmpty()) {
+      rval.addAll(records);
+      position = records.get(records.size() - 1).endPosition;
+      records = journal.read(position, Integer.MAX_VALUE);
+    }
+    return rval;
+  }
+
+  private Path segmentPath(final long segmentId) {
+    return temporaryFolder.getRoot().toPath()
+        .resolve("segment-" + String.format("%019d", segmentId) + ".journal");
+  }
+
+  private void write(final Path path, final int offset, final byte[] bytes) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(bytes), offset);
+    }
+  }
+
+  @Test
+  public void testAppendAndRead() {
+    try (AuditJournal journal = openJournal(4)) {
+      append(journal, 0, RECORDS_PER_SEGMENT * 2 + 1);
+
+      assertPayloads(readAll(journal), 0, RECORDS_PER_SEGMENT * 2 + 1);
+
+      List<AuditJournalRecord> firstRecords = journal.read(journal.getCheckpoint(), 2);
+      assertPayloads(firstRecords, 0, 2);
+    }
+  }
+
+  @Test
+  public void testCheckpointDeletesProcessedSegments() {
+    try (AuditJournal journal = openJournal(4)) {
+      append(journal, 0, RECORDS_PER_SEGMENT * 2 + 1);
+      Assert.assertTrue(Files.exists(segmentPath(0)));
+
+      List<AuditJournalRecord> records =
+          journal.read(journal.getCheckpoint(), RECORDS_PER_SEGMENT + 1);
+      journal.updateCheckpoint(records.get(records.size() - 1).endPosition);
+
+      Assert.assertFalse(Files.exists(segmentPath(0)));
+      Assert.assertTrue(Files.exists(segmentPath(1)));
+      assertPayloads(readAll(journal), RECORDS_PER_SEGMENT + 1, RECORDS_PER_SEGMENT * 2 + 1);
+    }
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void testCorruptedCheckpoint() throws IOException {
+    try (AuditJournal journal = openJournal(4)) {
+      append(journal, 0, 2);
+      journal.updateCheckpoint(journal.read(journal.getCheckpoint(), 1).get(0).endPosition);
+    }
+    write(temporaryFolder.getRoot().toPath().resolve("checkpoint"), 0, new byte[] { 1 });
+
+    openJournal(4);
+  }
+
+  @Test
+  public void testCorruptedRecordIsSkipped() throws IOException {
+    try (AuditJournal journal = openJournal(4)) {
+      append(journal, 0, RECORDS_PER_SEGMENT + 1);
+    }
+    // a bit flip in the payload of the second record of the closed first segment
+    write(segmentPath(0), (RECORD_HEADER_SIZE + PAYLOAD_SIZE) + RECORD_HEADER_SIZE + 10,
+        new byte[] { 0x7f });
+
+    try (AuditJournal journal = openJournal(4)) {
+      assertPayloads(journal.read(journal.getCheckpoint(), Integer.MAX_VALUE), 0, 1);
+
+      AuditJournalPosition afterFirst =
+          journal.read(journal.getCheckpoint(), 1).get(0).endPosition;
+      List<AuditJournalRecord> corrupted = journal.read(afterFirst, Integer.MAX_VALUE);
+      Assert.assertEquals(1, corrupted.size());
+      Assert.assertTrue(corrupted.get(0).corrupted);
+      Assert.assertEquals(PAYLOAD_SIZE, corrupted.get(0).payload.length);
+
+      assertPayloads(journal.read(corrupted.get(0).endPosition, Integer.MAX_VALUE), 2,
+          RECORDS_PER_SEGMENT + 1);
+    }
+  }
+
+  @Test
+  public void testGarbageLengthIsClearedOnOpen() throws IOException {
+    try (AuditJournal journal = openJournal(4)) {
+      append(journal, 0, 1);
+    }
+    write(segmentPath(0), RECORD_HEADER_SIZE + PAYLOAD_SIZE,
+        ByteBuffer.allocate(RECORD_HEADER_SIZE).putInt(Integer.MAX_VALUE).putInt(0).array());
+
+    try (AuditJournal journal = openJournal(4)) {
+      append(journal, 1, 2);
+      assertPayloads(readAll(journal), 0, 2);
+    }
+  }
+
+  @Test
+  public void testInvalidLengthSkipsRestOfSegment() throws IOException {
+    try (AuditJournal journal = openJournal(4)) {
+      append(journal, 0, RECORDS_PER_SEGMENT + 1);
+    }
+    write(segmentPath(0), RECORD_HEADER_SIZE + PAYLOAD_SIZE,
+        ByteBuffer.allocate(Integer.BYTES).putInt(Integer.MAX_VALUE).array());
+
+    try (AuditJournal journal = openJournal(4)) {
+      AuditJournalPosition afterFirst =
+          journal.read(journal.getCheckpoint(), 1).get(0).endPosition;
+      List<AuditJournalRecord> corrupted = journal.read(afterFirst, Integer.MAX_VALUE);
+      Assert.assertEquals(1, corrupted.size());
+      Assert.assertTrue(corrupted.get(0).corrupted);
+      Assert.assertEquals(1, corrupted.get(0).endPosition.segmentId);
+      Assert.assertEquals(0, corrupted.get(0).endPosition.offset);
+
+      assertPayloads(journal.read(corrupted.get(0).endPosition, Integer.MAX_VALUE),
+          RECORDS_PER_SEGMENT, RECORDS_PER_SEGMENT + 1);
+    }
+  }
+
+  @Test
+  public void testJournalFull() {
+    try (AuditJournal journal = openJournal(2)) {
+      append(journal, 0, RECORDS_PER_SEGMENT * 2);
+      try {
+        append(journal, RECORDS_PER_SEGMENT * 2, RECORDS_PER_SEGMENT * 2 + 1);
+        Assert.fail();
+      } catch (AuditJournalFullException e) {
+        Assert.assertNotNull(e.getMessage());
+      }
+
+      // the first segment is deleted once the checkpoint moves into the second one
+      journal.updateCheckpoint(journal.read(journal.getCheckpoint(), RECORDS_PER_SEGMENT + 1)
+          .get(RECORDS_PER_SEGMENT).endPosition);
+      append(journal, RECORDS_PER_SEGMENT * 2, RECORDS_PER_SEGMENT * 2 + 1);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPayloadLargerThanSegment() {
+    try (AuditJournal journal = openJournal(4)) {
+      journal.append(Collections.singletonList(new byte[AuditJournal.MIN_SEGMENT_SIZE]));
+    }
+  }
+
+  @Test
+  public void testReopenContinuesAfterCheckpoint() {
+    try (AuditJournal journal = openJournal(4)) {
+      append(journal, 0, 3);
+      journal.updateCheckpoint(journal.read(journal.getCheckpoint(), 1).get(0).endPosition);
+    }
+
+    try (AuditJournal journal = openJournal(4)) {
+      assertPayloads(readAll(journal), 1, 3);
+      append(journal, 3, 4);
+      assertPayloads(readAll(journal), 1, 4);
+    }
+  }
+
+  @Test
+  public void testTornRecordIsClearedOnOpen() throws IOException {
+    try (AuditJournal journal = openJournal(4)) {
+      append(journal, 0, 2);
+    }
+    // a crash while the third record was written: its header and a part of its payload
+    int tornOffset = 2 * (RECORD_HEADER_SIZE + PAYLOAD_SIZE);
+    write(segmentPath(0), tornOffset,
+        ByteBuffer.allocate(RECORD_HEADER_SIZE + 10).putInt(PAYLOAD_SIZE).putInt(12345).array());
+
+    try (AuditJournal journal = openJournal(4)) {
+      assertPayloads(readAll(journal), 0, 2);
+
+      append(journal, 2, 3);
+      assertPayloads(readAll(journal), 0, 3);
+    }
+
+    try (AuditJournal journal = openJournal(4)) {
+      assertPayloads(readAll(journal), 0, 3);
+    }
+  }
+
+}
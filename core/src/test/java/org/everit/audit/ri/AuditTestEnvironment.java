@@ -0,0 +1,439 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.everit.audit.dto.AuditEvent;
+import org.everit.audit.dto.EventData;
+import org.everit.authnr.permissionchecker.AuthnrPermissionChecker;
+import org.everit.authorization.AuthorizationManager;
+import org.everit.persistence.querydsl.support.QuerydslCallable;
+import org.everit.persistence.querydsl.support.QuerydslSupport;
+import org.everit.props.PropertyManager;
+import org.everit.resource.ResourceService;
+import org.everit.transaction.propagator.TransactionPropagator;
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ClassLoaderResourceAccessor;
+
+/**
+ * A new in-memory H2 database with the audit schema applied by Liquibase and the services required
+ * by the audit implementation. Every permission is granted.
+ */
+class AuditTestEnvironment implements AutoCloseable {
+
+  /**
+   * {@link PropertyManager} keeping the properties in memory.
+   */
+  private static final class InMemoryPropertyManager implements PropertyManager {
+
+    private final Map<String, String> properties = new ConcurrentHashMap<>();
+
+    @Override
+    public void addProperty(final String key, final String value) {
+      properties.put(key, value);
+    }
+
+    @Override
+    public String getProperty(final String key) {
+      return properties.get(key);
+    }
+
+    @Override
+    public String removeProperty(final String key) {
+      return properties.remove(key);
+    }
+
+    @Override
+    public String updateProperty(final String key, final String value) {
+      return properties.put(key, value);
+    }
+
+  }
+
+  /**
+   * {@link TransactionPropagator} binding one JDBC connection to the thread for each transaction.
+   * Suspending a transaction is not supported, {@link #notSupported(Callable)} and
+   * {@link #supports(Callable)} run the action in the current context.
+   */
+  private static final class JdbcTransactionPropagator implements TransactionPropagator {
+
+    private final ThreadLocal<Deque<Connection>> connections =
+        ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final JdbcConnectionPool dataSource;
+
+    JdbcTransactionPropagator(final JdbcConnectionPool dataSource) {
+      this.dataSource = dataSource;
+    }
+
+    private <R> R call(final Callable<R> action) {
+      try {
+        return action.call();
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    Connection getCurrentConnection() {
+      return connections.get().peek();
+    }
+
+    private <R> R inNewTransaction(final Callable<R> action) {
+      Connection connection;
+      try {
+        connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+
+      Deque<Connection> threadConnections = connections.get();
+      threadConnections.push(connection);
+      try {
+        R result = call(action);
+        connection.commit();
+        return result;
+      } catch (SQLException e) {
+        rollback(connection);
+        throw new IllegalStateException(e);
+      } catch (RuntimeException | Error e) {
+        rollback(connection);
+        throw e;
+      } finally {
+        threadConnections.pop();
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+
+    @Override
+    public <R> R mandatory(final Callable<R> action) {
+      if (getCurrentConnection() == null) {
+        throw new IllegalStateException("No active transaction");
+      }
+      return call(action);
+    }
+
+    @Override
+    public <R> R never(final Callable<R> action) {
+      if (getCurrentConnection() != null) {
+        throw new IllegalStateException("Active transaction");
+      }
+      return call(action);
+    }
+
+    @Override
+    public <R> R notSupported(final Callable<R> action) {
+      return call(action);
+    }
+
+    @Override
+    public <R> R required(final Callable<R> action) {
+      if (getCurrentConnection() != null) {
+        return call(action);
+      }
+      return inNewTransaction(action);
+    }
+
+    @Override
+    public <R> R requiresNew(final Callable<R> action) {
+      return inNewTransaction(action);
+    }
+
+    private void rollback(final Connection connection) {
+      try {
+        connection.rollback();
+      } catch (SQLException e) {
+        // the original exception is more important
+      }
+    }
+
+    @Override
+    public <R> R supports(final Callable<R> action) {
+      return call(action);
+    }
+
+  }
+
+  /**
+   * {@link AuthnrPermissionChecker} granting every permission.
+   */
+  private static final class PermissiveAuthnrPermissionChecker
+      implements AuthnrPermissionChecker {
+
+    @Override
+    public void checkPermission(final long targetResourceId, final String... actions) {
+      // every permission is granted
+    }
+
+    @Override
+    public long[] getAuthorizationScope() {
+      return new long[] { SYSTEM_RESOURCE_ID };
+    }
+
+    @Override
+    public long getSystemResourceId() {
+      return SYSTEM_RESOURCE_ID;
+    }
+
+    @Override
+    public boolean hasPermission(final long targetResourceId, final String... actions) {
+      return true;
+    }
+
+  }
+
+  /**
+   * {@link AuthorizationManager} ignoring the permission changes.
+   */
+  private static final class PermissiveAuthorizationManager implements AuthorizationManager {
+
+    @Override
+    public void addPermission(final long authorizedResourceId, final long targetResourceId,
+        final String action) {
+      // permissions are not stored
+    }
+
+    @Override
+    public void addPermissionInheritance(final long parentResourceId,
+        final long childResourceId) {
+      // permissions are not stored
+    }
+
+    @Override
+    public void clearCache() {
+      // nothing is cached
+    }
+
+    @Override
+    public void removePermission(final long authorizedResourceId, final long targetResourceId,
+        final String action) {
+      // permissions are not stored
+    }
+
+    @Override
+    public void removePermissionInheritance(final long parentResourceId,
+        final long childResourceId) {
+      // permissions are not stored
+    }
+
+  }
+
+  /**
+   * {@link ResourceService} inserting the resources into the <code>res_resource</code> table
+   * created by the test changelog.
+   */
+  private static final class TableResourceService implements ResourceService {
+
+    private final QuerydslSupport querydslSupport;
+
+    TableResourceService(final QuerydslSupport querydslSupport) {
+      this.querydslSupport = querydslSupport;
+    }
+
+    @Override
+    public long createResource() {
+      return querydslSupport.execute((connection, configuration) -> {
+        try (PreparedStatement statement = connection.prepareStatement(
+            "INSERT INTO \"res_resource\" DEFAULT VALUES", Statement.RETURN_GENERATED_KEYS)) {
+          statement.executeUpdate();
+          try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            generatedKeys.next();
+            return generatedKeys.getLong(1);
+          }
+        }
+      });
+    }
+
+    @Override
+    public void deleteResource(final long resourceId) {
+      querydslSupport.execute((connection, configuration) -> {
+        try (PreparedStatement statement = connection.prepareStatement(
+            "DELETE FROM \"res_resource\" WHERE \"resource_id\" = ?")) {
+          statement.setLong(1, resourceId);
+          return statement.executeUpdate();
+        }
+      });
+    }
+
+  }
+
+  public static final String APPLICATION_NAME = "test";
+
+  private static final String AUDIT_CHANGELOG = "META-INF/liquibase/audit.ri.liquibase.xml";
+
+  private static final int CACHE_SIZE = 1000;
+
+  private static final int MAX_CONNECTIONS = 32;
+
+  /**
+   * Stands in for the <code>org.everit.resource.ri.eosgi</code> include of the audit changelog
+   * that is skipped by plain Liquibase.
+   */
+  private static final String RESOURCE_CHANGELOG =
+      "META-INF/liquibase/test.resource.liquibase.xml";
+
+  private static final long SYSTEM_RESOURCE_ID = 0;
+
+  /**
+   * Creates an event with the given number of string data.
+   */
+  static AuditEvent createAuditEvent(final String eventTypeName, final Instant occuredAt,
+      final int eventDataCount) {
+    EventData[] eventDataArray = new EventData[eventDataCount];
+    for (int i = 0; i < eventDataCount; i++) {
+      eventDataArray[i] = new EventData.Builder("data" + i).buildStringValue("value" + i);
+    }
+    return new AuditEvent.Builder()
+        .eventTypeName(eventTypeName)
+        .occuredAt(occuredAt)
+        .eventDataArray(eventDataArray)
+        .build();
+  }
+
+  final AuditRequiredServices auditRequiredServices;
+
+  private final JdbcConnectionPool connectionPool;
+
+  /**
+   * The number of the database accesses through the {@link QuerydslSupport} of the
+   * {@link #auditRequiredServices}.
+   */
+  final AtomicInteger executeCount = new AtomicInteger();
+
+  AuditTestEnvironment() {
+    connectionPool = JdbcConnectionPool.create(
+        "jdbc:h2:mem:audit-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    connectionPool.setMaxConnections(MAX_CONNECTIONS);
+
+    updateSchema();
+
+    JdbcTransactionPropagator transactionPropagator =
+        new JdbcTransactionPropagator(connectionPool);
+    // the changelogs quote all object names, so the tables have lower case names
+    Configuration configuration = new Configuration(H2Templates.builder().quote().build());
+    QuerydslSupport querydslSupport = new QuerydslSupport() {
+
+      @Override
+      public <R> R execute(final QuerydslCallable<R> callable) {
+        executeCount.incrementAndGet();
+        Connection connection = transactionPropagator.getCurrentConnection();
+        try {
+          if (connection != null) {
+            return callable.call(connection, configuration);
+          }
+          try (Connection autoCommitConnection = connectionPool.getConnection()) {
+            return callable.call(autoCommitConnection, configuration);
+          }
+        } catch (SQLException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+
+    auditRequiredServices = new AuditRequiredServices(
+        new PermissiveAuthnrPermissionChecker(), new PermissiveAuthorizationManager(),
+        new InMemoryPropertyManager(), new TableResourceService(querydslSupport),
+        querydslSupport, transactionPropagator);
+  }
+
+  @Override
+  public void close() {
+    try (Connection connection = connectionPool.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("SHUTDOWN");
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      connectionPool.dispose();
+    }
+  }
+
+  /**
+   * Creates an audit service with its own caches.
+   */
+  InternalAuditService createInternalAuditService(final AuditConfiguration auditConfiguration) {
+    return new InternalAuditService(
+        new BoundedAuditCache<>(CACHE_SIZE),
+        new AuditEventTypeRegistry(() -> new BoundedAuditCache<>(CACHE_SIZE)),
+        auditRequiredServices, auditConfiguration);
+  }
+
+  /**
+   * Runs the SQL statement and returns the first column of the first row.
+   */
+  long queryLong(final String sql) {
+    try (Connection connection = connectionPool.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Runs the SQL statement on a new auto-commit connection.
+   */
+  void update(final String sql) {
+    try (Connection connection = connectionPool.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.executeUpdate(sql);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void updateSchema() {
+    try (Connection connection = connectionPool.getConnection()) {
+      ClassLoaderResourceAccessor resourceAccessor =
+          new ClassLoaderResourceAccessor(AuditTestEnvironment.class.getClassLoader());
+      for (String changelog : new String[] { RESOURCE_CHANGELOG, AUDIT_CHANGELOG }) {
+        new Liquibase(changelog, resourceAccessor, new JdbcConnection(connection))
+            .update("");
+      }
+    } catch (SQLException | LiquibaseException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AuditTextCompressorTest {
+
+  private static String createCompressibleText() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sb.append("line ").append(i % 10).append(" \u00e1rv\u00edzt\u0171r\u0151\n");
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void testDeflateIncompressible() {
+    Random random = new Random(0);
+    char[] text = new char[100];
+    for (int i = 0; i < text.length; i++) {
+      text[i] = (char) ('!' + random.nextInt(90));
+    }
+    Assert.assertNull(AuditTextCompressor.deflate(new String(text)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInflateInvalid() {
+    AuditTextCompressor.inflate(new byte[] { 1, 2, 3, 4, 5 });
+  }
+
+  @Test
+  public void testInflateTruncated() {
+    byte[] compressed = AuditTextCompressor.deflate(createCompressibleText());
+    for (int length = 0; length < compressed.length; length++) {
+      try {
+        AuditTextCompressor.inflate(Arrays.copyOf(compressed, length));
+        Assert.fail("truncated to [" + length + "] bytes");
+      } catch (IllegalArgumentException e) {
+        Assert.assertNotNull(e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testRoundTrip() {
+    String text = createCompressibleText();
+
+    byte[] compressed = AuditTextCompressor.deflate(text);
+
+    Assert.assertNotNull(compressed);
+    Assert.assertTrue(compressed.length < text.length());
+    Assert.assertEquals(text, AuditTextCompressor.inflate(compressed));
+  }
+
+}
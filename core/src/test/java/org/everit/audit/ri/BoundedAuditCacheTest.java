@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BoundedAuditCacheTest {
+
+  private static final int THREAD_COUNT = 8;
+
+  private static void runConcurrently(final Runnable action) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < THREAD_COUNT; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          action.run();
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentPutsStayBounded() throws Exception {
+    BoundedAuditCache<Integer, Integer> cache = new BoundedAuditCache<>(100);
+    AtomicInteger maxSize = new AtomicInteger();
+
+    runConcurrently(() -> {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (int i = 0; i < 20000; i++) {
+        int key = random.nextInt(1000);
+        cache.put(key, key);
+        Integer value = cache.get(random.nextInt(1000));
+        if (value != null) {
+          Assert.assertTrue(value < 1000);
+        }
+        maxSize.accumulateAndGet(cache.size(), Math::max);
+      }
+    });
+
+    Assert.assertTrue(maxSize.get() <= 100);
+    Assert.assertTrue(cache.getStatistics().evictionCount > 0);
+    for (Integer key : cache.keySet()) {
+      Assert.assertEquals(key, cache.get(key));
+    }
+  }
+
+  @Test
+  public void testExpiration() throws InterruptedException {
+    BoundedAuditCache<String, String> cache = new BoundedAuditCache<>(10, 50);
+    cache.put("key", "value");
+    Assert.assertEquals("value", cache.get("key"));
+
+    Thread.sleep(100);
+
+    Assert.assertNull(cache.get("key"));
+    Assert.assertFalse(cache.containsKey("key"));
+    Assert.assertEquals(1, cache.getStatistics().expirationCount);
+  }
+
+  @Test
+  public void testReferencedEntriesSurviveEviction() throws Exception {
+    BoundedAuditCache<Integer, Integer> cache = new BoundedAuditCache<>(100);
+    for (int i = 0; i < 50; i++) {
+      cache.put(i, i);
+    }
+
+    runConcurrently(() -> {
+      for (int round = 0; round < 100; round++) {
+        for (int i = 0; i < 50; i++) {
+          cache.get(i);
+        }
+        int key = 1000 + ThreadLocalRandom.current().nextInt(100000);
+        cache.put(key, key);
+      }
+    });
+
+    int retainedCount = 0;
+    for (int i = 0; i < 50; i++) {
+      if (cache.containsKey(i)) {
+        retainedCount++;
+      }
+    }
+    Assert.assertTrue("retained " + retainedCount, retainedCount >= 40);
+    Assert.assertTrue(cache.size() <= 100);
+  }
+
+  @Test
+  public void testStatistics() {
+    BoundedAuditCache<String, String> cache = new BoundedAuditCache<>(1);
+    cache.put("a", "1");
+    cache.get("a");
+    cache.get("b");
+    cache.put("b", "2");
+
+    AuditCacheStatistics statistics = cache.getStatistics();
+    Assert.assertEquals(1, statistics.hitCount);
+    Assert.assertEquals(1, statistics.missCount);
+    Assert.assertEquals(1, statistics.evictionCount);
+    Assert.assertEquals(1, statistics.size);
+    Assert.assertEquals("2", cache.get("b"));
+  }
+
+}
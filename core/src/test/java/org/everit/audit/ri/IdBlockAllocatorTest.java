@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.everit.audit.ri.schema.qdsl.QEvent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IdBlockAllocatorTest {
+
+  private static final int BLOCK_SIZE = 10;
+
+  private static final int THREAD_COUNT = 8;
+
+  private AuditTestEnvironment environment;
+
+  @After
+  public void after() {
+    environment.close();
+  }
+
+  @Before
+  public void before() {
+    environment = new AuditTestEnvironment();
+  }
+
+  private IdBlockAllocator createAllocator() {
+    return new IdBlockAllocator("test", () -> Collections.singletonList(QEvent.event.eventId),
+        BLOCK_SIZE, environment.auditRequiredServices.querydslSupport,
+        environment.auditRequiredServices.transactionPropagator);
+  }
+
+  private InternalAuditService createPartitionedAuditService() {
+    return environment.createInternalAuditService(new AuditConfiguration.Builder()
+        .eventPartitionManager(new AuditEventPartitionManager(AuditEventPartitionPeriod.DAY,
+            environment.auditRequiredServices))
+        .build());
+  }
+
+  @Test
+  public void testConcurrentAllocationsAreUnique() throws Exception {
+    IdBlockAllocator[] allocators = new IdBlockAllocator[] { createAllocator(), createAllocator() };
+    Set<Long> ids = ConcurrentHashMap.newKeySet();
+    AtomicInteger allocatedCount = new AtomicInteger();
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < THREAD_COUNT; i++) {
+        IdBlockAllocator allocator = allocators[i % allocators.length];
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int j = 0; j < 200; j++) {
+            for (long id : allocator.allocate(ThreadLocalRandom.current().nextInt(1, 25))) {
+              Assert.assertTrue(id > 0);
+              ids.add(id);
+              allocatedCount.incrementAndGet();
+            }
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals(allocatedCount.get(), ids.size());
+  }
+
+  @Test
+  public void testSequenceStartsAfterPartitionedIds() {
+    InternalAuditService internalAuditService = createPartitionedAuditService();
+    internalAuditService.initAuditApplication(AuditTestEnvironment.APPLICATION_NAME);
+    Instant now = Instant.now();
+    for (int i = 0; i < 5; i++) {
+      internalAuditService.logEvent(AuditTestEnvironment.APPLICATION_NAME,
+          AuditTestEnvironment.createAuditEvent("type", now, 1));
+    }
+    internalAuditService.close();
+
+    environment.update("DELETE FROM \"audit_id_sequence\"");
+
+    internalAuditService = createPartitionedAuditService();
+    internalAuditService.logEvent(AuditTestEnvironment.APPLICATION_NAME,
+        AuditTestEnvironment.createAuditEvent("type", now, 1));
+    internalAuditService.close();
+
+    List<AuditEventPartition> partitions = new AuditEventPartitionManager(
+        AuditEventPartitionPeriod.DAY, environment.auditRequiredServices).getPartitions();
+    Assert.assertEquals(1, partitions.size());
+    String eventTableName = partitions.get(0).eventTableName;
+    Assert.assertEquals(6, environment.queryLong(
+        "SELECT COUNT(DISTINCT \"event_id\") FROM \"" + eventTableName + "\""));
+    Assert.assertEquals(0, environment.queryLong("SELECT COUNT(*) FROM \"audit_event\""));
+  }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.everit.audit.ri.dto.AuditEventCursor;
+import org.everit.audit.ri.dto.AuditEventPage;
+import org.everit.audit.ri.dto.AuditEventQuery;
+import org.everit.audit.ri.dto.StoredAuditEvent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InternalAuditEventQueryServiceTest {
+
+  private static final int DAY_COUNT = 3;
+
+  private static final int EVENTS_PER_DAY = 12;
+
+  private AuditTestEnvironment environment;
+
+  @After
+  public void after() {
+    environment.close();
+  }
+
+  @Before
+  public void before() {
+    environment = new AuditTestEnvironment();
+  }
+
+  /**
+   * Logs the events of the second day first, so the first day is stored in the default tables and
+   * the others in partitions. The rest of the events are logged in random order. Every second
+   * event of a day has the same occurrence time as the previous one.
+   */
+  private List<Instant> logEvents(final InternalAuditService internalAuditService) {
+    Instant firstDay = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(Duration.ofDays(1));
+    List<Instant> occuredAts = new ArrayList<>();
+    for (int day = 0; day < DAY_COUNT; day++) {
+      for (int i = 0; i < EVENTS_PER_DAY; i++) {
+        occuredAts.add(firstDay.plus(Duration.ofDays(day)).plusSeconds(i / 2));
+      }
+    }
+    List<Instant> loggedOccuredAts =
+        new ArrayList<>(occuredAts.subList(EVENTS_PER_DAY, EVENTS_PER_DAY * 2));
+    List<Instant> otherOccuredAts = new ArrayList<>(occuredAts.subList(0, EVENTS_PER_DAY));
+    otherOccuredAts.addAll(occuredAts.subList(EVENTS_PER_DAY * 2, occuredAts.size()));
+    Collections.shuffle(otherOccuredAts, new Random(0));
+    loggedOccuredAts.addAll(otherOccuredAts);
+    for (Instant occuredAt : loggedOccuredAts) {
+      internalAuditService.logEvent(AuditTestEnvironment.APPLICATION_NAME,
+          AuditTestEnvironment.createAuditEvent("type", occuredAt, 2));
+    }
+    return occuredAts;
+  }
+
+  private void testPagination(final AuditEventDataFormat eventDataFormat) {
+    InternalAuditService internalAuditService =
+        environment.createInternalAuditService(new AuditConfiguration.Builder()
+            .eventDataFormat(eventDataFormat)
+            .eventPartitionManager(new AuditEventPartitionManager(AuditEventPartitionPeriod.DAY,
+                environment.auditRequiredServices))
+            .build());
+    internalAuditService.initAuditApplication(AuditTestEnvironment.APPLICATION_NAME);
+    List<Instant> occuredAts = logEvents(internalAuditService);
+
+    InternalAuditEventQueryService queryService = new InternalAuditEventQueryService(
+        internalAuditService, environment.auditRequiredServices);
+
+    List<StoredAuditEvent> auditEvents = new ArrayList<>();
+    AuditEventCursor cursor = null;
+    do {
+      AuditEventPage page = queryService.queryEvents(new AuditEventQuery.Builder()
+          .applicationName(AuditTestEnvironment.APPLICATION_NAME)
+          .pageSize(5)
+          .cursor(cursor)
+          .build());
+      Assert.assertTrue(page.auditEvents.size() <= 5);
+      auditEvents.addAll(page.auditEvents);
+      cursor = page.nextCursor;
+    } while (cursor != null);
+
+    Assert.assertEquals(EVENTS_PER_DAY,
+        environment.queryLong("SELECT COUNT(*) FROM \"audit_event\""));
+    Assert.assertEquals(occuredAts.size(), auditEvents.size());
+    Set<Long> eventIds = new HashSet<>();
+    StoredAuditEvent previous = null;
+    for (int i = 0; i < auditEvents.size(); i++) {
+      StoredAuditEvent auditEvent = auditEvents.get(i);
+      Assert.assertTrue(eventIds.add(auditEvent.eventId));
+      Assert.assertEquals(occuredAts.get(i), auditEvent.occuredAt);
+      if ((previous != null) && previous.occuredAt.equals(auditEvent.occuredAt)) {
+        Assert.assertTrue(previous.eventId < auditEvent.eventId);
+      }
+      Assert.assertEquals(2, auditEvent.eventDataArray.length);
+      Assert.assertEquals("data0", auditEvent.eventDataArray[0].eventDataName);
+      Assert.assertEquals("value1", auditEvent.eventDataArray[1].textValue);
+      previous = auditEvent;
+    }
+  }
+
+  @Test
+  public void testPaginationOfCompactEventData() {
+    testPagination(AuditEventDataFormat.COMPACT);
+  }
+
+  @Test
+  public void testPaginationOfEventDataRows() {
+    testPagination(AuditEventDataFormat.ROWS);
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2011 Everit Kft. (http://www.everit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.everit.audit.ri;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InternalAuditServiceTest {
+
+  private static final int THREAD_COUNT = 16;
+
+  private AuditTestEnvironment environment;
+
+  @After
+  public void after() {
+    environment.close();
+  }
+
+  private void assertUnknown(final InternalAuditService internalAuditService) {
+    try {
+      internalAuditService.requireAuditApplication(AuditTestEnvironment.APPLICATION_NAME);
+      Assert.fail("UnknownAuditApplicationException expected");
+    } catch (UnknownAuditApplicationException e) {
+      Assert.assertEquals(AuditTestEnvironment.APPLICATION_NAME, e.applicationName);
+    }
+  }
+
+  @Before
+  public void before() {
+    environment = new AuditTestEnvironment();
+  }
+
+  private InternalAuditService createInternalAuditService() {
+    return environment.createInternalAuditService(new AuditConfiguration.Builder().build());
+  }
+
+  /**
+   * Returns the number of database accesses of the action.
+   */
+  private int countExecutions(final Runnable action) {
+    int executeCount = environment.executeCount.get();
+    action.run();
+    return environment.executeCount.get() - executeCount;
+  }
+
+  @Test
+  public void testConcurrentLoadsAreSingleFlight() throws Exception {
+    createInternalAuditService().initAuditApplication(AuditTestEnvironment.APPLICATION_NAME);
+
+    InternalAuditService sequentialAuditService = createInternalAuditService();
+    int sequentialCount = countExecutions(
+        () -> sequentialAuditService.requireAuditApplication(
+            AuditTestEnvironment.APPLICATION_NAME));
+    Assert.assertTrue(sequentialCount > 0);
+
+    InternalAuditService concurrentAuditService = createInternalAuditService();
+    int concurrentCount = countExecutions(() -> {
+      ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+      try {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CachedAuditApplication>> futures = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+          futures.add(executor.submit(() -> {
+            start.await();
+            return concurrentAuditService.requireAuditApplication(
+                AuditTestEnvironment.APPLICATION_NAME);
+          }));
+        }
+        start.countDown();
+        for (Future<CachedAuditApplication> future : futures) {
+          Assert.assertEquals(AuditTestEnvironment.APPLICATION_NAME,
+              future.get(1, TimeUnit.MINUTES).applicationName);
+        }
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      } finally {
+        executor.shutdownNow();
+      }
+    });
+
+    Assert.assertEquals(sequentialCount, concurrentCount);
+  }
+
+  @Test
+  public void testUnknownAuditApplicationIsCached() {
+    InternalAuditService internalAuditService = createInternalAuditService();
+
+    Assert.assertTrue(countExecutions(() -> assertUnknown(internalAuditService)) > 0);
+    Assert.assertEquals(0, countExecutions(() -> assertUnknown(internalAuditService)));
+
+    createInternalAuditService().initAuditApplication(AuditTestEnvironment.APPLICATION_NAME);
+    internalAuditService.invalidateAuditApplication(AuditTestEnvironment.APPLICATION_NAME);
+
+    Assert.assertEquals(AuditTestEnvironment.APPLICATION_NAME, internalAuditService
+        .requireAuditApplication(AuditTestEnvironment.APPLICATION_NAME).applicationName);
+  }
+
+}
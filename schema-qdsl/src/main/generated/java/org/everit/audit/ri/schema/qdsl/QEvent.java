@@ -55,6 +55,8 @@ public class QEvent extends com.querydsl.sql.RelationalPathBase<QEvent> {
 
     public final DateTimePath<java.sql.Timestamp> createdAt = createDateTime("createdAt", java.sql.Timestamp.class);
 
+    public final SimplePath<byte[]> eventDataBlob = createSimple("eventDataBlob", byte[].class);
+
     public final NumberPath<Long> eventId = createNumber("eventId", Long.class);
 
     public final NumberPath<Long> eventTypeId = createNumber("eventTypeId", Long.class);
@@ -87,6 +89,7 @@ public class QEvent extends com.querydsl.sql.RelationalPathBase<QEvent> {
 
     public void addMetadata() {
         addMetadata(createdAt, ColumnMetadata.named("created_at").withIndex(2).ofType(Types.TIMESTAMP).withSize(23).withDigits(10).notNull());
+        addMetadata(eventDataBlob, ColumnMetadata.named("event_data_blob").withIndex(5).ofType(Types.BLOB).withSize(2147483647));
         addMetadata(eventId, ColumnMetadata.named("event_id").withIndex(1).ofType(Types.BIGINT).withSize(19).notNull());
         addMetadata(eventTypeId, ColumnMetadata.named("event_type_id").withIndex(4).ofType(Types.BIGINT).withSize(19).notNull());
         addMetadata(occuredAt, ColumnMetadata.named("occured_at").withIndex(3).ofType(Types.TIMESTAMP).withSize(23).withDigits(10).notNull());
@@ -47,14 +47,20 @@ public class QEventData extends com.querydsl.sql.RelationalPathBase<QEventData>
 
     public class ForeignKeys {
 
+        public final com.querydsl.sql.ForeignKey<QEventDataName> eventDataEventDataNameIdFk = createForeignKey(eventDataNameId, "event_data_name_id");
+
         public final com.querydsl.sql.ForeignKey<QEvent> eventDataEventIdFk = createForeignKey(eventId, "event_id");
 
     }
 
+    public final SimplePath<byte[]> compressedValue = createSimple("compressedValue", byte[].class);
+
     public final NumberPath<Long> eventDataId = createNumber("eventDataId", Long.class);
 
     public final StringPath eventDataName = createString("eventDataName");
 
+    public final NumberPath<Integer> eventDataNameId = createNumber("eventDataNameId", Integer.class);
+
     public final StringPath eventDataType = createString("eventDataType");
 
     public final NumberPath<Long> eventId = createNumber("eventId", Long.class);
@@ -92,8 +98,10 @@ public class QEventData extends com.querydsl.sql.RelationalPathBase<QEventData>
     }
 
     public void addMetadata() {
+        addMetadata(compressedValue, ColumnMetadata.named("compressed_value").withIndex(10).ofType(Types.BLOB).withSize(2147483647));
         addMetadata(eventDataId, ColumnMetadata.named("event_data_id").withIndex(1).ofType(Types.BIGINT).withSize(19).notNull());
-        addMetadata(eventDataName, ColumnMetadata.named("event_data_name").withIndex(3).ofType(Types.VARCHAR).withSize(255).notNull());
+        addMetadata(eventDataName, ColumnMetadata.named("event_data_name").withIndex(3).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(eventDataNameId, ColumnMetadata.named("event_data_name_id").withIndex(9).ofType(Types.INTEGER).withSize(10));
         addMetadata(eventDataType, ColumnMetadata.named("event_data_type").withIndex(4).ofType(Types.VARCHAR).withSize(32).notNull());
         addMetadata(eventId, ColumnMetadata.named("event_id").withIndex(2).ofType(Types.BIGINT).withSize(19).notNull());
         addMetadata(numberValue, ColumnMetadata.named("number_value").withIndex(6).ofType(Types.DOUBLE).withSize(17));